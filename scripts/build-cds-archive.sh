@@ -0,0 +1,32 @@
+#!/usr/bin/env bash
+# Builds the fast-start layout: AOT-processed jar, extracted for CDS, plus an AppCDS archive.
+#
+# Usage: ./mvnw -q -Pfast-start clean package -DskipTests && scripts/build-cds-archive.sh [outDir]
+# The threading mode is fixed when the jar is AOT-processed, not when it runs: SPENDSNAP_VIRTUAL_THREADS has
+# no effect on the result. For virtual threads package with -Dfast-start.virtual-threads=true; the training
+# run below picks the mode up from the jar so the archive matches.
+# The training run refreshes the context (Flyway, Hibernate, Hikari), so the database
+# from application.yaml (or SPRING_DATASOURCE_* env vars) must be reachable.
+#
+# Run the result with:
+#   java -XX:SharedArchiveFile=<outDir>/application.jsa -Dspring.aot.enabled=true -jar <outDir>/<app>.jar
+set -euo pipefail
+
+OUT="${1:-target/fast-start}"
+JAR="$(ls target/spendSnap-*.jar | grep -v original | head -1)"
+
+VIRTUAL=false
+if jar tf "$JAR" | grep -q 'VirtualThreadPinningMonitor__BeanDefinitions'; then VIRTUAL=true; fi
+
+rm -rf "$OUT"
+# CDS only works with classes loaded from plain jars on the class path, not from a nested fat jar
+java -Djarmode=tools -jar "$JAR" extract --destination "$OUT"
+
+# Training run: stop right after refresh and dump every class loaded so far into the archive
+java -XX:ArchiveClassesAtExit="$OUT/application.jsa" \
+     -Dspring.aot.enabled=true \
+     -Dspring.threads.virtual.enabled="$VIRTUAL" \
+     -Dspring.context.exit=onRefresh \
+     -jar "$OUT/$(basename "$JAR")"
+
+echo "CDS archive written to $OUT/application.jsa (virtual threads: $VIRTUAL)"
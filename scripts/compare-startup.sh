@@ -0,0 +1,44 @@
+#!/usr/bin/env bash
+# Compares application startup time with the old schema handling
+# (ddl-auto=update, no Flyway) against the current setup (Flyway + validate).
+#
+# Usage: ./mvnw -q package -DskipTests && scripts/compare-startup.sh [runs]
+# Needs the MySQL database from application.yaml (or SPRING_DATASOURCE_* env vars).
+set -euo pipefail
+
+RUNS="${1:-5}"
+JAR="$(ls target/spendSnap-*.jar | grep -v original | head -1)"
+
+# Prints the "Started SpendSnapApplication in X seconds" value for one boot.
+boot_once() {
+  local log
+  log="$(mktemp)"
+  java -jar "$JAR" --server.port=0 "$@" >"$log" 2>&1 &
+  local pid=$!
+  until grep -q -E "Started SpendSnapApplication|APPLICATION FAILED" "$log"; do
+    if ! kill -0 "$pid" 2>/dev/null; then break; fi
+    sleep 0.2
+  done
+  kill "$pid" 2>/dev/null || true
+  wait "$pid" 2>/dev/null || true
+  local secs
+  secs="$(grep -o -E "Started SpendSnapApplication in [0-9.]+" "$log" | awk '{print $4}')"
+  rm -f "$log"
+  [ -n "$secs" ] || { echo "startup failed for: $*" >&2; exit 1; }
+  echo "$secs"
+}
+
+# Runs a mode RUNS times and prints min / avg.
+measure() {
+  local label="$1"; shift
+  local all=()
+  boot_once "$@" >/dev/null # warm the OS page cache and the DB
+  for _ in $(seq "$RUNS"); do
+    all+=("$(boot_once "$@")")
+  done
+  printf '%s\n' "${all[@]}" | awk -v l="$label" \
+    '{s+=$1; if (min=="" || $1<min) min=$1} END {printf "%-28s min %.3fs  avg %.3fs  (%d runs)\n", l, min, s/NR, NR}'
+}
+
+measure "ddl-auto=update (old)" --spring.flyway.enabled=false --spring.jpa.hibernate.ddl-auto=update
+measure "flyway + validate (current)"
@@ -0,0 +1,68 @@
+#!/usr/bin/env bash
+# Load-test comparison: platform threads (Tomcat pool) vs virtual threads, same Hikari pool.
+# Drives a blocking JDBC endpoint with `hey` (https://github.com/rakyll/hey) and prints throughput and
+# latency percentiles per mode. The endpoint is a single-expense read on the OLTP pool that every request
+# runs itself. getTotalExpensesByUser is coalesced and on the reporting pool, so it would measure request
+# sharing; expense creation would queue on the user's change-sequence row lock.
+#
+# Usage: ./mvnw -q package -DskipTests && scripts/load-test.sh [concurrency] [duration]
+# Needs the MySQL database from application.yaml and `hey` on the PATH.
+# Both modes run the same jar without -Dspring.aot.enabled, so SPENDSNAP_VIRTUAL_THREADS takes effect. A
+# fast-start (AOT) run can't be compared this way: its threading mode is fixed when the jar is processed
+# (see the fast-start profile in pom.xml), so it would run both passes in the same mode.
+set -euo pipefail
+
+CONCURRENCY="${1:-400}"
+DURATION="${2:-30s}"
+PORT="${PORT:-18080}"
+BASE="http://localhost:$PORT"
+JAR="$(ls target/spendSnap-*.jar | grep -v original | head -1)"
+
+command -v hey >/dev/null || { echo "hey is required: go install github.com/rakyll/hey@latest" >&2; exit 1; }
+
+start_app() {
+  SPENDSNAP_VIRTUAL_THREADS="$1" java -jar "$JAR" --server.port="$PORT" \
+      --spring.jpa.show-sql=false >/dev/null 2>&1 &
+  APP_PID=$!
+  until curl -fsS -o /dev/null "$BASE/actuator/health"; do sleep 0.2; done
+}
+
+stop_app() {
+  kill "$APP_PID"; wait "$APP_PID" 2>/dev/null || true
+}
+
+# Registers (idempotently) a load-test user, logs in and creates the expense that is read.
+prepare_user() {
+  local user="loadtest" pass="loadtest-password"
+  curl -s -o /dev/null -X POST "$BASE/user/register" -H 'Content-Type: application/json' \
+       -d "{\"username\":\"$user\",\"password\":\"$pass\"}" || true
+  TOKEN="$(curl -fsS -X POST "$BASE/user/login" -H 'Content-Type: application/json' \
+       -d "{\"username\":\"$user\",\"password\":\"$pass\"}")"
+  USER_ID="$(curl -fsS "$BASE/user/getUserByName?name=$user" -H "Authorization: Bearer $TOKEN" \
+       | sed -E 's/.*"id":([0-9]+).*/\1/')"
+  EXPENSE_ID="$(curl -fsS -X POST "$BASE/expenses/addExpenses" -H "Authorization: Bearer $TOKEN" \
+       -H 'Content-Type: application/json' \
+       -d "{\"amount\":12.5,\"description\":\"load test\",\"date\":\"2025-01-15\",\"category\":\"test\",\"userId\":$USER_ID}" \
+       | sed -E 's/^\{"id":([0-9]+).*/\1/')"
+}
+
+drive() {
+  hey -z "$1" -c "$2" -H "Authorization: Bearer $TOKEN" "$BASE/expenses/getExpensesById/$EXPENSE_ID"
+}
+
+run_mode() {
+  local label="$1" virtual="$2"
+  start_app "$virtual"
+  prepare_user
+  drive 5s 50 >/dev/null
+  echo "=== $label (c=$CONCURRENCY, $DURATION)"
+  drive "$DURATION" "$CONCURRENCY" \
+      | grep -E "Requests/sec|Average|Slowest|  (50|90|99)% in|\[[0-9]{3}\]"
+  echo "pinned events: $(curl -fsS -H "Authorization: Bearer $TOKEN" \
+      "$BASE/actuator/metrics/spendsnap.virtual.threads.pinned" 2>/dev/null \
+      | sed -E 's/.*"COUNT","value":([0-9.]+).*/\1/' || echo n/a)"
+  stop_app
+}
+
+run_mode "platform threads" false
+run_mode "virtual threads" true
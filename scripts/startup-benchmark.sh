@@ -0,0 +1,42 @@
+#!/usr/bin/env bash
+# Measures time-to-first-successful-request (JVM launch -> first 200 from /actuator/health)
+# for the plain jar and for the fast-start layout (AOT + AppCDS).
+#
+# Usage: ./mvnw -q -Pfast-start package -DskipTests && scripts/build-cds-archive.sh \
+#        && scripts/startup-benchmark.sh [runs]
+set -euo pipefail
+
+RUNS="${1:-5}"
+PORT="${PORT:-18080}"
+JAR="$(ls target/spendSnap-*.jar | grep -v original | head -1)"
+FAST_DIR="${FAST_DIR:-target/fast-start}"
+
+# Prints milliseconds from launch until the health endpoint first answers 200.
+first_request_ms() {
+  local start end pid
+  start="$(date +%s%N)"
+  java "$@" --server.port="$PORT" >/dev/null 2>&1 &
+  pid=$!
+  until curl -fsS -o /dev/null "http://localhost:$PORT/actuator/health"; do
+    if ! kill -0 "$pid" 2>/dev/null; then echo "app exited before serving: $*" >&2; exit 1; fi
+    sleep 0.02
+  done
+  end="$(date +%s%N)"
+  kill "$pid"; wait "$pid" 2>/dev/null || true
+  echo $(( (end - start) / 1000000 ))
+}
+
+measure() {
+  local label="$1"; shift
+  local all=()
+  first_request_ms "$@" >/dev/null # warm-up
+  for _ in $(seq "$RUNS"); do
+    all+=("$(first_request_ms "$@")")
+  done
+  printf '%s\n' "${all[@]}" | sort -n | awk -v l="$label" \
+    '{v[NR]=$1; s+=$1} END {printf "%-22s min %5d ms  median %5d ms  avg %5d ms  (%d runs)\n", l, v[1], v[int((NR+1)/2)], s/NR, NR}'
+}
+
+measure "plain jar" -jar "$JAR"
+measure "AOT + AppCDS" -XX:SharedArchiveFile="$FAST_DIR/application.jsa" -Dspring.aot.enabled=true \
+        -jar "$FAST_DIR/$(basename "$JAR")"
@@ -0,0 +1,681 @@
+package com.example.spendsnap.config;
+
+
+import com.example.spendsnap.dto.BatchItemRequest;
+import com.example.spendsnap.dto.BatchItemResponse;
+import com.example.spendsnap.exceptions.GlobalExceptionHandler;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutor;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.access.WebInvocationPrivilegeEvaluator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Runs the items of a /batch request through the DispatcherServlet in-process, so each reaches its
+ * controller the way a separate HTTP call would (argument binding, validation, exception handlers,
+ * conditional GETs, Idempotency-Key) without paying for another connection, filter chain and token check.
+ * The batch was authenticated once; each item is still checked against the URL authorization rules.
+ * Items run in order, except that consecutive GETs run concurrently: a write always sees the effects
+ * of the items before it, and the items after it see its effects.
+ */
+@Slf4j
+@Component
+public class BatchDispatcher {
+
+    private static final Set<String> METHODS = Set.of("GET", "HEAD", "POST", "PUT", "PATCH", "DELETE");
+    // Outer request headers that describe the batch itself rather than its items
+    private static final Set<String> BATCH_ONLY_HEADERS = Set.of(
+            "content-type", "content-length", "transfer-encoding", "accept", "accept-encoding",
+            "if-match", "if-none-match", "if-modified-since", "if-unmodified-since", "if-range",
+            IdempotencyFilter.HEADER.toLowerCase());
+
+    private final DispatcherServlet dispatcherServlet;
+    private final IdempotencyFilter idempotencyFilter;
+    private final WebInvocationPrivilegeEvaluator privilegeEvaluator;
+    private final ObjectMapper objectMapper;
+    private final Executor readExecutor;
+    private final int maxRequests;
+    private final int readParallelism;
+
+    public BatchDispatcher(DispatcherServlet dispatcherServlet,
+                           IdempotencyFilter idempotencyFilter,
+                           WebInvocationPrivilegeEvaluator privilegeEvaluator,
+                           ObjectMapper objectMapper,
+                           @Qualifier("applicationTaskExecutor") AsyncTaskExecutor executor,
+                           @Value("${spendsnap.batch.max-requests:20}") int maxRequests,
+                           @Value("${spendsnap.batch.read-parallelism:4}") int readParallelism) {
+        this.dispatcherServlet = dispatcherServlet;
+        this.idempotencyFilter = idempotencyFilter;
+        this.privilegeEvaluator = privilegeEvaluator;
+        this.objectMapper = objectMapper;
+        // Items run as the caller on the pool threads too
+        this.readExecutor = new DelegatingSecurityContextExecutor(executor);
+        this.maxRequests = maxRequests;
+        this.readParallelism = Math.max(1, readParallelism);
+    }
+
+    public List<BatchItemResponse> dispatch(List<BatchItemRequest> items, HttpServletRequest request, HttpServletResponse response) {
+        if (items == null || items.isEmpty()) throw new IllegalArgumentException("A batch needs at least one request");
+        if (items.size() > maxRequests) throw new IllegalArgumentException("A batch takes at most " + maxRequests + " requests");
+
+        BatchItemResponse[] results = new BatchItemResponse[items.size()];
+        int i = 0;
+        while (i < items.size()) {
+            int end = i + 1;
+            if (isRead(items.get(i))) {
+                while (end < items.size() && isRead(items.get(end))) end++;
+            }
+            if (end - i == 1) {
+                results[i] = run(i, items.get(i), request, response);
+            } else {
+                runConcurrently(i, end, items, results, request, response);
+            }
+            i = end;
+        }
+        return List.of(results);
+    }
+
+    // Split into readParallelism slices like CategoryStatsBackfillService, so one batch can't take the whole OLTP pool
+    private void runConcurrently(int from, int to, List<BatchItemRequest> items, BatchItemResponse[] results,
+                                 HttpServletRequest request, HttpServletResponse response) {
+        List<CompletableFuture<Void>> slices = new ArrayList<>();
+        for (int slice = 0; slice < readParallelism && from + slice < to; slice++) {
+            int first = from + slice;
+            slices.add(CompletableFuture.runAsync(() -> {
+                for (int index = first; index < to; index += readParallelism) {
+                    results[index] = run(index, items.get(index), request, response);
+                }
+            }, readExecutor));
+        }
+        CompletableFuture.allOf(slices.toArray(CompletableFuture[]::new)).join();
+    }
+
+    private BatchItemResponse run(int index, BatchItemRequest item, HttpServletRequest request, HttpServletResponse response) {
+        String id = item.getId() != null ? item.getId() : String.valueOf(index);
+        String method = item.getMethod() != null ? item.getMethod().trim().toUpperCase() : "";
+        String path = item.getPath() != null ? item.getPath().trim() : "";
+        if (!METHODS.contains(method)) return error(id, HttpStatus.BAD_REQUEST, "Unsupported method: " + item.getMethod());
+        if (!path.startsWith("/") || path.startsWith("//")) return error(id, HttpStatus.BAD_REQUEST, "path must start with /");
+
+        UriComponents uri;
+        try {
+            uri = UriComponentsBuilder.fromUriString(path).build();
+        } catch (IllegalArgumentException e) {
+            return error(id, HttpStatus.BAD_REQUEST, "Invalid path: " + path);
+        }
+        String rawPath = uri.getPath() != null ? uri.getPath() : "/";
+        String decodedPath = UriUtils.decode(rawPath, StandardCharsets.UTF_8);
+        if (decodedPath.equals("/batch") || decodedPath.startsWith("/batch/")) {
+            return error(id, HttpStatus.BAD_REQUEST, "Batches can't be nested");
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (!privilegeEvaluator.isAllowed(request.getContextPath(), decodedPath, method, authentication)) {
+            return error(id, HttpStatus.FORBIDDEN, "Access denied");
+        }
+
+        try {
+            byte[] body = item.getBody() == null || item.getBody().isNull() ? new byte[0] : objectMapper.writeValueAsBytes(item.getBody());
+            SubRequest subRequest = new SubRequest(request, method, rawPath, decodedPath, uri, headers(request, item, body.length), body);
+            SubResponse subResponse = new SubResponse(response);
+            idempotencyFilter.doFilter(subRequest, subResponse, dispatcherServlet::service);
+            return subResponse.toItem(id);
+        } catch (Exception e) {
+            // Anything the controller advice didn't turn into a response
+            log.warn("Batch item {} {} failed", method, path, e);
+            return error(id, HttpStatus.INTERNAL_SERVER_ERROR, "Internal error");
+        }
+    }
+
+    private static boolean isRead(BatchItemRequest item) {
+        return item.getMethod() != null && item.getMethod().trim().equalsIgnoreCase("GET");
+    }
+
+    private static HttpHeaders headers(HttpServletRequest request, BatchItemRequest item, int bodyLength) {
+        HttpHeaders headers = new HttpHeaders();
+        for (String name : Collections.list(request.getHeaderNames())) {
+            if (!BATCH_ONLY_HEADERS.contains(name.toLowerCase())) headers.put(name, Collections.list(request.getHeaders(name)));
+        }
+        if (item.getHeaders() != null) item.getHeaders().forEach(headers::set);
+        // Item bodies are embedded in the JSON batch response
+        headers.setAccept(List.of(MediaType.APPLICATION_JSON));
+        if (bodyLength > 0) {
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            headers.setContentLength(bodyLength);
+        } else {
+            headers.remove(HttpHeaders.CONTENT_TYPE);
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+        }
+        return headers;
+    }
+
+    private BatchItemResponse error(String id, HttpStatus status, String message) {
+        return new BatchItemResponse(id, status.value(), Map.of(), objectMapper.valueToTree(new GlobalExceptionHandler.ApiError(message)));
+    }
+
+    /** One item as a request of its own: method, path, query, headers and body are the item's; the connection is the batch's. */
+    private static final class SubRequest extends HttpServletRequestWrapper {
+        private final String method;
+        private final String requestUri;
+        private final String servletPath;
+        private final String queryString;
+        private final Map<String, String[]> parameters;
+        private final HttpHeaders headers;
+        private final byte[] body;
+        private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+        private String characterEncoding = StandardCharsets.UTF_8.name();
+
+        SubRequest(HttpServletRequest request, String method, String rawPath, String decodedPath, UriComponents uri,
+                   HttpHeaders headers, byte[] body) {
+            super(request);
+            this.method = method;
+            this.requestUri = request.getContextPath() + rawPath;
+            this.servletPath = decodedPath;
+            this.queryString = uri.getQuery();
+            MultiValueMap<String, String> query = new LinkedMultiValueMap<>();
+            uri.getQueryParams().forEach((name, values) -> {
+                for (String value : values) {
+                    query.add(UriUtils.decode(name, StandardCharsets.UTF_8), value != null ? UriUtils.decode(value, StandardCharsets.UTF_8) : "");
+                }
+            });
+            Map<String, String[]> parameters = new LinkedHashMap<>();
+            query.forEach((name, values) -> parameters.put(name, values.toArray(String[]::new)));
+            this.parameters = Collections.unmodifiableMap(parameters);
+            this.headers = headers;
+            this.body = body;
+        }
+
+        @Override
+        public String getMethod() {
+            return method;
+        }
+
+        @Override
+        public String getRequestURI() {
+            return requestUri;
+        }
+
+        @Override
+        public StringBuffer getRequestURL() {
+            HttpServletRequest outer = (HttpServletRequest) getRequest();
+            String base = outer.getRequestURL().toString();
+            return new StringBuffer(base.substring(0, base.length() - outer.getRequestURI().length())).append(requestUri);
+        }
+
+        @Override
+        public String getServletPath() {
+            return servletPath;
+        }
+
+        @Override
+        public String getPathInfo() {
+            return null;
+        }
+
+        @Override
+        public String getQueryString() {
+            return queryString;
+        }
+
+        @Override
+        public String getParameter(String name) {
+            String[] values = parameters.get(name);
+            return values != null && values.length > 0 ? values[0] : null;
+        }
+
+        @Override
+        public Map<String, String[]> getParameterMap() {
+            return parameters;
+        }
+
+        @Override
+        public Enumeration<String> getParameterNames() {
+            return Collections.enumeration(parameters.keySet());
+        }
+
+        @Override
+        public String[] getParameterValues(String name) {
+            return parameters.get(name);
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return headers.getFirst(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            List<String> values = headers.get(name);
+            return Collections.enumeration(values != null ? values : List.of());
+        }
+
+        @Override
+        public Enumeration<String> getHeaderNames() {
+            return Collections.enumeration(headers.keySet());
+        }
+
+        @Override
+        public int getIntHeader(String name) {
+            String value = headers.getFirst(name);
+            return value != null ? Integer.parseInt(value) : -1;
+        }
+
+        @Override
+        public long getDateHeader(String name) {
+            String value = headers.getFirst(name);
+            if (value == null) return -1;
+            try {
+                return ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid date header " + name + ": " + value);
+            }
+        }
+
+        @Override
+        public String getContentType() {
+            return headers.getFirst(HttpHeaders.CONTENT_TYPE);
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length > 0 ? body.length : -1;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return getContentLength();
+        }
+
+        @Override
+        public String getCharacterEncoding() {
+            return characterEncoding;
+        }
+
+        @Override
+        public void setCharacterEncoding(String encoding) {
+            this.characterEncoding = encoding;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), Charset.forName(characterEncoding)));
+        }
+
+        // Attributes are per item: the dispatcher keeps handler and path state in them
+        @Override
+        public Object getAttribute(String name) {
+            return attributes.get(name);
+        }
+
+        @Override
+        public Enumeration<String> getAttributeNames() {
+            return Collections.enumeration(attributes.keySet());
+        }
+
+        @Override
+        public void setAttribute(String name, Object value) {
+            if (value == null) attributes.remove(name);
+            else attributes.put(name, value);
+        }
+
+        @Override
+        public void removeAttribute(String name) {
+            attributes.remove(name);
+        }
+
+        @Override
+        public DispatcherType getDispatcherType() {
+            return DispatcherType.REQUEST;
+        }
+
+        // Streaming endpoints (/events, exports) need a connection of their own
+        @Override
+        public boolean isAsyncSupported() {
+            return false;
+        }
+
+        @Override
+        public boolean isAsyncStarted() {
+            return false;
+        }
+
+        @Override
+        public AsyncContext startAsync() {
+            throw new IllegalStateException("Asynchronous endpoints can't be called from /batch");
+        }
+
+        @Override
+        public AsyncContext startAsync(ServletRequest request, ServletResponse response) {
+            throw new IllegalStateException("Asynchronous endpoints can't be called from /batch");
+        }
+    }
+
+    /** Buffers one item's status, headers and body; nothing reaches the batch's own response. */
+    private final class SubResponse extends HttpServletResponseWrapper {
+        private final HttpHeaders headers = new HttpHeaders();
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        private int status = HttpServletResponse.SC_OK;
+        private String errorMessage;
+        private String characterEncoding;
+        private ServletOutputStream outputStream;
+        private PrintWriter writer;
+        private boolean committed;
+
+        SubResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        BatchItemResponse toItem(String id) throws IOException {
+            if (writer != null) writer.flush();
+            Map<String, String> itemHeaders = new LinkedHashMap<>();
+            headers.forEach((name, values) -> itemHeaders.put(name, String.join(", ", values)));
+            return new BatchItemResponse(id, status, itemHeaders, body());
+        }
+
+        private JsonNode body() {
+            if (body.size() == 0) {
+                return errorMessage != null ? objectMapper.valueToTree(new GlobalExceptionHandler.ApiError(errorMessage)) : null;
+            }
+            MediaType type = getContentType() != null ? MediaType.parseMediaType(getContentType()) : null;
+            Charset charset = type != null && type.getCharset() != null ? type.getCharset() : StandardCharsets.UTF_8;
+            if (type != null && (type.isCompatibleWith(MediaType.APPLICATION_JSON) || type.getSubtype().endsWith("+json"))) {
+                // Parsed rather than embedded as is: some handlers (exceptions.Exceptions) label plain text as JSON
+                try {
+                    return objectMapper.readTree(body.toByteArray());
+                } catch (IOException e) {
+                    // fall through to text
+                }
+            }
+            return JsonNodeFactory.instance.textNode(body.toString(charset));
+        }
+
+        @Override
+        public void setStatus(int status) {
+            if (!committed) this.status = status;
+        }
+
+        @Override
+        public int getStatus() {
+            return status;
+        }
+
+        @Override
+        public void sendError(int status, String message) {
+            if (committed) throw new IllegalStateException("Response already committed");
+            this.status = status;
+            this.errorMessage = message != null ? message : HttpStatus.valueOf(status).getReasonPhrase();
+            body.reset();
+            committed = true;
+        }
+
+        @Override
+        public void sendError(int status) {
+            sendError(status, null);
+        }
+
+        @Override
+        public void sendRedirect(String location) {
+            if (committed) throw new IllegalStateException("Response already committed");
+            status = HttpServletResponse.SC_FOUND;
+            headers.set(HttpHeaders.LOCATION, location);
+            committed = true;
+        }
+
+        // Content-Length describes the item body, which is re-encoded into the batch response
+        @Override
+        public void setHeader(String name, String value) {
+            if (committed || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) return;
+            if (value == null) headers.remove(name);
+            else if (HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(name)) setContentType(value);
+            else headers.set(name, value);
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if (committed || value == null || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) return;
+            if (HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(name)) setContentType(value);
+            else headers.add(name, value);
+        }
+
+        @Override
+        public void setIntHeader(String name, int value) {
+            setHeader(name, String.valueOf(value));
+        }
+
+        @Override
+        public void addIntHeader(String name, int value) {
+            addHeader(name, String.valueOf(value));
+        }
+
+        @Override
+        public void setDateHeader(String name, long date) {
+            setHeader(name, formatDate(date));
+        }
+
+        @Override
+        public void addDateHeader(String name, long date) {
+            addHeader(name, formatDate(date));
+        }
+
+        @Override
+        public boolean containsHeader(String name) {
+            return headers.containsKey(name);
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return headers.getFirst(name);
+        }
+
+        @Override
+        public Collection<String> getHeaders(String name) {
+            List<String> values = headers.get(name);
+            return values != null ? List.copyOf(values) : List.of();
+        }
+
+        @Override
+        public Collection<String> getHeaderNames() {
+            return List.copyOf(headers.keySet());
+        }
+
+        @Override
+        public void setContentType(String type) {
+            if (committed) return;
+            if (type == null) {
+                headers.remove(HttpHeaders.CONTENT_TYPE);
+                return;
+            }
+            MediaType mediaType = MediaType.parseMediaType(type);
+            if (mediaType.getCharset() != null) characterEncoding = mediaType.getCharset().name();
+            else if (characterEncoding != null) mediaType = new MediaType(mediaType, Charset.forName(characterEncoding));
+            headers.set(HttpHeaders.CONTENT_TYPE, mediaType.toString());
+        }
+
+        @Override
+        public String getContentType() {
+            return headers.getFirst(HttpHeaders.CONTENT_TYPE);
+        }
+
+        @Override
+        public void setCharacterEncoding(String encoding) {
+            if (committed || writer != null) return;
+            characterEncoding = encoding;
+            String type = getContentType();
+            if (type != null && encoding != null) {
+                headers.set(HttpHeaders.CONTENT_TYPE, new MediaType(MediaType.parseMediaType(type), Charset.forName(encoding)).toString());
+            }
+        }
+
+        @Override
+        public String getCharacterEncoding() {
+            return characterEncoding != null ? characterEncoding : StandardCharsets.ISO_8859_1.name();
+        }
+
+        @Override
+        public void setContentLength(int length) {
+        }
+
+        @Override
+        public void setContentLengthLong(long length) {
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            if (writer != null) throw new IllegalStateException("getWriter() has already been called");
+            if (outputStream == null) {
+                outputStream = new ServletOutputStream() {
+                    @Override
+                    public void write(int b) {
+                        body.write(b);
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) {
+                        body.write(b, off, len);
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return true;
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener listener) {
+                        throw new UnsupportedOperationException();
+                    }
+                };
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() {
+            if (outputStream != null) throw new IllegalStateException("getOutputStream() has already been called");
+            if (writer == null) writer = new PrintWriter(new OutputStreamWriter(body, Charset.forName(getCharacterEncoding())));
+            return writer;
+        }
+
+        @Override
+        public void flushBuffer() {
+            if (writer != null) writer.flush();
+            committed = true;
+        }
+
+        @Override
+        public boolean isCommitted() {
+            return committed;
+        }
+
+        @Override
+        public void reset() {
+            if (committed) throw new IllegalStateException("Response already committed");
+            headers.clear();
+            body.reset();
+            status = HttpServletResponse.SC_OK;
+            characterEncoding = null;
+        }
+
+        @Override
+        public void resetBuffer() {
+            if (committed) throw new IllegalStateException("Response already committed");
+            body.reset();
+        }
+
+        @Override
+        public void setBufferSize(int size) {
+        }
+
+        @Override
+        public int getBufferSize() {
+            return Integer.MAX_VALUE;
+        }
+
+        private static String formatDate(long date) {
+            return DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.ofEpochMilli(date).atZone(ZoneOffset.UTC));
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.spendsnap.config;
+
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * application/cbor for every endpoint that returns DTOs (selected with the Accept header; JSON stays the
+ * default). Built from Boot's Jackson builder so CBOR bodies have the same fields and date format as JSON.
+ */
+@Configuration
+public class CborConfig {
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    /**
+     * Whether an Accept header asks for CBOR over JSON, for handlers that write the body themselves.
+     * Wildcards count for JSON, so only an explicit application/cbor selects CBOR. A tie (e.g. RestTemplate's
+     * default Accept, which lists both at q=1) goes to JSON, the encoding Spring negotiates for it too.
+     */
+    public static boolean prefersCbor(String accept) {
+        if (accept == null || accept.isBlank()) return false;
+        double cbor = 0;
+        double json = 0;
+        for (MediaType type : MediaType.parseMediaTypes(accept)) {
+            if (type.equalsTypeAndSubtype(MediaType.APPLICATION_CBOR)) cbor = Math.max(cbor, type.getQualityValue());
+            else if (type.isCompatibleWith(MediaType.APPLICATION_JSON)) json = Math.max(json, type.getQualityValue());
+        }
+        return cbor > json;
+    }
+}
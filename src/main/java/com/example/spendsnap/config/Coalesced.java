@@ -0,0 +1,14 @@
+package com.example.spendsnap.config;
+
+import java.lang.annotation.*;
+
+/**
+ * Concurrent calls of the annotated read-only method with equal arguments share one execution
+ * (see CoalescingAspect). Only for methods whose result depends on nothing but their arguments and
+ * is safe to hand to several callers (immutable values).
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Coalesced {
+}
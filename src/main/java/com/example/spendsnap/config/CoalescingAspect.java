@@ -0,0 +1,80 @@
+package com.example.spendsnap.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Single-flight for @Coalesced methods: the first caller for a (method, arguments) key runs it, callers
+ * arriving while it runs wait on the same CompletableFuture instead of issuing the same query again.
+ * Nothing is cached once the call returns. Calls inside a transaction are not coalesced, since they may
+ * need to see that transaction's own writes.
+ * Outermost aspect, so waiting callers don't take a pool slot or start a transaction.
+ * Metrics: spendsnap.coalesced.calls{method, role=leader|follower}; coalesced ratio = follower / all.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class CoalescingAspect {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    @Around("@annotation(com.example.spendsnap.config.Coalesced)")
+    public Object coalesce(ProceedingJoinPoint pjp) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) return pjp.proceed();
+        Method method = ((MethodSignature) pjp.getSignature()).getMethod();
+        Key key = new Key(method, Arrays.asList(pjp.getArgs()));
+
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            count(method, "follower");
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw e.getCause();
+            }
+        }
+
+        count(method, "leader");
+        try {
+            Object result = pjp.proceed();
+            mine.complete(result);
+            return result;
+        } catch (Throwable e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private void count(Method method, String role) {
+        Counter.builder("spendsnap.coalesced.calls")
+                .description("Calls of @Coalesced methods, by whether they ran the query or shared another call's")
+                .tag("method", method.getDeclaringClass().getSimpleName() + "." + method.getName())
+                .tag("role", role)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private record Key(Method method, List<Object> args) {}
+}
@@ -0,0 +1,25 @@
+package com.example.spendsnap.config;
+
+import com.example.spendsnap.service.CustomUserDetailService;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Resolves the authenticated user's id for controllers, from the principal the JWT filter set.
+ * Without one the request is denied; there is no header fallback.
+ */
+@Component
+public class CurrentUserResolver {
+
+    public Integer id() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth != null) {
+            Object p = auth.getPrincipal();
+            if (p instanceof CustomUserDetailService details) return details.getId();
+            if (p instanceof Number n) return n.intValue();
+        }
+        throw new AccessDeniedException("Cannot resolve authenticated user id.");
+    }
+}
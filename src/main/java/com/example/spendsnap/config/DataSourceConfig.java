@@ -0,0 +1,47 @@
+package com.example.spendsnap.config;
+
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * One Hikari pool per workload class (spendsnap.datasource.oltp / .reporting), both pointing at
+ * spring.datasource.url. JPA, Flyway and JdbcTemplate use the routing data source; a burst of
+ * reporting queries can only exhaust the reporting pool.
+ */
+@Configuration
+public class DataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spendsnap.datasource.oltp")
+    public HikariDataSource oltpDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConfigurationProperties("spendsnap.datasource.reporting")
+    public HikariDataSource reportingDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource oltpDataSource, HikariDataSource reportingDataSource) {
+        WorkloadRoutingDataSource routing = new WorkloadRoutingDataSource();
+        routing.setTargetDataSources(Map.of(
+                WorkloadClass.OLTP, oltpDataSource,
+                WorkloadClass.REPORTING, reportingDataSource));
+        routing.setDefaultTargetDataSource(oltpDataSource);
+        routing.afterPropertiesSet();
+        // Defer the pool lookup until the first statement, after the workload has been bound
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.spendsnap.config;
+
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.NativeWebRequest;
+
+/**
+ * Strong ETags built from version tokens instead of hashing the body, so a conditional request is
+ * answered before the payload is loaded or serialized. One account is tagged by its @Version; a user's
+ * collections (expenses, income, saving accounts) by their sync change sequence, which every write to
+ * any of those rows advances.
+ */
+public final class ETags {
+
+    private ETags() {
+    }
+
+    public static String account(Integer id, Integer version) {
+        return "\"a" + id + "." + (version != null ? version : 0) + "\"";
+    }
+
+    public static String collection(Integer userId, long changeSeq) {
+        return "\"u" + userId + "." + changeSeq + "\"";
+    }
+
+    /**
+     * Answers If-None-Match: true means a 304 was set up and the handler should return null.
+     * Otherwise the ETag goes on the response, which clients may keep but must revalidate.
+     * The token must be read before the body, so a racing write can only make the body newer than its tag.
+     */
+    public static boolean checkNotModified(NativeWebRequest request, String etag) {
+        HttpServletResponse response = request.getNativeResponse(HttpServletResponse.class);
+        if (response != null) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+        return request.checkNotModified(encoded(request, etag));
+    }
+
+    /** The tag as sent for the request's encoding: strong tags differ per encoding, the CBOR body of a version is not the JSON one. */
+    public static String encoded(NativeWebRequest request, String etag) {
+        return CborConfig.prefersCbor(request.getHeader(HttpHeaders.ACCEPT)) ? cbor(etag) : etag;
+    }
+
+    /**
+     * Strong comparison against an If-Match header: "*" or a list of tags, weak tags never match.
+     * Either encoding's tag matches, since both name the same version of the resource.
+     */
+    public static boolean matches(String ifMatch, String etag) {
+        String cbor = cbor(etag);
+        for (String candidate : ifMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(etag) || tag.equals(cbor)) return true;
+        }
+        return false;
+    }
+
+    private static String cbor(String etag) {
+        return etag.substring(0, etag.length() - 1) + "-cbor\"";
+    }
+}
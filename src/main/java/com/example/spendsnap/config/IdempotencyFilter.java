@@ -0,0 +1,189 @@
+package com.example.spendsnap.config;
+
+
+import com.example.spendsnap.exceptions.GlobalExceptionHandler;
+import com.example.spendsnap.model.IdempotencyRecord;
+import com.example.spendsnap.service.IdempotencyService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+/**
+ * Honors the Idempotency-Key header on the POST endpoints listed in spendsnap.idempotency.paths
+ * (money operations and expense creation): the first request runs, its response is stored, and retries
+ * with the same key get that response back (marked Idempotent-Replayed) without reaching the controller.
+ * Runs after Spring Security, so keys are scoped to the authenticated user.
+ */
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private final IdempotencyService idempotency;
+    private final CurrentUserResolver currentUser;
+    private final ObjectMapper objectMapper;
+    private final List<PathPattern> paths;
+
+    public IdempotencyFilter(IdempotencyService idempotency,
+                             CurrentUserResolver currentUser,
+                             ObjectMapper objectMapper,
+                             @Value("${spendsnap.idempotency.paths:}") List<String> paths) {
+        this.idempotency = idempotency;
+        this.currentUser = currentUser;
+        this.objectMapper = objectMapper;
+        this.paths = paths.stream().map(String::trim).filter(p -> !p.isEmpty()).map(PathPatternParser.defaultInstance::parse).toList();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!"POST".equals(request.getMethod()) || request.getHeader(HEADER) == null) return true;
+        PathContainer path = PathContainer.parsePath(request.getRequestURI().substring(request.getContextPath().length()));
+        return paths.stream().noneMatch(p -> p.matches(path));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String key = request.getHeader(HEADER).trim();
+        if (key.isEmpty() || key.length() > IdempotencyRecord.MAX_KEY_LENGTH || !key.chars().allMatch(c -> c > 0x20 && c < 0x7f)) {
+            error(response, HttpStatus.BAD_REQUEST, HEADER + " must be 1-" + IdempotencyRecord.MAX_KEY_LENGTH + " visible ASCII characters");
+            return;
+        }
+        Integer userId;
+        try {
+            userId = currentUser.id();
+        } catch (AccessDeniedException e) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        CachedBodyRequest cachedRequest = new CachedBodyRequest(request);
+        IdempotencyService.Claim claim;
+        try {
+            claim = idempotency.claim(userId, key, fingerprint(request, cachedRequest.body));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            error(response, HttpStatus.SERVICE_UNAVAILABLE, "Interrupted");
+            return;
+        }
+
+        switch (claim) {
+            case IdempotencyService.Replay replay -> {
+                IdempotencyService.StoredResponse stored = replay.response();
+                response.setStatus(stored.status());
+                if (stored.contentType() != null) response.setContentType(stored.contentType());
+                response.setHeader(REPLAYED_HEADER, "true");
+                response.setContentLength(stored.body().length);
+                response.getOutputStream().write(stored.body());
+            }
+            case IdempotencyService.InProgress ignored -> {
+                response.setHeader("Retry-After", "1");
+                error(response, HttpStatus.CONFLICT, "A request with this " + HEADER + " is still in progress");
+            }
+            case IdempotencyService.Mismatch ignored ->
+                    error(response, HttpStatus.UNPROCESSABLE_ENTITY, HEADER + " was already used for a different request");
+            case IdempotencyService.Owner owner -> {
+                ContentCachingResponseWrapper cachedResponse = new ContentCachingResponseWrapper(response);
+                try {
+                    filterChain.doFilter(cachedRequest, cachedResponse);
+                } catch (IOException | ServletException | RuntimeException e) {
+                    owner.fail();
+                    throw e;
+                }
+                owner.complete(cachedResponse.getStatus(), cachedResponse.getContentType(), cachedResponse.getContentAsByteArray());
+                cachedResponse.copyBodyToResponse();
+            }
+        }
+    }
+
+    private void error(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new GlobalExceptionHandler.ApiError(message));
+    }
+
+    private static byte[] fingerprint(HttpServletRequest request, byte[] body) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            sha.update((request.getMethod() + " " + request.getRequestURI() + "\n").getBytes(StandardCharsets.UTF_8));
+            sha.update(body);
+            return sha.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Request whose body was read up front (to fingerprint it) and is served again to the controller
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            this.body = request.getInputStream().readAllBytes();
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                    encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8));
+        }
+    }
+}
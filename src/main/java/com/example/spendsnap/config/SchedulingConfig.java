@@ -0,0 +1,10 @@
+package com.example.spendsnap.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// @Scheduled jobs: recurring rule materialization (RecurringRuleService)
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,92 @@
+package com.example.spendsnap.config;
+
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Streams the JFR jdk.VirtualThreadPinned event in-process and publishes it as metrics,
+ * tagged by where the pinning happened: our code (synchronized blocks), the JDBC driver, or other.
+ * Only active when spring.threads.virtual.enabled=true.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadPinningMonitor {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${spendsnap.threads.pinning.threshold:20ms}")
+    private Duration threshold;
+
+    private RecordingStream stream;
+
+    @PostConstruct
+    void start() {
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::record);
+        stream.startAsync();
+        log.info("Virtual thread pinning monitor started (threshold {})", threshold);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (stream != null) stream.close();
+    }
+
+    private void record(RecordedEvent event) {
+        String source = classify(event.getStackTrace());
+        Counter.builder("spendsnap.virtual.threads.pinned")
+                .description("Virtual threads pinned to their carrier longer than the threshold")
+                .tag("source", source)
+                .register(meterRegistry)
+                .increment();
+        Timer.builder("spendsnap.virtual.threads.pinned.duration")
+                .tag("source", source)
+                .register(meterRegistry)
+                .record(event.getDuration());
+        if (log.isDebugEnabled()) {
+            log.debug("Virtual thread pinned for {} ({}): {}", event.getDuration(), source, topFrame(event.getStackTrace()));
+        }
+    }
+
+    // First frame that belongs to us or to the driver decides the tag
+    private static String classify(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) return "unknown";
+        for (RecordedFrame frame : stackTrace.getFrames()) {
+            if (!frame.isJavaFrame()) continue;
+            String type = frame.getMethod().getType().getName();
+            if (type.startsWith("com.example.spendsnap.")) return "app";
+            if (type.startsWith("com.mysql.") || type.startsWith("com.zaxxer.hikari.")) return "jdbc";
+        }
+        return "other";
+    }
+
+    private static String topFrame(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) return "?";
+        List<RecordedFrame> frames = stackTrace.getFrames();
+        if (frames.isEmpty()) return "?";
+        RecordedFrame f = frames.get(0);
+        return f.getMethod().getType().getName() + "." + f.getMethod().getName() + ":" + f.getLineNumber();
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.spendsnap.config;
+
+import java.lang.annotation.*;
+
+/**
+ * Selects the connection pool used by a service method (or every method of a service).
+ * Un-annotated code runs on the OLTP pool. A method already running inside a transaction
+ * keeps that transaction's connection, whatever its annotation says.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Workload {
+
+    WorkloadClass value();
+}
@@ -0,0 +1,36 @@
+package com.example.spendsnap.config;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+// Must run outside @Transactional so the pool is chosen before the transaction asks for a connection;
+// inside CoalescingAspect, so coalesced callers that only wait never bind a pool
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class WorkloadAspect {
+
+    @Around("@annotation(com.example.spendsnap.config.Workload) || @within(com.example.spendsnap.config.Workload)")
+    public Object route(ProceedingJoinPoint pjp) throws Throwable {
+        MethodSignature signature = (MethodSignature) pjp.getSignature();
+        Workload workload = AnnotatedElementUtils.findMergedAnnotation(signature.getMethod(), Workload.class);
+        if (workload == null) {
+            workload = AnnotatedElementUtils.findMergedAnnotation(pjp.getTarget().getClass(), Workload.class);
+        }
+        if (workload == null) {
+            return pjp.proceed();
+        }
+        WorkloadClass previous = WorkloadRoutingDataSource.bind(workload.value());
+        try {
+            return pjp.proceed();
+        } finally {
+            WorkloadRoutingDataSource.restore(previous);
+        }
+    }
+}
@@ -0,0 +1,3 @@
+package com.example.spendsnap.config;
+
+public enum WorkloadClass {OLTP, REPORTING}
@@ -0,0 +1,31 @@
+package com.example.spendsnap.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * Routes getConnection() to the pool of the workload bound to the current thread by {@link WorkloadAspect}.
+ */
+public class WorkloadRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final ThreadLocal<WorkloadClass> CURRENT = new ThreadLocal<>();
+
+    static WorkloadClass bind(WorkloadClass workload) {
+        WorkloadClass previous = CURRENT.get();
+        CURRENT.set(workload);
+        return previous;
+    }
+
+    static void restore(WorkloadClass previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        WorkloadClass workload = CURRENT.get();
+        return workload != null ? workload : WorkloadClass.OLTP;
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.spendsnap.controller;
+
+
+import com.example.spendsnap.dto.BackfillResultDto;
+import com.example.spendsnap.dto.RecurringRunDto;
+import com.example.spendsnap.service.CategoryStatsBackfillService;
+import com.example.spendsnap.service.DescriptionSearchService;
+import com.example.spendsnap.service.RecurringRuleService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+
+// /admin/** requires ROLE_ADMIN (WebConfig)
+@RestController
+@RequestMapping("/admin")
+@RequiredArgsConstructor
+public class AdminController {
+
+    private final CategoryStatsBackfillService categoryStatsBackfill;
+    private final DescriptionSearchService descriptionSearch;
+    private final RecurringRuleService recurringRules;
+
+    @PostMapping("/category-stats/rebuild")
+    public BackfillResultDto rebuildCategoryStats() {
+        return categoryStatsBackfill.rebuildAll();
+    }
+
+    // Without userId every cached index is dropped; each is rebuilt from the database on next search
+    @PostMapping("/search-index/rebuild")
+    public void rebuildSearchIndex(@RequestParam(name = "userId", required = false) Integer userId) {
+        descriptionSearch.rebuild(userId);
+    }
+
+    // Same pass as the nightly schedule; safe to repeat
+    @PostMapping("/recurring/run")
+    public RecurringRunDto runRecurring() {
+        return recurringRules.materializeDue(LocalDate.now());
+    }
+}
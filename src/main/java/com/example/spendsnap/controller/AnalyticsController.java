@@ -0,0 +1,94 @@
+package com.example.spendsnap.controller;
+
+
+import com.example.spendsnap.config.CurrentUserResolver;
+import com.example.spendsnap.dto.CategoryBreakdownDto;
+import com.example.spendsnap.dto.CategoryPercentilesDto;
+import com.example.spendsnap.dto.NetWorthSeriesDto;
+import com.example.spendsnap.dto.RunningTotalDto;
+import com.example.spendsnap.model.LedgerType;
+import com.example.spendsnap.model.TimeBucket;
+import com.example.spendsnap.service.AnalyticsService;
+import com.example.spendsnap.service.ColumnarAnalyticsService;
+import com.example.spendsnap.service.NetWorthService;
+import com.example.spendsnap.service.SpendingSketchService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+@RestController
+@RequestMapping("/analytics")
+@RequiredArgsConstructor
+public class AnalyticsController {
+
+    private final AnalyticsService analyticsService;
+    private final ColumnarAnalyticsService columnarAnalytics;
+    private final SpendingSketchService spendingSketches;
+    private final NetWorthService netWorthService;
+    private final CurrentUserResolver currentUser;
+
+    // e.g. /analytics/breakdown?from=2025-01-01&to=2025-03-31&bucket=MONTH&type=EXPENSES
+    @GetMapping("/breakdown")
+    public CategoryBreakdownDto breakdown(@RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                          @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                          @RequestParam(name = "bucket", defaultValue = "NONE") TimeBucket bucket,
+                                          @RequestParam(name = "type", defaultValue = "EXPENSES") LedgerType type) {
+        return analyticsService.breakdown(currentUser.id(), type, from, to, bucket);
+    }
+
+    // In-memory columnar variants, for charts that fire many aggregates over the same history
+
+    @GetMapping("/sum")
+    public Double sum(@RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                      @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                      @RequestParam(name = "type", defaultValue = "EXPENSES") LedgerType type,
+                      @RequestParam(name = "categoryId", required = false) Integer categoryId) {
+        return columnarAnalytics.sum(currentUser.id(), type, from, to, categoryId);
+    }
+
+    @GetMapping("/by-category")
+    public List<CategoryBreakdownDto.CategoryTotal> byCategory(@RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                               @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                               @RequestParam(name = "type", defaultValue = "EXPENSES") LedgerType type) {
+        return columnarAnalytics.byCategory(currentUser.id(), type, from, to);
+    }
+
+    @GetMapping("/running-total")
+    public RunningTotalDto runningTotal(@RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                        @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                        @RequestParam(name = "type", defaultValue = "EXPENSES") LedgerType type) {
+        return columnarAnalytics.runningTotal(currentUser.id(), type, from, to);
+    }
+
+    // e.g. /analytics/percentiles?from=2025-01&to=2025-06&q=0.5&q=0.9
+    @GetMapping("/percentiles")
+    public List<CategoryPercentilesDto> percentiles(@RequestParam("from") YearMonth from,
+                                                    @RequestParam("to") YearMonth to,
+                                                    @RequestParam(name = "categoryId", required = false) Integer categoryId,
+                                                    @RequestParam(name = "q", defaultValue = "0.5,0.9") List<Double> quantiles) {
+        return spendingSketches.percentiles(currentUser.id(), from, to, categoryId, quantiles);
+    }
+
+    // e.g. /analytics/net-worth?from=2025-01-01&to=2025-12-31&granularity=DAY
+    @GetMapping("/net-worth")
+    public NetWorthSeriesDto netWorth(@RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                      @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                      @RequestParam(name = "granularity", defaultValue = "DAY") TimeBucket granularity) {
+        return netWorthService.series(currentUser.id(), from, to, granularity);
+    }
+
+    @PostMapping("/net-worth/rebuild")
+    public ResponseEntity<Void> rebuildNetWorth() {
+        netWorthService.rebuild(currentUser.id());
+        return ResponseEntity.noContent().build();
+    }
+}
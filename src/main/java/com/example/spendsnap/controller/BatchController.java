@@ -0,0 +1,33 @@
+package com.example.spendsnap.controller;
+
+
+import com.example.spendsnap.config.BatchDispatcher;
+import com.example.spendsnap.dto.BatchItemRequest;
+import com.example.spendsnap.dto.BatchItemResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/batch")
+@RequiredArgsConstructor
+public class BatchController {
+
+    private final BatchDispatcher batchDispatcher;
+
+    // e.g. [{"method":"POST","path":"/savingAccount/3/deposit","body":{...}},{"method":"GET","path":"/savingAccount/3/balance"}]
+    // Responses come back in the same order, each with its own status; the batch itself is 200 unless it is malformed
+    @PostMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public List<BatchItemResponse> batch(@RequestBody List<BatchItemRequest> requests,
+                                         HttpServletRequest request,
+                                         HttpServletResponse response) {
+        return batchDispatcher.dispatch(requests, request, response);
+    }
+}
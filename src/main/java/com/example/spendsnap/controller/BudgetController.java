@@ -0,0 +1,47 @@
+package com.example.spendsnap.controller;
+
+
+import com.example.spendsnap.config.CurrentUserResolver;
+import com.example.spendsnap.dto.BudgetAlertDto;
+import com.example.spendsnap.dto.BudgetDto;
+import com.example.spendsnap.service.BudgetService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.crossstore.ChangeSetPersister;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.YearMonth;
+import java.util.List;
+
+@RestController
+@RequestMapping("/budgets")
+@RequiredArgsConstructor
+public class BudgetController {
+
+    private final BudgetService budgetService;
+    private final CurrentUserResolver currentUser;
+
+    // Creates the category's budget or replaces its limit/thresholds
+    @PutMapping
+    public ResponseEntity<BudgetDto> set(@RequestBody BudgetDto budget) {
+        return new ResponseEntity<>(budgetService.set(currentUser.id(), budget), HttpStatus.OK);
+    }
+
+    // e.g. /budgets?month=2025-06 (defaults to the current month)
+    @GetMapping
+    public ResponseEntity<List<BudgetDto>> list(@RequestParam(name = "month", required = false) YearMonth month) {
+        return new ResponseEntity<>(budgetService.list(currentUser.id(), month != null ? month : YearMonth.now()), HttpStatus.OK);
+    }
+
+    @GetMapping("/alerts")
+    public ResponseEntity<List<BudgetAlertDto>> alerts(@RequestParam(name = "limit", defaultValue = "50") int limit) {
+        return new ResponseEntity<>(budgetService.alerts(currentUser.id(), limit), HttpStatus.OK);
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> delete(@PathVariable Integer id) throws ChangeSetPersister.NotFoundException {
+        budgetService.delete(currentUser.id(), id);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.spendsnap.controller;
+
+
+import com.example.spendsnap.config.CurrentUserResolver;
+import com.example.spendsnap.service.EventStreamService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/events")
+@RequiredArgsConstructor
+public class EventStreamController {
+
+    private final EventStreamService eventStreamService;
+    private final CurrentUserResolver currentUser;
+
+    // Events: balance, expense, income, budget-alert, and overflow (events were dropped: resync with /sync).
+    // balance/expense/income carry the user's changeSeq; a jump past the last one seen means changes
+    // without an event (or a missed one), so the client fetches /sync?since= its last token
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> stream() {
+        SseEmitter emitter = eventStreamService.subscribe(currentUser.id());
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "30").build();
+        }
+        // Stops nginx-style proxies from buffering the stream
+        return ResponseEntity.ok().header("X-Accel-Buffering", "no").body(emitter);
+    }
+}
@@ -1,16 +1,35 @@
 package com.example.spendsnap.controller;
 
 
+import com.example.spendsnap.config.CborConfig;
+import com.example.spendsnap.config.CurrentUserResolver;
+import com.example.spendsnap.config.ETags;
 import com.example.spendsnap.dao.ExpensesDao;
+import com.example.spendsnap.dto.ByIdResultDto;
 import com.example.spendsnap.dto.ExpenseDto;
+import com.example.spendsnap.dto.KeysetPageDto;
+import com.example.spendsnap.dto.LedgerSearchRequest;
 import com.example.spendsnap.model.Expenses;
+import com.example.spendsnap.model.LedgerType;
 import com.example.spendsnap.model.UserModel;
+import com.example.spendsnap.service.AnomalyService;
 import com.example.spendsnap.service.ExpensesService;
+import com.example.spendsnap.service.LedgerExportService;
+import com.example.spendsnap.service.SyncService;
+import com.example.spendsnap.service.TagService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.crossstore.ChangeSetPersister;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
 
+import java.io.IOException;
+import java.time.LocalDate;
 import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -23,6 +42,11 @@ import static com.example.spendsnap.service.ExpensesService.toDto;
 public class ExpensesController {
 
     private final ExpensesService expensesService;
+    private final AnomalyService anomalyService;
+    private final CurrentUserResolver currentUser;
+    private final TagService tagService;
+    private final SyncService syncService;
+    private final LedgerExportService exportService;
 
 
 
@@ -46,8 +70,13 @@ public class ExpensesController {
     }
 
 
+    // ?fields=date,amount,category returns just those fields
     @GetMapping("/getExpenseByUser/{id}")
-    public ResponseEntity<List<ExpenseDto>> getExpensesByUser(@PathVariable Integer id) {
+    public ResponseEntity<List<?>> getExpensesByUser(@PathVariable Integer id,
+                                                     @RequestParam(name = "fields", required = false) String fields,
+                                                     NativeWebRequest request) {
+        if (ETags.checkNotModified(request, syncService.collectionETag(id))) return null;
+        if (fields != null) return new ResponseEntity<>(expensesService.getExpenseFieldsByUser(id, fields), HttpStatus.OK);
         List<Expenses> getDetails = expensesService.getExpensesByUser(id);
         List<ExpenseDto> expenseDtops = getDetails.stream()
                 .map(ExpensesService::toDto)
@@ -56,6 +85,17 @@ public class ExpensesController {
     }
 
 
+    // Whole ledger of the current user as one array, streamed; Accept: application/cbor for the binary encoding
+    @GetMapping("/export")
+    public void exportExpenses(@RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept,
+                       HttpServletResponse response) throws IOException {
+        MediaType format = CborConfig.prefersCbor(accept) ? MediaType.APPLICATION_CBOR : MediaType.APPLICATION_JSON;
+        response.setContentType(format.toString());
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        exportService.exportExpenses(currentUser.id(), format, response.getOutputStream());
+    }
+
+
     @GetMapping("/getTotalExpensesByUser/{userId}")
     public ResponseEntity<Double> getTotalExpensesByUser(@PathVariable Integer userId) {
         Double  totalExpenses = expensesService.getTotalExpensesByUser(userId);
@@ -74,7 +114,9 @@ public class ExpensesController {
     @GetMapping("/getMonthlyExpensesByUser/{userId}/{month}/{year}")
     public ResponseEntity<List<ExpenseDto>> getMonthlyExpensesByUser(@PathVariable Integer userId,
                                                                         @PathVariable Integer month,
-                                                                        @PathVariable Integer year ) {
+                                                                        @PathVariable Integer year,
+                                                                        NativeWebRequest request) {
+        if (ETags.checkNotModified(request, syncService.collectionETag(userId))) return null;
         List<Expenses> expenses  =  expensesService.getMonthlyExpensesByUser(userId, month, year);
         List<ExpenseDto> dtos = expenses.stream()
                 .map(ExpensesService::toDto)
@@ -82,10 +124,56 @@ public class ExpensesController {
         return new  ResponseEntity<>(dtos, HttpStatus.OK);
     }
 
+    // e.g. /expenses/by-ids?ids=12,7,40 ; one result per id in that order, found=false for ids that aren't the user's
+    @GetMapping("/by-ids")
+    public List<ByIdResultDto<ExpenseDto>> getExpensesByIds(@RequestParam("ids") List<Integer> ids) {
+        return expensesService.getExpensesByIds(currentUser.id(), ids);
+    }
+
     @GetMapping("/getExpensesById/{id}")
     public ResponseEntity<ExpenseDto> getExpensesById(@PathVariable Integer id) {
         Expenses getDetails = expensesService.getExpensesById(id);
         ExpenseDto expenseDto = toDto((Expenses) getDetails);
         return new  ResponseEntity<>(expenseDto, HttpStatus.OK);
     }
+
+    @GetMapping("/anomalies")
+    public ResponseEntity<List<ExpenseDto>> getRecentAnomalies(@RequestParam(name = "limit", defaultValue = "20") int limit) {
+        List<ExpenseDto> anomalies = anomalyService.recentAnomalies(currentUser.id(), limit);
+        return new ResponseEntity<>(anomalies, HttpStatus.OK);
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<KeysetPageDto<ExpenseDto>> search(@ModelAttribute LedgerSearchRequest request) {
+        KeysetPageDto<ExpenseDto> page = expensesService.search(currentUser.id(), request);
+        return new ResponseEntity<>(page, HttpStatus.OK);
+    }
+
+    @GetMapping("/search/text")
+    public ResponseEntity<List<ExpenseDto>> searchDescriptions(@RequestParam("q") String query,
+                                                          @RequestParam(name = "limit", defaultValue = "20") int limit) {
+        List<ExpenseDto> matches = expensesService.searchDescriptions(currentUser.id(), query, limit);
+        return new ResponseEntity<>(matches, HttpStatus.OK);
+    }
+
+    // e.g. ?q=reimbursable AND trip NOT personal&from=2024-01-01&to=2024-12-31
+    @GetMapping("/tagged")
+    public ResponseEntity<List<ExpenseDto>> findTagged(@RequestParam("q") String query,
+                                                       @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                       @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                       @RequestParam(name = "limit", defaultValue = "50") int limit) {
+        List<ExpenseDto> matches = expensesService.findTagged(currentUser.id(), query, from, to, limit);
+        return new ResponseEntity<>(matches, HttpStatus.OK);
+    }
+
+    @GetMapping("/{id}/tags")
+    public ResponseEntity<List<String>> getTags(@PathVariable Integer id) throws ChangeSetPersister.NotFoundException {
+        return new ResponseEntity<>(tagService.tagsOf(currentUser.id(), LedgerType.EXPENSES, id), HttpStatus.OK);
+    }
+
+    @PutMapping("/{id}/tags")
+    public ResponseEntity<List<String>> setTags(@PathVariable Integer id, @RequestBody List<String> tags)
+            throws ChangeSetPersister.NotFoundException {
+        return new ResponseEntity<>(tagService.setTags(currentUser.id(), LedgerType.EXPENSES, id, tags), HttpStatus.OK);
+    }
 }
@@ -1,14 +1,32 @@
 package com.example.spendsnap.controller;
 
 
+import com.example.spendsnap.config.CborConfig;
+import com.example.spendsnap.config.CurrentUserResolver;
+import com.example.spendsnap.config.ETags;
+import com.example.spendsnap.dto.ByIdResultDto;
 import com.example.spendsnap.dto.IncomeDto;
+import com.example.spendsnap.dto.KeysetPageDto;
+import com.example.spendsnap.dto.LedgerSearchRequest;
 import com.example.spendsnap.model.IncomeModel;
+import com.example.spendsnap.model.LedgerType;
 import com.example.spendsnap.service.IncomeService;
+import com.example.spendsnap.service.LedgerExportService;
+import com.example.spendsnap.service.SyncService;
+import com.example.spendsnap.service.TagService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.crossstore.ChangeSetPersister;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
 
+import java.io.IOException;
+import java.time.LocalDate;
 import java.util.List;
 
 import static com.example.spendsnap.service.IncomeService.toDo;
@@ -19,6 +37,10 @@ import static com.example.spendsnap.service.IncomeService.toDo;
 public class IncomeController {
 
     private final IncomeService incomeService;
+    private final CurrentUserResolver currentUser;
+    private final TagService tagService;
+    private final SyncService syncService;
+    private final LedgerExportService exportService;
 
 
     @PostMapping("/addIncome")
@@ -34,16 +56,38 @@ public class IncomeController {
         return new ResponseEntity<>(incomeDto, HttpStatus.OK);
     }
 
+    // ?fields=date,amount returns just those fields
     @GetMapping("/getIncomeByUserId/{userId}")
-    public ResponseEntity<List<IncomeModel>> getIncomeByUserId(@PathVariable Integer userId) {
+    public ResponseEntity<List<?>> getIncomeByUserId(@PathVariable Integer userId,
+                                                     @RequestParam(name = "fields", required = false) String fields,
+                                                     NativeWebRequest request) {
+        if (ETags.checkNotModified(request, syncService.collectionETag(userId))) return null;
+        if (fields != null) return new ResponseEntity<>(incomeService.getIncomeFieldsByUser(userId, fields), HttpStatus.OK);
         List<IncomeModel> incomeModels = incomeService.getIncomeByUserId(userId);
         List<IncomeDto> incomeDtos = incomeModels.stream()
                 .map(IncomeService::toDo)
                 .toList();
-        return  new ResponseEntity<>(incomeModels, HttpStatus.OK);
+        return  new ResponseEntity<>(incomeDtos, HttpStatus.OK);
     }
 
 
+    // Whole ledger of the current user as one array, streamed; Accept: application/cbor for the binary encoding
+    @GetMapping("/export")
+    public void exportIncome(@RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept,
+                       HttpServletResponse response) throws IOException {
+        MediaType format = CborConfig.prefersCbor(accept) ? MediaType.APPLICATION_CBOR : MediaType.APPLICATION_JSON;
+        response.setContentType(format.toString());
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        exportService.exportIncome(currentUser.id(), format, response.getOutputStream());
+    }
+
+
+    // e.g. /income/by-ids?ids=12,7,40 ; one result per id in that order, found=false for ids that aren't the user's
+    @GetMapping("/by-ids")
+    public List<ByIdResultDto<IncomeDto>> getIncomeByIds(@RequestParam("ids") List<Integer> ids) {
+        return incomeService.getIncomeByIds(currentUser.id(), ids);
+    }
+
     @GetMapping("/getTotalIncomeByUser/{userId}")
     public ResponseEntity<Double> getTotalIncomeByUser(@PathVariable Integer userId) {
         Double model = incomeService.getTotalIncomeByUser(userId);
@@ -59,7 +103,9 @@ public class IncomeController {
     @GetMapping("/getMonthlyIncomeByUser/{userId}/{month}/{year}")
     public ResponseEntity<List<IncomeDto>> getMonthlyIncomeByUser (@PathVariable Integer userId,
                                                                    @PathVariable Integer month,
-                                                                   @PathVariable Integer year) {
+                                                                   @PathVariable Integer year,
+                                                                   NativeWebRequest request) {
+        if (ETags.checkNotModified(request, syncService.collectionETag(userId))) return null;
         List<IncomeModel> infos =  incomeService.getMonthlyIncomeByUser(userId, month, year);
         List<IncomeDto> dtos = infos.stream().map(IncomeService::toDo).toList();
         return new ResponseEntity<>(dtos, HttpStatus.OK);
@@ -70,4 +116,38 @@ public class IncomeController {
         incomeService.deleteIncomeFromDto(id);
         return ResponseEntity.noContent().build();
     }
+
+    @GetMapping("/search")
+    public ResponseEntity<KeysetPageDto<IncomeDto>> search(@ModelAttribute LedgerSearchRequest request) {
+        KeysetPageDto<IncomeDto> page = incomeService.search(currentUser.id(), request);
+        return new ResponseEntity<>(page, HttpStatus.OK);
+    }
+
+    @GetMapping("/search/text")
+    public ResponseEntity<List<IncomeDto>> searchDescriptions(@RequestParam("q") String query,
+                                                          @RequestParam(name = "limit", defaultValue = "20") int limit) {
+        List<IncomeDto> matches = incomeService.searchDescriptions(currentUser.id(), query, limit);
+        return new ResponseEntity<>(matches, HttpStatus.OK);
+    }
+
+    // e.g. ?q=work NOT bonus&from=2024-01-01
+    @GetMapping("/tagged")
+    public ResponseEntity<List<IncomeDto>> findTagged(@RequestParam("q") String query,
+                                                      @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                      @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                      @RequestParam(name = "limit", defaultValue = "50") int limit) {
+        List<IncomeDto> matches = incomeService.findTagged(currentUser.id(), query, from, to, limit);
+        return new ResponseEntity<>(matches, HttpStatus.OK);
+    }
+
+    @GetMapping("/{id}/tags")
+    public ResponseEntity<List<String>> getTags(@PathVariable Integer id) throws ChangeSetPersister.NotFoundException {
+        return new ResponseEntity<>(tagService.tagsOf(currentUser.id(), LedgerType.INCOME, id), HttpStatus.OK);
+    }
+
+    @PutMapping("/{id}/tags")
+    public ResponseEntity<List<String>> setTags(@PathVariable Integer id, @RequestBody List<String> tags)
+            throws ChangeSetPersister.NotFoundException {
+        return new ResponseEntity<>(tagService.setTags(currentUser.id(), LedgerType.INCOME, id, tags), HttpStatus.OK);
+    }
 }
@@ -0,0 +1,38 @@
+package com.example.spendsnap.controller;
+
+
+import com.example.spendsnap.config.CurrentUserResolver;
+import com.example.spendsnap.dto.RecurringRuleDto;
+import com.example.spendsnap.service.RecurringRuleService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.crossstore.ChangeSetPersister;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/recurring")
+@RequiredArgsConstructor
+public class RecurringRuleController {
+
+    private final RecurringRuleService recurringRuleService;
+    private final CurrentUserResolver currentUser;
+
+    @PostMapping
+    public ResponseEntity<RecurringRuleDto> create(@RequestBody RecurringRuleDto rule) {
+        return new ResponseEntity<>(recurringRuleService.create(currentUser.id(), rule), HttpStatus.CREATED);
+    }
+
+    @GetMapping
+    public ResponseEntity<List<RecurringRuleDto>> list() {
+        return new ResponseEntity<>(recurringRuleService.list(currentUser.id()), HttpStatus.OK);
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> delete(@PathVariable Long id) throws ChangeSetPersister.NotFoundException {
+        recurringRuleService.delete(currentUser.id(), id);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -1,9 +1,14 @@
 package com.example.spendsnap.controller;
 
+import com.example.spendsnap.config.CurrentUserResolver;
+import com.example.spendsnap.config.ETags;
+import com.example.spendsnap.dto.ByIdResultDto;
 import com.example.spendsnap.dto.SavingAccountDto;
+import com.example.spendsnap.exceptions.PreconditionFailedException;
 import com.example.spendsnap.model.Status;
 import com.example.spendsnap.service.SavingAccountService;
-import jakarta.servlet.http.HttpServletRequest;
+import com.example.spendsnap.service.SyncService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
@@ -11,15 +16,13 @@ import lombok.RequiredArgsConstructor;
 import org.jetbrains.annotations.Nullable;
 import org.springframework.data.crossstore.ChangeSetPersister;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.access.AccessDeniedException;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
 
-import java.lang.reflect.Method;
 import java.math.BigDecimal;
 import java.time.OffsetDateTime;
 import java.util.List;
@@ -31,7 +34,8 @@ import java.util.List;
 public class SavingAccountController {
 
     private final SavingAccountService service;
-    private final HttpServletRequest request;
+    private final CurrentUserResolver currentUser;
+    private final SyncService syncService;
 
     // --------------------------
     // Create & Read
@@ -47,18 +51,33 @@ public class SavingAccountController {
         return service.createSavingAccount(body);
     }
 
+    // ?fields=id,name,currency,opening_balance returns just those fields
     @GetMapping
-    public List<SavingAccountDto> list(
-            @RequestParam(name = "status", required = false) Status status
+    public List<?> list(
+            @RequestParam(name = "status", required = false) Status status,
+            @RequestParam(name = "fields", required = false) String fields,
+            NativeWebRequest request
     ) {
         Integer userId = currentUserId();
+        if (ETags.checkNotModified(request, syncService.collectionETag(userId))) return null;
+        if (fields != null) return service.listSavingAccountFields(userId, status, fields);
         return service.listSavingAccounts(userId, status);
     }
 
+    // e.g. /savingAccount/by-ids?ids=3,1 ; one result per id in that order, found=false for ids that aren't the user's
+    @GetMapping("/by-ids")
+    public List<ByIdResultDto<SavingAccountDto>> getByIds(@RequestParam("ids") List<Integer> ids) {
+        return service.getSavingAccountsByIds(currentUserId(), ids);
+    }
+
     @GetMapping("/{id}")
-    public SavingAccountDto getOne(@PathVariable Integer id)
+    public Object getOne(@PathVariable Integer id,
+                         @RequestParam(name = "fields", required = false) String fields,
+                         NativeWebRequest request)
             throws ChangeSetPersister.NotFoundException {
         Integer userId = currentUserId();
+        if (ETags.checkNotModified(request, service.accountETag(userId, id))) return null;
+        if (fields != null) return service.getSavingAccountFields(userId, id, fields);
         return service.getSavingAccount(userId, id);
     }
 
@@ -68,10 +87,19 @@ public class SavingAccountController {
 
     @PatchMapping("/{id}")
     public SavingAccountDto update(@PathVariable Integer id,
-                                   @Valid @RequestBody SavingAccountDto patch)
+                                   @Valid @RequestBody SavingAccountDto patch,
+                                   @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                   NativeWebRequest request,
+                                   HttpServletResponse response)
             throws ChangeSetPersister.NotFoundException {
         Integer userId = currentUserId();
-        return service.updateSavingAccount(userId, id, patch);
+        // 412 right away on a stale If-Match; the service checks again inside its transaction
+        if (ifMatch != null && !ETags.matches(ifMatch, service.accountETag(userId, id))) {
+            throw new PreconditionFailedException("Saving account was modified (If-Match).");
+        }
+        SavingAccountDto updated = service.updateSavingAccount(userId, id, patch, ifMatch);
+        response.setHeader(HttpHeaders.ETAG, ETags.encoded(request, ETags.account(updated.getId(), updated.getVersion())));
+        return updated;
     }
 
     @PostMapping("/{id}/archive")
@@ -166,9 +194,10 @@ public class SavingAccountController {
     // --------------------------
 
     @GetMapping("/{id}/balance")
-    public BalanceResponse balance(@PathVariable Integer id)
+    public BalanceResponse balance(@PathVariable Integer id, NativeWebRequest request)
             throws ChangeSetPersister.NotFoundException {
         Integer userId = currentUserId();
+        if (ETags.checkNotModified(request, service.accountETag(userId, id))) return null;
         BigDecimal bal = service.getBalance(userId, id);
         BalanceResponse res = new BalanceResponse();
         res.setBalance(bal);
@@ -176,9 +205,10 @@ public class SavingAccountController {
     }
 
     @GetMapping("/{id}/snapshot")
-    public SavingAccountDto snapshot(@PathVariable Integer id)
+    public SavingAccountDto snapshot(@PathVariable Integer id, NativeWebRequest request)
             throws ChangeSetPersister.NotFoundException {
         Integer userId = currentUserId();
+        if (ETags.checkNotModified(request, service.accountETag(userId, id))) return null;
         return service.getSnapshot(userId, id);
     }
 
@@ -186,30 +216,8 @@ public class SavingAccountController {
     // Helpers
     // --------------------------
 
-    /**
-     * Resolve the authenticated user's id.
-     * Replace this with your own principal type (e.g., CustomUserDetails#getId()).
-     * As a temporary fallback (when no security yet), it reads "X-User-Id" header.
-     */
     private Integer currentUserId() {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        if (auth != null) {
-            Object p = auth.getPrincipal();
-            // If your principal has a getId() method, use reflection safely:
-            try {
-                Method m = p.getClass().getMethod("getId");
-                Object id = m.invoke(p);
-                if (id instanceof Number n) return n.intValue();
-            } catch (Exception ignored) {}
-            // If your principal *is* just a Number
-            if (p instanceof Number n) return n.intValue();
-        }
-        // Fallback for local/dev usage only:
-        String header = request.getHeader("X-User-Id");
-        if (header != null && !header.isBlank()) {
-            try { return Integer.parseInt(header); } catch (NumberFormatException ignored) {}
-        }
-        throw new AccessDeniedException("Cannot resolve authenticated user id.");
+        return currentUser.id();
     }
 
     // --------------------------
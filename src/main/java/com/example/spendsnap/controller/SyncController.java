@@ -0,0 +1,26 @@
+package com.example.spendsnap.controller;
+
+
+import com.example.spendsnap.config.CurrentUserResolver;
+import com.example.spendsnap.dto.SyncDto;
+import com.example.spendsnap.service.SyncService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/sync")
+@RequiredArgsConstructor
+public class SyncController {
+
+    private final SyncService syncService;
+    private final CurrentUserResolver currentUser;
+
+    // e.g. /sync?since=1234 ; omit since for a full sync, keep calling with the returned token while hasMore
+    @GetMapping
+    public ResponseEntity<SyncDto> changes(@RequestParam(name = "since", required = false) String since,
+                                           @RequestParam(name = "limit", defaultValue = "500") int limit) {
+        return new ResponseEntity<>(syncService.changes(currentUser.id(), since, limit), HttpStatus.OK);
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.spendsnap.controller;
+
+
+import com.example.spendsnap.config.CurrentUserResolver;
+import com.example.spendsnap.dto.TagDto;
+import com.example.spendsnap.service.TagService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+// Tags are set per row via PUT /expenses/{id}/tags and /income/{id}/tags
+@RestController
+@RequestMapping("/tags")
+@RequiredArgsConstructor
+public class TagController {
+
+    private final TagService tagService;
+    private final CurrentUserResolver currentUser;
+
+    @GetMapping
+    public ResponseEntity<List<TagDto>> listTags() {
+        return new ResponseEntity<>(tagService.listTags(currentUser.id()), HttpStatus.OK);
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.spendsnap.dao;
+
+import com.example.spendsnap.model.BudgetAlert;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+@Repository
+public interface BudgetAlertDao extends JpaRepository<BudgetAlert, Long> {
+
+    // Returns 0 when this threshold already fired for the budget in that month
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "budget_alerts"))
+    @Query(value = "INSERT IGNORE INTO budget_alerts (budget_id, month_start, threshold_percent, spent_cents, limit_cents, created_at) " +
+            "VALUES (:budgetId, :monthStart, :threshold, :spentCents, :limitCents, :createdAt)", nativeQuery = true)
+    int insertIfAbsent(@Param("budgetId") Integer budgetId,
+                       @Param("monthStart") LocalDate monthStart,
+                       @Param("threshold") int thresholdPercent,
+                       @Param("spentCents") long spentCents,
+                       @Param("limitCents") long limitCents,
+                       @Param("createdAt") OffsetDateTime createdAt);
+
+    @Query("SELECT a FROM BudgetAlert a JOIN FETCH a.budget b WHERE b.userId = :userId ORDER BY a.id DESC")
+    List<BudgetAlert> findLatestByUser(@Param("userId") Integer userId, Pageable page);
+}
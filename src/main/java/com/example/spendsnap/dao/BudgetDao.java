@@ -0,0 +1,36 @@
+package com.example.spendsnap.dao;
+
+import com.example.spendsnap.model.Budget;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BudgetDao extends JpaRepository<Budget, Integer> {
+
+    // One budget per (user, category): setting it again replaces limit and thresholds
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "budgets"))
+    @Query(value = "INSERT INTO budgets (user_id, category_id, limit_cents, thresholds) " +
+            "VALUES (:userId, :categoryId, :limitCents, :thresholds) " +
+            "ON DUPLICATE KEY UPDATE limit_cents = :limitCents, thresholds = :thresholds", nativeQuery = true)
+    int upsert(@Param("userId") Integer userId,
+               @Param("categoryId") Integer categoryId,
+               @Param("limitCents") long limitCents,
+               @Param("thresholds") String thresholds);
+
+    // Unique key lookup, done on every expense write of a budgeted category
+    Optional<Budget> findByUserIdAndCategoryId(Integer userId, Integer categoryId);
+
+    List<Budget> findByUserIdOrderById(Integer userId);
+
+    Optional<Budget> findByIdAndUserId(Integer id, Integer userId);
+}
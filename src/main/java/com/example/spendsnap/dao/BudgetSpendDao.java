@@ -0,0 +1,39 @@
+package com.example.spendsnap.dao;
+
+import com.example.spendsnap.model.BudgetSpend;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface BudgetSpendDao extends JpaRepository<BudgetSpend, BudgetSpend.Key> {
+
+    // Single-statement upsert; the row stays locked until the caller commits.
+    // Scoped to budget_spend so an expense write doesn't flush the whole second-level and query cache
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "budget_spend"))
+    @Query(value = "INSERT INTO budget_spend (user_id, month_start, category_id, spent_cents) " +
+            "VALUES (:userId, :monthStart, :categoryId, :delta) " +
+            "ON DUPLICATE KEY UPDATE spent_cents = spent_cents + :delta", nativeQuery = true)
+    int addDelta(@Param("userId") Integer userId,
+                 @Param("monthStart") LocalDate monthStart,
+                 @Param("categoryId") Integer categoryId,
+                 @Param("delta") long deltaCents);
+
+    // Native so it reads the row just upserted rather than a managed copy from earlier in the session
+    @Query(value = "SELECT spent_cents FROM budget_spend " +
+            "WHERE user_id = :userId AND month_start = :monthStart AND category_id = :categoryId", nativeQuery = true)
+    long spentCents(@Param("userId") Integer userId,
+                    @Param("monthStart") LocalDate monthStart,
+                    @Param("categoryId") Integer categoryId);
+
+    List<BudgetSpend> findByUserIdAndMonthStart(Integer userId, LocalDate monthStart);
+}
@@ -0,0 +1,29 @@
+package com.example.spendsnap.dao;
+
+import com.example.spendsnap.model.Category;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface CategoryDao extends JpaRepository<Category, Integer> {
+
+    Optional<Category> findByUser_IdAndName(Integer userId, String name);
+
+    // Waits on the unique key if another transaction is inserting the same name, then skips it once committed
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "categories"))
+    @Query(value = "INSERT IGNORE INTO categories (user_id, name) VALUES (:userId, :name)", nativeQuery = true)
+    int insertIfAbsent(@Param("userId") Integer userId, @Param("name") String name);
+
+    List<Category> findByUser_IdAndNameIn(Integer userId, Collection<String> names);
+}
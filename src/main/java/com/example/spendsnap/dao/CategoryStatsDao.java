@@ -0,0 +1,35 @@
+package com.example.spendsnap.dao;
+
+import com.example.spendsnap.model.CategoryStats;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface CategoryStatsDao extends JpaRepository<CategoryStats, CategoryStats.Key> {
+
+    // Only category_stats is written; without the declared space Hibernate would drop all cached entities and queries
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "category_stats"))
+    @Query(value = "INSERT IGNORE INTO category_stats (user_id, category_id, value_count, mean, m2, ewma, ewm_var) " +
+            "VALUES (:userId, :categoryId, 0, 0, 0, 0, 0)", nativeQuery = true)
+    int insertIfAbsent(@Param("userId") Integer userId, @Param("categoryId") Integer categoryId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM CategoryStats s WHERE s.userId = :userId AND s.categoryId = :categoryId")
+    Optional<CategoryStats> lockOne(@Param("userId") Integer userId, @Param("categoryId") Integer categoryId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM CategoryStats s WHERE s.userId = :userId")
+    List<CategoryStats> lockByUser(@Param("userId") Integer userId);
+}
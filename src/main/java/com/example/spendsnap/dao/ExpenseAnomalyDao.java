@@ -0,0 +1,26 @@
+package com.example.spendsnap.dao;
+
+import com.example.spendsnap.model.ExpenseAnomaly;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ExpenseAnomalyDao extends JpaRepository<ExpenseAnomaly, Integer> {
+
+    @Query("SELECT a FROM ExpenseAnomaly a JOIN FETCH a.expense e LEFT JOIN FETCH e.category " +
+            "WHERE a.userId = :userId ORDER BY a.createdAt DESC")
+    List<ExpenseAnomaly> findRecentByUser(@Param("userId") Integer userId, Pageable page);
+
+    Optional<ExpenseAnomaly> findByExpense_Id(Integer expenseId);
+
+    @Modifying
+    @Query("DELETE FROM ExpenseAnomaly a WHERE a.expense.id = :expenseId")
+    int deleteByExpenseId(@Param("expenseId") Integer expenseId);
+}
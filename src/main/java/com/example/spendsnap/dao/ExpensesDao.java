@@ -1,26 +1,91 @@
 package com.example.spendsnap.dao;
 
+import com.example.spendsnap.dto.CategoryBucketRow;
+import com.example.spendsnap.dto.DescriptionRow;
+import com.example.spendsnap.dto.LedgerRow;
 import com.example.spendsnap.model.Expenses;
 import com.example.spendsnap.model.UserModel;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface ExpensesDao extends JpaRepository<Expenses,Integer> {
+public interface ExpensesDao extends JpaRepository<Expenses,Integer>, JpaSpecificationExecutor<Expenses> {
 
+    @EntityGraph(attributePaths = "category")
     List<Expenses> findByUser(UserModel user);
 
     @Query("SELECT SUM(e.amount) FROM Expenses e WHERE e.user.id = :userId")
     Double getTotalExpensesByUser(@Param("userId") Integer userId);
 
-    @Query("SELECT SUM(e.amount) FROM Expenses e WHERE e.user.id = :userId AND MONTH(e.date) = :month AND YEAR(e.date) = :year")
-    Double getMonthlyExpensesSumByUser(@Param("userId") Integer userId, @Param("month") int month, @Param("year") int year);
+    // Half-open date range so idx_expenses_user_date (user_id, date) can be range-scanned
+    @Query("SELECT SUM(e.amount) FROM Expenses e WHERE e.user.id = :userId AND e.date >= :from AND e.date < :to")
+    Double getMonthlyExpensesSumByUser(@Param("userId") Integer userId, @Param("from") LocalDate from, @Param("to") LocalDate to);
 
-    @Query("SELECT e FROM Expenses e WHERE e.user.id = :userId AND MONTH(e.date) = :month AND YEAR(e.date) = :year")
-    List<Expenses> getMonthlyExpensesByUser(@Param("userId") Integer userId, @Param("month") int month, @Param("year") int year);
+    @Query("SELECT e FROM Expenses e LEFT JOIN FETCH e.category WHERE e.user.id = :userId AND e.date >= :from AND e.date < :to")
+    List<Expenses> getMonthlyExpensesByUser(@Param("userId") Integer userId, @Param("from") LocalDate from, @Param("to") LocalDate to);
 
+    // Per-(bucket, category) totals in one pass over idx_expenses_user_date; grouped on the int category_id.
+    // bucket: NONE (whole range, starts at :from), DAY, WEEK (ISO, Monday), MONTH, QUARTER
+    @Query(value = "SELECT CASE :bucket " +
+            "         WHEN 'DAY'     THEN e.date " +
+            "         WHEN 'WEEK'    THEN DATE_SUB(e.date, INTERVAL WEEKDAY(e.date) DAY) " +
+            "         WHEN 'MONTH'   THEN DATE_SUB(e.date, INTERVAL DAYOFMONTH(e.date) - 1 DAY) " +
+            "         WHEN 'QUARTER' THEN MAKEDATE(YEAR(e.date), 1) + INTERVAL (QUARTER(e.date) - 1) QUARTER " +
+            "         ELSE :from END AS bucketStart, " +
+            "       e.category_id AS categoryId, MAX(c.name) AS categoryName, " +
+            "       COALESCE(SUM(e.amount), 0) AS total, COUNT(*) AS count, MIN(e.amount) AS minAmount, MAX(e.amount) AS maxAmount " +
+            "FROM expenses e LEFT JOIN categories c ON c.id = e.category_id " +
+            "WHERE e.user_id = :userId AND e.date >= :from AND e.date < :to " +
+            "GROUP BY bucketStart, e.category_id " +
+            "ORDER BY bucketStart, total DESC",
+            nativeQuery = true)
+    List<CategoryBucketRow> breakdownByCategory(@Param("userId") Integer userId,
+                                                @Param("from") LocalDate from,
+                                                @Param("to") LocalDate to,
+                                                @Param("bucket") String bucket);
+
+    @Query("SELECT e.date AS date, e.amount AS amount, e.category.id AS categoryId FROM Expenses e " +
+            "WHERE e.user.id = :userId AND e.date IS NOT NULL AND e.amount IS NOT NULL ORDER BY e.date")
+    List<LedgerRow> findLedgerRowsByUser(@Param("userId") Integer userId);
+
+    @Query("SELECT e.id AS id, e.description AS description FROM Expenses e " +
+            "WHERE e.user.id = :userId AND e.description IS NOT NULL")
+    List<DescriptionRow> findDescriptionRowsByUser(@Param("userId") Integer userId);
+
+    @EntityGraph(attributePaths = "category")
+    List<Expenses> findByUser_IdAndIdIn(Integer userId, Collection<Integer> ids);
+
+    // Single-expense read that is mapped to a DTO after the session has closed
+    @EntityGraph(attributePaths = "category")
+    Optional<Expenses> findWithCategoryById(Integer id);
+
+    boolean existsByIdAndUser_Id(Integer id, Integer userId);
+
+    // Serializes tag changes and the delete of one expense (see TagService)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM Expenses e WHERE e.id = :id")
+    Optional<Expenses> lockById(@Param("id") Integer id);
+
+    // Answered from idx_expenses_user_date alone (InnoDB secondary indexes carry the id)
+    @Query("SELECT e.id FROM Expenses e WHERE e.user.id = :userId AND e.date >= :from AND e.date < :to")
+    List<Integer> findIdsByUserAndDateRange(@Param("userId") Integer userId, @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT DISTINCT e.user.id FROM Expenses e WHERE e.user IS NOT NULL")
+    List<Integer> findUserIdsWithExpenses();
+
+    // Range over idx_expenses_user_change_seq (/sync)
+    @EntityGraph(attributePaths = "category")
+    List<Expenses> findByUser_IdAndChangeSeqBetweenOrderByChangeSeq(Integer userId, long from, long to, Limit limit);
 }
@@ -0,0 +1,57 @@
+package com.example.spendsnap.dao;
+
+import com.example.spendsnap.model.IdempotencyRecord;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+
+@Repository
+public interface IdempotencyKeyDao extends JpaRepository<IdempotencyRecord, IdempotencyRecord.Key> {
+
+    // Returns 1 for the one request (on any node) that gets to execute under this key
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "idempotency_keys"))
+    @Query(value = "INSERT IGNORE INTO idempotency_keys (user_id, idempotency_key, fingerprint, expires_at) " +
+            "VALUES (:userId, :key, :fingerprint, :leaseUntil)", nativeQuery = true)
+    int insertPending(@Param("userId") Integer userId,
+                      @Param("key") String key,
+                      @Param("fingerprint") byte[] fingerprint,
+                      @Param("leaseUntil") OffsetDateTime leaseUntil);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "idempotency_keys"))
+    @Query(value = "UPDATE idempotency_keys SET status_code = :status, content_type = :contentType, body = :body, " +
+            "expires_at = :expiresAt WHERE user_id = :userId AND idempotency_key = :key AND status_code IS NULL", nativeQuery = true)
+    int complete(@Param("userId") Integer userId,
+                 @Param("key") String key,
+                 @Param("status") int status,
+                 @Param("contentType") String contentType,
+                 @Param("body") byte[] body,
+                 @Param("expiresAt") OffsetDateTime expiresAt);
+
+    // Frees the key after a failed execution so the client's retry runs again
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "idempotency_keys"))
+    @Query(value = "DELETE FROM idempotency_keys WHERE user_id = :userId AND idempotency_key = :key " +
+            "AND status_code IS NULL", nativeQuery = true)
+    int deletePending(@Param("userId") Integer userId, @Param("key") String key);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "idempotency_keys"))
+    @Query(value = "DELETE FROM idempotency_keys WHERE user_id = :userId AND idempotency_key = :key " +
+            "AND expires_at < :now", nativeQuery = true)
+    int deleteIfExpired(@Param("userId") Integer userId, @Param("key") String key, @Param("now") OffsetDateTime now);
+
+    // Bounded so cleanup never holds locks on a large range at once
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "idempotency_keys"))
+    @Query(value = "DELETE FROM idempotency_keys WHERE expires_at < :now LIMIT :limit", nativeQuery = true)
+    int deleteExpired(@Param("now") OffsetDateTime now, @Param("limit") int limit);
+}
@@ -1,26 +1,83 @@
 package com.example.spendsnap.dao;
 
+import com.example.spendsnap.dto.CategoryBucketRow;
+import com.example.spendsnap.dto.DescriptionRow;
+import com.example.spendsnap.dto.LedgerRow;
 import com.example.spendsnap.model.IncomeModel;
 import com.example.spendsnap.model.UserModel;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface IncomeDao  extends JpaRepository<IncomeModel, Integer> {
+public interface IncomeDao  extends JpaRepository<IncomeModel, Integer>, JpaSpecificationExecutor<IncomeModel> {
 
+    @EntityGraph(attributePaths = "category")
     List<IncomeModel> findByUser(UserModel user);
     @Query("SELECT SUM(i.amount) FROM IncomeModel i WHERE i.user.id = :userId")
     Double getTotalIncomeByUser(@Param("userId") Integer userId);
 
-    @Query("SELECT SUM(i.amount) FROM IncomeModel i WHERE i.user.id = :userId AND MONTH(i.date) = :month AND YEAR(i.date) = :year")
-    Double getMonthlyIncomeSumByUser(@Param("userId") Integer userId, @Param("month") int month, @Param("year") int year);
+    // Half-open date range so idx_income_model_user_date (user_id, date) can be range-scanned
+    @Query("SELECT SUM(i.amount) FROM IncomeModel i WHERE i.user.id = :userId AND i.date >= :from AND i.date < :to")
+    Double getMonthlyIncomeSumByUser(@Param("userId") Integer userId, @Param("from") LocalDate from, @Param("to") LocalDate to);
 
-    @Query("SELECT i FROM IncomeModel i WHERE i.user.id = :userId AND MONTH(i.date) = :month AND YEAR(i.date) = :year")
-    List<IncomeModel> getMonthlyIncomeByUser(@Param("userId") Integer userId, @Param("month") int month, @Param("year") int year);
+    @Query("SELECT i FROM IncomeModel i LEFT JOIN FETCH i.category WHERE i.user.id = :userId AND i.date >= :from AND i.date < :to")
+    List<IncomeModel> getMonthlyIncomeByUser(@Param("userId") Integer userId, @Param("from") LocalDate from, @Param("to") LocalDate to);
 
+    // Per-(bucket, category) totals in one pass over idx_income_model_user_date; grouped on the int category_id.
+    // bucket: NONE (whole range, starts at :from), DAY, WEEK (ISO, Monday), MONTH, QUARTER
+    @Query(value = "SELECT CASE :bucket " +
+            "         WHEN 'DAY'     THEN i.date " +
+            "         WHEN 'WEEK'    THEN DATE_SUB(i.date, INTERVAL WEEKDAY(i.date) DAY) " +
+            "         WHEN 'MONTH'   THEN DATE_SUB(i.date, INTERVAL DAYOFMONTH(i.date) - 1 DAY) " +
+            "         WHEN 'QUARTER' THEN MAKEDATE(YEAR(i.date), 1) + INTERVAL (QUARTER(i.date) - 1) QUARTER " +
+            "         ELSE :from END AS bucketStart, " +
+            "       i.category_id AS categoryId, MAX(c.name) AS categoryName, " +
+            "       COALESCE(SUM(i.amount), 0) AS total, COUNT(*) AS count, MIN(i.amount) AS minAmount, MAX(i.amount) AS maxAmount " +
+            "FROM income_model i LEFT JOIN categories c ON c.id = i.category_id " +
+            "WHERE i.user_id = :userId AND i.date >= :from AND i.date < :to " +
+            "GROUP BY bucketStart, i.category_id " +
+            "ORDER BY bucketStart, total DESC",
+            nativeQuery = true)
+    List<CategoryBucketRow> breakdownByCategory(@Param("userId") Integer userId,
+                                                @Param("from") LocalDate from,
+                                                @Param("to") LocalDate to,
+                                                @Param("bucket") String bucket);
 
-}
\ No newline at end of file
+    @Query("SELECT i.date AS date, i.amount AS amount, i.category.id AS categoryId FROM IncomeModel i " +
+            "WHERE i.user.id = :userId AND i.date IS NOT NULL AND i.amount IS NOT NULL ORDER BY i.date")
+    List<LedgerRow> findLedgerRowsByUser(@Param("userId") Integer userId);
+
+    @Query("SELECT i.id AS id, i.description AS description FROM IncomeModel i " +
+            "WHERE i.user.id = :userId AND i.description IS NOT NULL")
+    List<DescriptionRow> findDescriptionRowsByUser(@Param("userId") Integer userId);
+
+    @EntityGraph(attributePaths = "category")
+    List<IncomeModel> findByUser_IdAndIdIn(Integer userId, Collection<Integer> ids);
+
+    boolean existsByIdAndUser_Id(Integer id, Integer userId);
+
+    // Serializes tag changes and the delete of one income row (see TagService)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM IncomeModel i WHERE i.id = :id")
+    Optional<IncomeModel> lockById(@Param("id") Integer id);
+
+    // Answered from idx_income_model_user_date alone (InnoDB secondary indexes carry the id)
+    @Query("SELECT i.id FROM IncomeModel i WHERE i.user.id = :userId AND i.date >= :from AND i.date < :to")
+    List<Integer> findIdsByUserAndDateRange(@Param("userId") Integer userId, @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // Range over idx_income_model_user_change_seq (/sync)
+    @EntityGraph(attributePaths = "category")
+    List<IncomeModel> findByUser_IdAndChangeSeqBetweenOrderByChangeSeq(Integer userId, long from, long to, Limit limit);
+}
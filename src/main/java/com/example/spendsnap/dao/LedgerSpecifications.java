@@ -0,0 +1,130 @@
+package com.example.spendsnap.dao;
+
+import com.example.spendsnap.dto.LedgerSearchRequest;
+import com.example.spendsnap.model.LedgerEntry;
+import com.example.spendsnap.model.LedgerSortKey;
+import jakarta.persistence.criteria.Path;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.Collection;
+
+/**
+ * Search filters for Expenses / IncomeModel (same field names). Every predicate compares a bare
+ * column with a parameter (no functions on columns), always under user_id = ?, so MySQL can range-scan
+ * idx_*_user_date / idx_*_user_amount / idx_*_user_description and keep the rest as residual filters.
+ * Pagination is keyset on (sort key, id): no OFFSET, each page starts where the last one ended.
+ */
+public final class LedgerSpecifications {
+
+    private LedgerSpecifications() {
+    }
+
+    public static <T extends LedgerEntry> Specification<T> matching(Integer userId,
+                                                                     LedgerSearchRequest request,
+                                                                     Collection<Integer> categoryIds) {
+        Specification<T> spec = ownedBy(userId);
+        if (request.getFrom() != null) spec = spec.and(dateFrom(request.getFrom()));
+        if (request.getTo() != null) spec = spec.and(dateBefore(request.getTo().plusDays(1)));
+        if (request.getMinAmount() != null) spec = spec.and(amountAtLeast(request.getMinAmount()));
+        if (request.getMaxAmount() != null) spec = spec.and(amountAtMost(request.getMaxAmount()));
+        if (categoryIds != null) spec = spec.and(categoryIn(categoryIds));
+        if (hasText(request.getDescriptionPrefix())) spec = spec.and(descriptionLike(escape(request.getDescriptionPrefix()) + "%"));
+        if (hasText(request.getDescriptionContains())) spec = spec.and(descriptionLike("%" + escape(request.getDescriptionContains()) + "%"));
+        // Rows without a sort value can't be placed in the keyset order
+        spec = spec.and(sortValuePresent(request.getSort()));
+        if (hasText(request.getCursor())) spec = spec.and(after(request.getCursor(), request.getSort(), request.getDirection()));
+        return spec;
+    }
+
+    public static Sort sort(LedgerSortKey key, Sort.Direction direction) {
+        return Sort.by(direction, field(key)).and(Sort.by(direction, "id"));
+    }
+
+    // Cursor: base64url("<sort value>|<id>") of the last row returned
+    public static String cursorAfter(LedgerEntry last, LedgerSortKey key) {
+        Object value = key == LedgerSortKey.AMOUNT ? last.getAmount() : last.getDate();
+        String raw = value + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static <T extends LedgerEntry> Specification<T> ownedBy(Integer userId) {
+        return (root, query, cb) -> cb.equal(root.get("user").get("id"), userId);
+    }
+
+    public static <T extends LedgerEntry> Specification<T> dateFrom(LocalDate from) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("date"), from);
+    }
+
+    public static <T extends LedgerEntry> Specification<T> dateBefore(LocalDate before) {
+        return (root, query, cb) -> cb.lessThan(root.get("date"), before);
+    }
+
+    public static <T extends LedgerEntry> Specification<T> amountAtLeast(Double min) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("amount"), min);
+    }
+
+    public static <T extends LedgerEntry> Specification<T> amountAtMost(Double max) {
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("amount"), max);
+    }
+
+    public static <T extends LedgerEntry> Specification<T> categoryIn(Collection<Integer> categoryIds) {
+        return (root, query, cb) -> root.get("category").get("id").in(categoryIds);
+    }
+
+    public static <T extends LedgerEntry> Specification<T> descriptionLike(String pattern) {
+        return (root, query, cb) -> cb.like(root.get("description"), pattern, '\\');
+    }
+
+    private static <T extends LedgerEntry> Specification<T> sortValuePresent(LedgerSortKey key) {
+        return (root, query, cb) -> cb.isNotNull(root.get(field(key)));
+    }
+
+    // (key, id) past the cursor, written as "key <= v AND (key < v OR id < lastId)" (descending)
+    // so the leading comparison is a plain range condition on the index
+    private static <T extends LedgerEntry> Specification<T> after(String cursor, LedgerSortKey key, Sort.Direction direction) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        int bar = raw.lastIndexOf('|');
+        if (bar < 0) throw new IllegalArgumentException("Invalid cursor");
+        Integer lastId;
+        Comparable<?> lastValue;
+        try {
+            lastId = Integer.valueOf(raw.substring(bar + 1));
+            String value = raw.substring(0, bar);
+            lastValue = key == LedgerSortKey.AMOUNT ? Double.valueOf(value) : LocalDate.parse(value);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        boolean desc = direction == Sort.Direction.DESC;
+        return (root, query, cb) -> {
+            @SuppressWarnings("unchecked")
+            Path<Comparable<Object>> k = root.get(field(key));
+            @SuppressWarnings("unchecked")
+            Comparable<Object> v = (Comparable<Object>) lastValue;
+            Path<Integer> id = root.get("id");
+            return desc
+                    ? cb.and(cb.lessThanOrEqualTo(k, v), cb.or(cb.lessThan(k, v), cb.lessThan(id, lastId)))
+                    : cb.and(cb.greaterThanOrEqualTo(k, v), cb.or(cb.greaterThan(k, v), cb.greaterThan(id, lastId)));
+        };
+    }
+
+    private static String field(LedgerSortKey key) {
+        return key == LedgerSortKey.AMOUNT ? "amount" : "date";
+    }
+
+    private static String escape(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private static boolean hasText(String s) {
+        return s != null && !s.isBlank();
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.spendsnap.dao;
+
+import com.example.spendsnap.dto.NetWorthTotals;
+import com.example.spendsnap.model.NetWorthDay;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface NetWorthDao extends JpaRepository<NetWorthDay, NetWorthDay.Key> {
+
+    // Single-statement upsert: no read, concurrent writers just add up under the row lock.
+    // Declared space: left undeclared, Hibernate would evict every cache region on each ledger write
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "net_worth_daily"))
+    @Query(value = "INSERT INTO net_worth_daily (user_id, day, cash_delta_cents, savings_delta_cents) " +
+            "VALUES (:userId, :day, :cash, :savings) " +
+            "ON DUPLICATE KEY UPDATE cash_delta_cents = cash_delta_cents + :cash, " +
+            "savings_delta_cents = savings_delta_cents + :savings", nativeQuery = true)
+    int addDelta(@Param("userId") Integer userId,
+                 @Param("day") LocalDate day,
+                 @Param("cash") long cashCents,
+                 @Param("savings") long savingsCents);
+
+    @Query("SELECT COALESCE(SUM(n.cashDeltaCents), 0) AS cash, COALESCE(SUM(n.savingsDeltaCents), 0) AS savings " +
+            "FROM NetWorthDay n WHERE n.userId = :userId AND n.day < :before")
+    NetWorthTotals sumBefore(@Param("userId") Integer userId, @Param("before") LocalDate before);
+
+    List<NetWorthDay> findByUserIdAndDayBetweenOrderByDay(Integer userId, LocalDate from, LocalDate to);
+
+    @Modifying
+    @Query("DELETE FROM NetWorthDay n WHERE n.userId = :userId")
+    int deleteByUser(@Param("userId") Integer userId);
+
+    // V7__net_worth_daily.sql's derivation for one user; reads the ledger tables but writes only net_worth_daily.
+    // Each amount goes through DECIMAL before ROUND, so it rounds half away from zero like NetWorthService.cents;
+    // ROUND on the float column itself would follow the C library's tie rule instead.
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "net_worth_daily"))
+    @Query(value = "INSERT INTO net_worth_daily (user_id, day, cash_delta_cents, savings_delta_cents) " +
+            "SELECT :userId, t.day, SUM(t.cash), SUM(t.savings) FROM ( " +
+            "  SELECT i.date AS day, ROUND(CAST(i.amount AS DECIMAL(30, 10)) * 100) AS cash, 0 AS savings FROM income_model i " +
+            "   WHERE i.user_id = :userId AND i.date IS NOT NULL AND i.amount IS NOT NULL " +
+            "  UNION ALL " +
+            "  SELECT e.date, -ROUND(CAST(e.amount AS DECIMAL(30, 10)) * 100), 0 FROM expenses e " +
+            "   WHERE e.user_id = :userId AND e.date IS NOT NULL AND e.amount IS NOT NULL " +
+            "  UNION ALL " +
+            "  SELECT COALESCE(CAST(s.created_at AS DATE), CURRENT_DATE), 0, ROUND(s.opening_balance * 100) FROM saving_accounts s " +
+            "   WHERE s.user_id = :userId AND s.opening_balance IS NOT NULL " +
+            ") t GROUP BY t.day", nativeQuery = true)
+    int rebuildUser(@Param("userId") Integer userId);
+}
@@ -0,0 +1,32 @@
+package com.example.spendsnap.dao;
+
+import com.example.spendsnap.model.RecurringRule;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface RecurringRuleDao extends JpaRepository<RecurringRule, Long> {
+
+    List<RecurringRule> findByUserIdOrderById(Integer userId);
+
+    Optional<RecurringRule> findByIdAndUserId(Long id, Integer userId);
+
+    // Next batch of due rules after (lastRun, lastId), range-scanning idx_recurring_rules_next_run.
+    // Locked so a second node running the same pass waits instead of writing the same occurrences.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM RecurringRule r WHERE r.nextRun >= :lastRun AND r.nextRun <= :today " +
+            "AND (r.nextRun > :lastRun OR r.id > :lastId) ORDER BY r.nextRun, r.id")
+    List<RecurringRule> lockDueAfter(@Param("today") LocalDate today,
+                                     @Param("lastRun") LocalDate lastRun,
+                                     @Param("lastId") Long lastId,
+                                     Pageable batch);
+}
@@ -2,11 +2,13 @@ package com.example.spendsnap.dao;
 
 import com.example.spendsnap.model.Saving_Account;
 import com.example.spendsnap.model.Status;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,6 +22,17 @@ public interface SavingAccountDao extends JpaRepository<Saving_Account, Integer>
    Optional<Saving_Account> findByIdAndUserId(@Param("id") Integer id,
                                               @Param("userId") Integer userId);
 
+   // by-ids lookups: one ownership-checked IN query instead of a findByIdAndUserId per id
+   @Query("select s from Saving_Account s where s.user.id = :userId and s.id in :ids")
+   List<Saving_Account> findAllByUserIdAndIdIn(@Param("userId") Integer userId,
+                                               @Param("ids") Collection<Integer> ids);
+
+   // ETag of one account (If-None-Match / If-Match) without loading it.
+   // Always read from the database: a cached version would let If-Match pass against a stale row
+   @Query("select coalesce(s.version, 0) from Saving_Account s where s.id = :id and s.user.id = :userId")
+   Optional<Integer> findVersionByIdAndUserId(@Param("id") Integer id,
+                                             @Param("userId") Integer userId);
+
    // Name uniqueness (used on create)
    // You may keep either this derived method OR the JPQL versions below; both are fine.
    boolean existsByUser_IdAndNameIgnoreCase(Integer userId, String name);
@@ -42,4 +55,7 @@ public interface SavingAccountDao extends JpaRepository<Saving_Account, Integer>
            "order by s.updated_at desc")
    List<Saving_Account> findAllByUserIdAndStatusOrderByUpdatedDesc(@Param("userId") Integer userId,
                                                                    @Param("status") Status status);
+
+   // Range over idx_saving_accounts_user_change_seq (/sync)
+   List<Saving_Account> findByUser_IdAndChangeSeqBetweenOrderByChangeSeq(Integer userId, long from, long to, Limit limit);
 }
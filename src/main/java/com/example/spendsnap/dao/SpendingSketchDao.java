@@ -0,0 +1,41 @@
+package com.example.spendsnap.dao;
+
+import com.example.spendsnap.model.SpendingSketch;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface SpendingSketchDao extends JpaRepository<SpendingSketch, SpendingSketch.Key> {
+
+    // Creates the row if missing without failing when a concurrent writer got there first.
+    // Runs on every expense write, so it names its table; an undeclared native write evicts every cache region
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "spending_sketches"))
+    @Query(value = "INSERT IGNORE INTO spending_sketches (user_id, month_start, category_id, value_count, sketch) " +
+            "VALUES (:userId, :monthStart, :categoryId, 0, :empty)", nativeQuery = true)
+    int insertIfAbsent(@Param("userId") Integer userId,
+                       @Param("monthStart") LocalDate monthStart,
+                       @Param("categoryId") Integer categoryId,
+                       @Param("empty") byte[] empty);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM SpendingSketch s WHERE s.userId = :userId AND s.monthStart = :monthStart AND s.categoryId = :categoryId")
+    Optional<SpendingSketch> lockOne(@Param("userId") Integer userId,
+                                     @Param("monthStart") LocalDate monthStart,
+                                     @Param("categoryId") Integer categoryId);
+
+    // Primary key prefix (user_id, month_start) range
+    List<SpendingSketch> findByUserIdAndMonthStartBetween(Integer userId, LocalDate from, LocalDate to);
+}
@@ -0,0 +1,28 @@
+package com.example.spendsnap.dao;
+
+import com.example.spendsnap.model.SyncSequence;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SyncSequenceDao extends JpaRepository<SyncSequence, Integer> {
+
+    // Reserves count numbers; the row stays locked until the caller commits.
+    // The declared table keeps Hibernate from treating this native write as touching every table,
+    // which would evict all second-level and query cache regions on each ledger write
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "sync_sequences"))
+    @Query(value = "INSERT INTO sync_sequences (user_id, last_seq) VALUES (:userId, :count) " +
+            "ON DUPLICATE KEY UPDATE last_seq = last_seq + :count", nativeQuery = true)
+    int advance(@Param("userId") Integer userId, @Param("count") long count);
+
+    // Native so it reads the row just upserted rather than a managed copy from earlier in the session
+    @Query(value = "SELECT last_seq FROM sync_sequences WHERE user_id = :userId", nativeQuery = true)
+    Long lastSeq(@Param("userId") Integer userId);
+}
@@ -0,0 +1,15 @@
+package com.example.spendsnap.dao;
+
+import com.example.spendsnap.model.SyncTombstone;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface SyncTombstoneDao extends JpaRepository<SyncTombstone, SyncTombstone.Key> {
+
+    // Primary key range
+    List<SyncTombstone> findByUserIdAndChangeSeqBetweenOrderByChangeSeq(Integer userId, long from, long to, Limit limit);
+}
@@ -0,0 +1,51 @@
+package com.example.spendsnap.dao;
+
+import com.example.spendsnap.dto.TagBitmapRow;
+import com.example.spendsnap.model.LedgerType;
+import com.example.spendsnap.model.TagBitmap;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface TagBitmapDao extends JpaRepository<TagBitmap, TagBitmap.Key> {
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "tag_bitmaps"))
+    @Query(value = "INSERT IGNORE INTO tag_bitmaps (tag_id, ledger_type, row_count, bitmap) " +
+            "VALUES (:tagId, :ledgerType, 0, :empty)", nativeQuery = true)
+    int insertIfAbsent(@Param("tagId") Integer tagId,
+                       @Param("ledgerType") String ledgerType,
+                       @Param("empty") byte[] empty);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM TagBitmap b WHERE b.tagId = :tagId AND b.ledgerType = :ledgerType")
+    Optional<TagBitmap> lockOne(@Param("tagId") Integer tagId, @Param("ledgerType") LedgerType ledgerType);
+
+    // Row locks on just these tags' bitmaps of one type, in primary key order
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM TagBitmap b WHERE b.ledgerType = :ledgerType AND b.tagId IN :tagIds ORDER BY b.tagId")
+    List<TagBitmap> lockAll(@Param("tagIds") Collection<Integer> tagIds, @Param("ledgerType") LedgerType ledgerType);
+
+    // Unlocked, and projected so no TagBitmap becomes managed: a later lockAll then loads current state
+    @Query("SELECT b.tagId AS tagId, b.bitmap AS bitmap FROM TagBitmap b WHERE b.ledgerType = :ledgerType " +
+            "AND b.tagId IN (SELECT t.id FROM Tag t WHERE t.userId = :userId)")
+    List<TagBitmapRow> findRowsByUser(@Param("userId") Integer userId, @Param("ledgerType") LedgerType ledgerType);
+
+    @Query("SELECT b FROM TagBitmap b WHERE b.ledgerType = :ledgerType " +
+            "AND b.tagId IN (SELECT t.id FROM Tag t WHERE t.userId = :userId)")
+    List<TagBitmap> findByUser(@Param("userId") Integer userId, @Param("ledgerType") LedgerType ledgerType);
+
+    List<TagBitmap> findByTagIdInAndLedgerType(Collection<Integer> tagIds, LedgerType ledgerType);
+}
@@ -0,0 +1,28 @@
+package com.example.spendsnap.dao;
+
+import com.example.spendsnap.model.Tag;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface TagDao extends JpaRepository<Tag, Integer> {
+
+    // Creates the tag if missing without failing when a concurrent writer got there first
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "tags"))
+    @Query(value = "INSERT IGNORE INTO tags (user_id, name) VALUES (:userId, :name)", nativeQuery = true)
+    int insertIfAbsent(@Param("userId") Integer userId, @Param("name") String name);
+
+    List<Tag> findByUserIdAndNameIn(Integer userId, Collection<String> names);
+
+    List<Tag> findByUserIdOrderByName(Integer userId);
+}
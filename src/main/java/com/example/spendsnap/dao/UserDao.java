@@ -8,7 +8,8 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface UserDao extends JpaRepository<UserModel,Integer> {
 
-
+    // Hit on every authenticated request by JwtAuthenticationFilter, but deliberately not cached: the
+    // cache is per node, and a role change or removed user must apply on all of them immediately
     UserModel findByUsername(String username);
     boolean existsByUsernameIgnoreCase(String username);
 }
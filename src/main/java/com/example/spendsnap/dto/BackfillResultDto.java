@@ -0,0 +1,16 @@
+package com.example.spendsnap.dto;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BackfillResultDto {
+
+    private int users;
+    private int rows;
+    private long millis;
+}
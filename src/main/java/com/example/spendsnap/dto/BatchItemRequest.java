@@ -0,0 +1,28 @@
+package com.example.spendsnap.dto;
+
+
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchItemRequest {
+
+    // Echoed back on the matching response; defaults to the item's position
+    private String id;
+    @NotBlank
+    private String method;
+    // Path and query below the context path, e.g. /savingAccount/3/balance or /analytics/breakdown?from=...
+    @NotBlank
+    private String path;
+    // e.g. If-None-Match or Idempotency-Key; the caller's credentials apply to every item
+    private Map<String, String> headers;
+    // JSON request body, if any
+    private JsonNode body;
+}
@@ -0,0 +1,21 @@
+package com.example.spendsnap.dto;
+
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchItemResponse {
+
+    private String id;
+    private int status;
+    private Map<String, String> headers;
+    // The endpoint's JSON response as is; a plain-text response becomes a string, an empty one null
+    private JsonNode body;
+}
@@ -0,0 +1,23 @@
+package com.example.spendsnap.dto;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BudgetAlertDto {
+
+    private Integer budgetId;
+    private String category;
+    private LocalDate month;
+    private int threshold;
+    private Double spent;
+    private Double limit;
+    private OffsetDateTime createdAt;
+}
@@ -0,0 +1,29 @@
+package com.example.spendsnap.dto;
+
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BudgetDto {
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Integer id;
+    private String category;
+    private Double limit;
+    // Percents of the limit that raise an alert when crossed, e.g. [80, 100]
+    private List<Integer> thresholds;
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Double spent;
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Double remaining;
+    // spent / limit, 1.0 = fully used
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Double utilization;
+}
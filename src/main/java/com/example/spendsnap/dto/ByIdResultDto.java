@@ -0,0 +1,28 @@
+package com.example.spendsnap.dto;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ByIdResultDto<T> {
+
+    // Ids per by-ids request
+    public static final int MAX_IDS = 100;
+
+    private Integer id;
+    // false when the row doesn't exist or belongs to another user (not told apart); item is then null
+    private boolean found;
+    private T item;
+
+    public static <T> ByIdResultDto<T> found(Integer id, T item) {
+        return new ByIdResultDto<>(id, true, item);
+    }
+
+    public static <T> ByIdResultDto<T> notFound(Integer id) {
+        return new ByIdResultDto<>(id, false, null);
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.spendsnap.dto;
+
+
+import com.example.spendsnap.model.LedgerType;
+import com.example.spendsnap.model.TimeBucket;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategoryBreakdownDto {
+
+    private LedgerType type;
+    private LocalDate from;
+    private LocalDate to;
+    private TimeBucket bucket;
+    private Double total;
+    private List<Bucket> buckets = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Bucket {
+        private LocalDate start;
+        private Double total;
+        private List<CategoryTotal> categories = new ArrayList<>();
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CategoryTotal {
+        private Integer categoryId;
+        private String category;
+        private Double total;
+        private Long count;
+        private Double min;
+        private Double max;
+        // Fraction of the bucket total, 0..1
+        private Double share;
+    }
+}
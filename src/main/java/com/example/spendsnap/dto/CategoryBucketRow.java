@@ -0,0 +1,21 @@
+package com.example.spendsnap.dto;
+
+import java.time.LocalDate;
+
+// One GROUP BY (bucket, category) row of the breakdown queries
+public interface CategoryBucketRow {
+
+    LocalDate getBucketStart();
+
+    Integer getCategoryId();
+
+    String getCategoryName();
+
+    Double getTotal();
+
+    Long getCount();
+
+    Double getMinAmount();
+
+    Double getMaxAmount();
+}
@@ -0,0 +1,21 @@
+package com.example.spendsnap.dto;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategoryPercentilesDto {
+
+    private Integer categoryId;
+    private String category;
+    private Long count;
+    // e.g. {"p50": 12.4, "p90": 80.1}; values are within 1% of the exact percentile
+    private Map<String, Double> percentiles = new LinkedHashMap<>();
+}
@@ -0,0 +1,9 @@
+package com.example.spendsnap.dto;
+
+// Minimal row used to build the in-memory description index
+public interface DescriptionRow {
+
+    Integer getId();
+
+    String getDescription();
+}
@@ -1,6 +1,7 @@
 package com.example.spendsnap.dto;
 
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
@@ -27,4 +28,7 @@ public class ExpenseDto {
     private String category;
     @NotNull(message = "User id ie required")
     private Integer userId;
+    // How unusual the amount is for this category (z-score of log amount); null until there is enough history
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Double anomalyScore;
 }
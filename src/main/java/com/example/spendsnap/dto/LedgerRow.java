@@ -0,0 +1,13 @@
+package com.example.spendsnap.dto;
+
+import java.time.LocalDate;
+
+// Minimal row used to build the in-memory analytics columns
+public interface LedgerRow {
+
+    LocalDate getDate();
+
+    Double getAmount();
+
+    Integer getCategoryId();
+}
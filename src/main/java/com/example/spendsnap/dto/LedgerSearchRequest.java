@@ -0,0 +1,37 @@
+package com.example.spendsnap.dto;
+
+
+import com.example.spendsnap.model.LedgerSortKey;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Query parameters of /expenses/search and /income/search; every filter is optional
+@Data
+@NoArgsConstructor
+public class LedgerSearchRequest {
+
+    public static final int MAX_LIMIT = 200;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate from;
+    // Inclusive
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate to;
+    private Double minAmount;
+    private Double maxAmount;
+    // Category names, any of
+    private List<String> category;
+    // Prefix match can use the (user_id, description) index; contains is a residual filter
+    private String descriptionPrefix;
+    private String descriptionContains;
+    private LedgerSortKey sort = LedgerSortKey.DATE;
+    private Sort.Direction direction = Sort.Direction.DESC;
+    private int limit = 50;
+    // nextCursor of the previous page
+    private String cursor;
+}
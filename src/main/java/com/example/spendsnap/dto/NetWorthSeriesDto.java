@@ -0,0 +1,25 @@
+package com.example.spendsnap.dto;
+
+
+import com.example.spendsnap.model.TimeBucket;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+// Column-oriented so a few hundred points stay small: element i of each array belongs to dates[i]
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NetWorthSeriesDto {
+
+    private LocalDate from;
+    private LocalDate to;
+    private TimeBucket granularity;
+    // Last day of each bucket (clipped to 'to'); values are as of the end of that day
+    private LocalDate[] dates;
+    private double[] net;
+    private double[] cash;
+    private double[] savings;
+}
@@ -0,0 +1,9 @@
+package com.example.spendsnap.dto;
+
+// Summed net_worth_daily deltas (cents)
+public interface NetWorthTotals {
+
+    Long getCash();
+
+    Long getSavings();
+}
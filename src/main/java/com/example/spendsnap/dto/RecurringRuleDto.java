@@ -0,0 +1,30 @@
+package com.example.spendsnap.dto;
+
+
+import com.example.spendsnap.model.LedgerType;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecurringRuleDto {
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long id;
+    private LedgerType type;
+    private Double amount;
+    private String description;
+    private String category;
+    // RRULE subset, e.g. "FREQ=MONTHLY;INTERVAL=1;COUNT=12"
+    private String rule;
+    private LocalDate startDate;
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private LocalDate endDate;
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private LocalDate nextRun;
+}
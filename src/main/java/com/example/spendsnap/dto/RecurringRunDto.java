@@ -0,0 +1,16 @@
+package com.example.spendsnap.dto;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecurringRunDto {
+
+    private int rules;
+    private int inserted;
+    private long millis;
+}
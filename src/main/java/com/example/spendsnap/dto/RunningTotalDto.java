@@ -0,0 +1,21 @@
+package com.example.spendsnap.dto;
+
+
+import com.example.spendsnap.model.LedgerType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RunningTotalDto {
+
+    private LedgerType type;
+    private LocalDate from;
+    private LocalDate to;
+    // values[i] is the cumulative total at the end of from + i days
+    private double[] values;
+}
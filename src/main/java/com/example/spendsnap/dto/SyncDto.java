@@ -0,0 +1,27 @@
+package com.example.spendsnap.dto;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncDto {
+
+    // Pass back as ?since= on the next sync
+    private String token;
+    // More changes are waiting; sync again right away with the new token
+    private boolean hasMore;
+    // The token was not recognized (e.g. the server was restored from a backup): drop the local copy,
+    // this response starts a full sync
+    private boolean reset;
+    // Rows created or updated since the token, in their current state
+    private List<ExpenseDto> expenses;
+    private List<IncomeDto> income;
+    private List<SavingAccountDto> savingAccounts;
+    private List<TombstoneDto> deleted;
+}
@@ -0,0 +1,9 @@
+package com.example.spendsnap.dto;
+
+// Tag id and serialized bitmap, read without loading the entity
+public interface TagBitmapRow {
+
+    Integer getTagId();
+
+    byte[] getBitmap();
+}
@@ -0,0 +1,16 @@
+package com.example.spendsnap.dto;
+
+
+import com.example.spendsnap.model.SyncEntity;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TombstoneDto {
+
+    private SyncEntity type;
+    private Integer id;
+}
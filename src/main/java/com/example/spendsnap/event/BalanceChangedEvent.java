@@ -0,0 +1,16 @@
+package com.example.spendsnap.event;
+
+
+import java.math.BigDecimal;
+
+/**
+ * Published by SavingAccountService inside the transaction that changed an account's balance
+ * (deposit, withdraw, transfer, interest). changeSeq is the account's sync change number after the change.
+ * Use @TransactionalEventListener to react only once it commits.
+ */
+public record BalanceChangedEvent(Integer userId,
+                                  Integer accountId,
+                                  BigDecimal balance,
+                                  String currency,
+                                  long changeSeq) {
+}
@@ -0,0 +1,17 @@
+package com.example.spendsnap.event;
+
+
+import java.time.LocalDate;
+
+/**
+ * Published by BudgetService inside the transaction that pushed a category's monthly spend over one of
+ * its budget thresholds. Use @TransactionalEventListener to react only once that transaction commits.
+ */
+public record BudgetThresholdCrossedEvent(Integer userId,
+                                          Integer budgetId,
+                                          Integer categoryId,
+                                          LocalDate month,
+                                          int thresholdPercent,
+                                          long spentCents,
+                                          long limitCents) {
+}
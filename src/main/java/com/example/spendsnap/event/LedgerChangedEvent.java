@@ -0,0 +1,18 @@
+package com.example.spendsnap.event;
+
+
+import com.example.spendsnap.model.LedgerType;
+
+/**
+ * Published by ExpensesService and IncomeService inside the transaction that created, updated or deleted
+ * a row. changeSeq is the row's sync change number, so a client can fetch it with /sync. Use
+ * @TransactionalEventListener to react only once the transaction commits.
+ */
+public record LedgerChangedEvent(Integer userId,
+                                 LedgerType type,
+                                 Integer id,
+                                 Action action,
+                                 long changeSeq) {
+
+    public enum Action { CREATED, UPDATED, DELETED }
+}
@@ -0,0 +1,30 @@
+package com.example.spendsnap.model;
+
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Monthly spending limit for one of a user's categories; usage comes from BudgetSpend
+@Entity
+@Data
+@Table(name = "budgets",
+        uniqueConstraints = @UniqueConstraint(name = "uq_budgets_user_category", columnNames = {"user_id", "category_id"}))
+@NoArgsConstructor
+@AllArgsConstructor
+public class Budget {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+    @Column(name = "user_id", nullable = false)
+    private Integer userId;
+    @Column(name = "category_id", nullable = false)
+    private Integer categoryId;
+    @Column(name = "limit_cents", nullable = false)
+    private long limitCents;
+    // Ascending percents of the limit, comma separated, e.g. "50,80,100"
+    @Column(nullable = false, length = 64)
+    private String thresholds;
+}
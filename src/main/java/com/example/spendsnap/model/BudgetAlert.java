@@ -0,0 +1,42 @@
+package com.example.spendsnap.model;
+
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+
+// A budget threshold crossed in some month; at most one row per (budget, month, threshold)
+@Entity
+@Data
+@Table(name = "budget_alerts",
+        uniqueConstraints = @UniqueConstraint(name = "uq_budget_alerts_threshold",
+                columnNames = {"budget_id", "month_start", "threshold_percent"}))
+@NoArgsConstructor
+@AllArgsConstructor
+public class BudgetAlert {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "budget_id", nullable = false,
+            foreignKey = @ForeignKey(name = "fk_budget_alerts_budget"))
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Budget budget;
+    @Column(name = "month_start", nullable = false)
+    private LocalDate monthStart;
+    @Column(name = "threshold_percent", nullable = false)
+    private int thresholdPercent;
+    @Column(name = "spent_cents", nullable = false)
+    private long spentCents;
+    @Column(name = "limit_cents", nullable = false)
+    private long limitCents;
+    @Column(name = "created_at", nullable = false)
+    private OffsetDateTime createdAt;
+}
@@ -0,0 +1,44 @@
+package com.example.spendsnap.model;
+
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+// Running expense total of one user for one month and category; only written through BudgetSpendDao's upsert
+@Entity
+@Data
+@Table(name = "budget_spend")
+@IdClass(BudgetSpend.Key.class)
+@NoArgsConstructor
+@AllArgsConstructor
+public class BudgetSpend {
+
+    // category_id used for expenses without a category
+    public static final int UNCATEGORISED = 0;
+
+    @Id
+    @Column(name = "user_id")
+    private Integer userId;
+    @Id
+    @Column(name = "month_start")
+    private LocalDate monthStart;
+    @Id
+    @Column(name = "category_id")
+    private Integer categoryId;
+    @Column(name = "spent_cents", nullable = false)
+    private long spentCents;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Integer userId;
+        private LocalDate monthStart;
+        private Integer categoryId;
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.spendsnap.model;
+
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Immutable;
+
+// Per-user category dictionary; expenses/income reference it by category_id
+@Entity
+@Data
+@Table(name = "categories",
+        uniqueConstraints = @UniqueConstraint(name = "uq_categories_user_name", columnNames = {"user_id", "name"}))
+@Immutable
+@Cacheable
+// Rows are never updated or deleted once created, so they can be cached without locking,
+// and a node-local copy stays correct across nodes
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = "spendsnap.category")
+@NoArgsConstructor
+@AllArgsConstructor
+public class Category {
+
+    public static final int MAX_NAME_LENGTH = 64;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "user_id", nullable = false,
+            foreignKey = @ForeignKey(name = "fk_categories_user"))
+    private UserModel user;
+    @Column(nullable = false, length = MAX_NAME_LENGTH)
+    private String name;
+}
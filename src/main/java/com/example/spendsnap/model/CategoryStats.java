@@ -0,0 +1,46 @@
+package com.example.spendsnap.model;
+
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+// Running statistics of log(amount) for one user's category (see AnomalyService)
+@Entity
+@Data
+@Table(name = "category_stats")
+@IdClass(CategoryStats.Key.class)
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategoryStats {
+
+    @Id
+    @Column(name = "user_id")
+    private Integer userId;
+    @Id
+    @Column(name = "category_id")
+    private Integer categoryId;
+    @Column(name = "value_count", nullable = false)
+    private long valueCount;
+    // Welford: mean and sum of squared deviations
+    @Column(nullable = false)
+    private double mean;
+    @Column(nullable = false)
+    private double m2;
+    // Exponentially weighted mean and variance (recent behaviour)
+    @Column(nullable = false)
+    private double ewma;
+    @Column(name = "ewm_var", nullable = false)
+    private double ewmVar;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Integer userId;
+        private Integer categoryId;
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.spendsnap.model;
+
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.OffsetDateTime;
+
+@Entity
+@Data
+@Table(name = "expense_anomalies",
+        uniqueConstraints = @UniqueConstraint(name = "uq_expense_anomalies_expense", columnNames = "expense_id"),
+        indexes = @Index(name = "idx_expense_anomalies_user_created", columnList = "user_id, created_at"))
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExpenseAnomaly {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+    @OneToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "expense_id", nullable = false,
+            foreignKey = @ForeignKey(name = "fk_expense_anomalies_expense"))
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Expenses expense;
+    @Column(name = "user_id", nullable = false)
+    private Integer userId;
+    @Column(nullable = false)
+    private double score;
+    @Column(name = "created_at", nullable = false)
+    private OffsetDateTime createdAt;
+}
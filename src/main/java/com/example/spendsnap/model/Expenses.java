@@ -1,6 +1,7 @@
 package com.example.spendsnap.model;
 
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -11,10 +12,17 @@ import org.apache.catalina.User;
 import java.time.LocalDate;
 
 @Entity
+@Table(name = "expenses",
+        indexes = {
+                @Index(name = "idx_expenses_user_date", columnList = "user_id, date"),
+                @Index(name = "idx_expenses_user_amount", columnList = "user_id, amount"),
+                @Index(name = "idx_expenses_user_description", columnList = "user_id, description"),
+                @Index(name = "idx_expenses_user_change_seq", columnList = "user_id, change_seq")
+        })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class Expenses {
+public class Expenses implements LedgerEntry {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -22,8 +30,16 @@ public class Expenses {
     private Double amount;
     private String description;
     private LocalDate date;
-    private String category;
+    // Not bound from/serialized to JSON; the DTOs carry the category name
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "category_id", foreignKey = @ForeignKey(name = "fk_expenses_category"))
+    private Category category;
     @ManyToOne()
     @JoinColumn(name = "user_id")
     private UserModel user;
+    // Per-user change number of the last write (SyncService)
+    @JsonIgnore
+    @Column(name = "change_seq", nullable = false)
+    private long changeSeq;
 }
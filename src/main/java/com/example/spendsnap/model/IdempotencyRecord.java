@@ -0,0 +1,50 @@
+package com.example.spendsnap.model;
+
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.OffsetDateTime;
+
+// Stored response for one (user, Idempotency-Key); statusCode is null while the first request runs
+@Entity
+@Data
+@Table(name = "idempotency_keys",
+        indexes = @Index(name = "idx_idempotency_keys_expires", columnList = "expires_at"))
+@IdClass(IdempotencyRecord.Key.class)
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+
+    public static final int MAX_KEY_LENGTH = 128;
+
+    @Id
+    @Column(name = "user_id")
+    private Integer userId;
+    @Id
+    @Column(name = "idempotency_key", length = MAX_KEY_LENGTH)
+    private String idempotencyKey;
+    // SHA-256 of method, path and body; a reused key with a different request is rejected
+    @Column(nullable = false, length = 32)
+    private byte[] fingerprint;
+    @Column(name = "status_code")
+    private Integer statusCode;
+    @Column(name = "content_type")
+    private String contentType;
+    @Lob
+    @Column(columnDefinition = "mediumblob")
+    private byte[] body;
+    @Column(name = "expires_at", nullable = false)
+    private OffsetDateTime expiresAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Integer userId;
+        private String idempotencyKey;
+    }
+}
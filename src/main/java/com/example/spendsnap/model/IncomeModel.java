@@ -1,6 +1,7 @@
 package com.example.spendsnap.model;
 
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -9,10 +10,17 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDate;
 
 @Entity
+@Table(name = "income_model",
+        indexes = {
+                @Index(name = "idx_income_model_user_date", columnList = "user_id, date"),
+                @Index(name = "idx_income_model_user_amount", columnList = "user_id, amount"),
+                @Index(name = "idx_income_model_user_description", columnList = "user_id, description"),
+                @Index(name = "idx_income_model_user_change_seq", columnList = "user_id, change_seq")
+        })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class IncomeModel {
+public class IncomeModel implements LedgerEntry {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -20,10 +28,18 @@ public class IncomeModel {
     private Double amount;
     private String description;
     private LocalDate date;
-    private String category;
+    // Not bound from/serialized to JSON; the DTOs carry the category name
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "category_id", foreignKey = @ForeignKey(name = "fk_income_model_category"))
+    private Category category;
     @ManyToOne
     @JoinColumn(name = "user_id")
     private UserModel user;
+    // Per-user change number of the last write (SyncService)
+    @JsonIgnore
+    @Column(name = "change_seq", nullable = false)
+    private long changeSeq;
 
 
 }
@@ -0,0 +1,19 @@
+package com.example.spendsnap.model;
+
+import java.time.LocalDate;
+
+// What Expenses and IncomeModel have in common, for code that works on either ledger
+public interface LedgerEntry {
+
+    Integer getId();
+
+    Double getAmount();
+
+    String getDescription();
+
+    LocalDate getDate();
+
+    Category getCategory();
+
+    UserModel getUser();
+}
@@ -0,0 +1,3 @@
+package com.example.spendsnap.model;
+
+public enum LedgerSortKey {DATE, AMOUNT}
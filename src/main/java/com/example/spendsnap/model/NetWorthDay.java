@@ -0,0 +1,38 @@
+package com.example.spendsnap.model;
+
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+// One day's change in a user's net worth; only written through NetWorthDao's upserts
+@Entity
+@Data
+@Table(name = "net_worth_daily")
+@IdClass(NetWorthDay.Key.class)
+@NoArgsConstructor
+@AllArgsConstructor
+public class NetWorthDay {
+
+    @Id
+    @Column(name = "user_id")
+    private Integer userId;
+    @Id
+    private LocalDate day;
+    @Column(name = "cash_delta_cents", nullable = false)
+    private long cashDeltaCents;
+    @Column(name = "savings_delta_cents", nullable = false)
+    private long savingsDeltaCents;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Integer userId;
+        private LocalDate day;
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.spendsnap.model;
+
+public enum RecurrenceFrequency {
+    DAILY,
+    WEEKLY,
+    MONTHLY,
+    YEARLY
+}
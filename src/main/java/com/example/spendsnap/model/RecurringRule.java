@@ -0,0 +1,48 @@
+package com.example.spendsnap.model;
+
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+// An expense or income repeated every interval_count days/weeks/months/years from start_date
+@Entity
+@Data
+@Table(name = "recurring_rules", indexes = {
+        @Index(name = "idx_recurring_rules_next_run", columnList = "next_run, id"),
+        @Index(name = "idx_recurring_rules_user", columnList = "user_id")
+})
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecurringRule {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(name = "user_id", nullable = false)
+    private Integer userId;
+    @Enumerated(EnumType.STRING)
+    @Column(name = "ledger_type", nullable = false)
+    private LedgerType ledgerType;
+    @Column(nullable = false)
+    private Double amount;
+    private String description;
+    @Column(name = "category_id")
+    private Integer categoryId;
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private RecurrenceFrequency frequency;
+    @Column(name = "interval_count", nullable = false)
+    private int intervalCount;
+    @Column(name = "start_date", nullable = false)
+    private LocalDate startDate;
+    // Inclusive; null = no end
+    @Column(name = "end_date")
+    private LocalDate endDate;
+    // Next occurrence not yet materialized; null once the rule has ended
+    @Column(name = "next_run")
+    private LocalDate nextRun;
+}
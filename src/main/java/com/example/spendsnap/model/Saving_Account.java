@@ -16,12 +16,16 @@ import java.time.OffsetDateTime;
 @Data
 @Table( name = "saving_accounts",
         indexes = {
-                @Index(name = "idx_saving_accounts_user", columnList = "user_id")
+                @Index(name = "idx_saving_accounts_user_status_updated", columnList = "user_id, status, updated_at"),
+                @Index(name = "idx_saving_accounts_user_updated", columnList = "user_id, updated_at"),
+                @Index(name = "idx_saving_accounts_user_change_seq", columnList = "user_id, change_seq")
         },
         uniqueConstraints = {
                 // optional, but nice: prevent duplicate account names per user
                 @UniqueConstraint(name = "uq_saving_accounts_user_name", columnNames = {"user_id","name"})
         })
+// Not second-level cached: balances change on every deposit and transfer, and a node-local cache
+// would keep serving a row another node has since updated
 @NoArgsConstructor
 @AllArgsConstructor
 public class Saving_Account {
@@ -52,6 +56,9 @@ public class Saving_Account {
     @Version
     @Column(name = "version")
     private Integer version;
+    // Per-user change number of the last write (SyncService)
+    @Column(name = "change_seq", nullable = false)
+    private long changeSeq;
 
 
 }
@@ -0,0 +1,46 @@
+package com.example.spendsnap.model;
+
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+// Quantile sketch of one user's expense amounts for one month and category (see QuantileSketch)
+@Entity
+@Data
+@Table(name = "spending_sketches")
+@IdClass(SpendingSketch.Key.class)
+@NoArgsConstructor
+@AllArgsConstructor
+public class SpendingSketch {
+
+    // category_id used for expenses without a category
+    public static final int UNCATEGORISED = 0;
+
+    @Id
+    @Column(name = "user_id")
+    private Integer userId;
+    @Id
+    @Column(name = "month_start")
+    private LocalDate monthStart;
+    @Id
+    @Column(name = "category_id")
+    private Integer categoryId;
+    @Column(name = "value_count", nullable = false)
+    private long valueCount;
+    @Column(nullable = false, length = 8192)
+    private byte[] sketch;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Integer userId;
+        private LocalDate monthStart;
+        private Integer categoryId;
+    }
+}
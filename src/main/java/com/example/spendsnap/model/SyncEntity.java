@@ -0,0 +1,8 @@
+package com.example.spendsnap.model;
+
+// Row types delivered by /sync
+public enum SyncEntity {
+    EXPENSE,
+    INCOME,
+    SAVING_ACCOUNT
+}
@@ -0,0 +1,22 @@
+package com.example.spendsnap.model;
+
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Last change number handed out for a user; only written through SyncSequenceDao's upsert
+@Entity
+@Data
+@Table(name = "sync_sequences")
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncSequence {
+
+    @Id
+    @Column(name = "user_id")
+    private Integer userId;
+    @Column(name = "last_seq", nullable = false)
+    private long lastSeq;
+}
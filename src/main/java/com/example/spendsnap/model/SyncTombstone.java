@@ -0,0 +1,39 @@
+package com.example.spendsnap.model;
+
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+// A deleted expense, income or saving account, reported by /sync to clients that still have it
+@Entity
+@Data
+@Table(name = "sync_tombstones")
+@IdClass(SyncTombstone.Key.class)
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncTombstone {
+
+    @Id
+    @Column(name = "user_id")
+    private Integer userId;
+    @Id
+    @Column(name = "change_seq")
+    private Long changeSeq;
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entity_type", nullable = false)
+    private SyncEntity entityType;
+    @Column(name = "entity_id", nullable = false)
+    private Integer entityId;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Integer userId;
+        private Long changeSeq;
+    }
+}
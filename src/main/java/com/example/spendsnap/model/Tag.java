@@ -0,0 +1,27 @@
+package com.example.spendsnap.model;
+
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Per-user tag; which expenses/income carry it is kept in TagBitmap
+@Entity
+@Data
+@Table(name = "tags",
+        uniqueConstraints = @UniqueConstraint(name = "uq_tags_user_name", columnNames = {"user_id", "name"}))
+@NoArgsConstructor
+@AllArgsConstructor
+public class Tag {
+
+    public static final int MAX_NAME_LENGTH = 64;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+    @Column(name = "user_id", nullable = false)
+    private Integer userId;
+    @Column(nullable = false, length = MAX_NAME_LENGTH)
+    private String name;
+}
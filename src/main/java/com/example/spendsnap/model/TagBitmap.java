@@ -0,0 +1,40 @@
+package com.example.spendsnap.model;
+
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+// Ids of the expenses or income rows carrying one tag, as a serialized RoaringBitmap
+@Entity
+@Data
+@Table(name = "tag_bitmaps")
+@IdClass(TagBitmap.Key.class)
+@NoArgsConstructor
+@AllArgsConstructor
+public class TagBitmap {
+
+    @Id
+    @Column(name = "tag_id")
+    private Integer tagId;
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "ledger_type")
+    private LedgerType ledgerType;
+    @Column(name = "row_count", nullable = false)
+    private long rowCount;
+    @Lob
+    @Column(nullable = false, columnDefinition = "mediumblob")
+    private byte[] bitmap;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Integer tagId;
+        private LedgerType ledgerType;
+    }
+}
@@ -0,0 +1,3 @@
+package com.example.spendsnap.model;
+
+public enum TimeBucket {NONE, DAY, WEEK, MONTH, QUARTER}
@@ -0,0 +1,83 @@
+package com.example.spendsnap.service;
+
+
+import com.example.spendsnap.config.Workload;
+import com.example.spendsnap.config.WorkloadClass;
+import com.example.spendsnap.dao.ExpensesDao;
+import com.example.spendsnap.dao.IncomeDao;
+import com.example.spendsnap.dto.CategoryBreakdownDto;
+import com.example.spendsnap.dto.CategoryBucketRow;
+import com.example.spendsnap.model.LedgerType;
+import com.example.spendsnap.model.TimeBucket;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+@Workload(WorkloadClass.REPORTING)
+public class AnalyticsService {
+
+    static final long MAX_RANGE_DAYS = 3660;
+
+    private final ExpensesDao expensesDao;
+    private final IncomeDao incomeDao;
+
+    /**
+     * Per-category totals, counts, min/max and share for [from, to] (both inclusive),
+     * optionally split into week/month/quarter buckets. One grouped query per call.
+     */
+    public CategoryBreakdownDto breakdown(Integer userId, LedgerType type, LocalDate from, LocalDate to, TimeBucket bucket) {
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new IllegalArgumentException("'from' must be on or before 'to'");
+        }
+        if (ChronoUnit.DAYS.between(from, to) > MAX_RANGE_DAYS) {
+            throw new IllegalArgumentException("Date range must not exceed " + MAX_RANGE_DAYS + " days");
+        }
+        TimeBucket b = bucket != null ? bucket : TimeBucket.NONE;
+        LocalDate end = to.plusDays(1);
+        List<CategoryBucketRow> rows = type == LedgerType.INCOME
+                ? incomeDao.breakdownByCategory(userId, from, end, b.name())
+                : expensesDao.breakdownByCategory(userId, from, end, b.name());
+
+        CategoryBreakdownDto result = new CategoryBreakdownDto();
+        result.setType(type);
+        result.setFrom(from);
+        result.setTo(to);
+        result.setBucket(b);
+
+        // Rows arrive ordered by bucket, so each bucket is a contiguous run
+        double grandTotal = 0;
+        CategoryBreakdownDto.Bucket current = null;
+        for (CategoryBucketRow row : rows) {
+            if (current == null || !current.getStart().equals(row.getBucketStart())) {
+                current = new CategoryBreakdownDto.Bucket();
+                current.setStart(row.getBucketStart());
+                current.setTotal(0.0);
+                result.getBuckets().add(current);
+            }
+            current.setTotal(current.getTotal() + row.getTotal());
+            current.getCategories().add(new CategoryBreakdownDto.CategoryTotal(
+                    row.getCategoryId(),
+                    row.getCategoryName(),
+                    row.getTotal(),
+                    row.getCount(),
+                    row.getMinAmount(),
+                    row.getMaxAmount(),
+                    null
+            ));
+            grandTotal += row.getTotal();
+        }
+        for (CategoryBreakdownDto.Bucket bucketDto : result.getBuckets()) {
+            double bucketTotal = bucketDto.getTotal();
+            for (CategoryBreakdownDto.CategoryTotal c : bucketDto.getCategories()) {
+                c.setShare(bucketTotal != 0 ? c.getTotal() / bucketTotal : 0.0);
+            }
+        }
+        result.setTotal(grandTotal);
+        return result;
+    }
+}
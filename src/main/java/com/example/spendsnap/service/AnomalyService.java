@@ -0,0 +1,164 @@
+package com.example.spendsnap.service;
+
+
+import com.example.spendsnap.dao.CategoryStatsDao;
+import com.example.spendsnap.dao.ExpenseAnomalyDao;
+import com.example.spendsnap.dto.ExpenseDto;
+import com.example.spendsnap.model.CategoryStats;
+import com.example.spendsnap.model.ExpenseAnomaly;
+import com.example.spendsnap.model.Expenses;
+import com.example.spendsnap.model.SpendingSketch;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Scores each new expense against the running statistics of its (user, category) and keeps
+ * those statistics up to date, so no history is re-read on insert.
+ * Works on log(amount): spending is roughly log-normal, so a z-score there treats
+ * "3x the usual" the same for coffee and for rent.
+ */
+@Service
+public class AnomalyService {
+
+    // Avoids huge scores for categories whose amounts never varied (about +-5%)
+    private static final double MIN_STDDEV = 0.05;
+
+    private final CategoryStatsDao statsDao;
+    private final ExpenseAnomalyDao anomalyDao;
+    private final double threshold;
+    private final long minHistory;
+    private final double alpha;
+
+    public AnomalyService(CategoryStatsDao statsDao,
+                          ExpenseAnomalyDao anomalyDao,
+                          @Value("${spendsnap.anomalies.threshold:3.0}") double threshold,
+                          @Value("${spendsnap.anomalies.min-history:5}") long minHistory,
+                          @Value("${spendsnap.anomalies.ewma-alpha:0.1}") double alpha) {
+        this.statsDao = statsDao;
+        this.anomalyDao = anomalyDao;
+        this.threshold = threshold;
+        this.minHistory = minHistory;
+        this.alpha = alpha;
+    }
+
+    /**
+     * Returns the anomaly score of a just-saved expense (null while the category has less than
+     * min-history values) and folds it into the statistics. Records it when |score| >= threshold.
+     * Runs in the caller's transaction; locks one category_stats row.
+     */
+    public Double scoreAndRecord(Expenses expense) {
+        Double amount = expense.getAmount();
+        if (amount == null || amount <= 0 || expense.getUser() == null) return null;
+        Integer userId = expense.getUser().getId();
+        double x = Math.log(amount);
+
+        CategoryStats stats = lock(userId, categoryId(expense));
+        Double score = score(stats, x);
+        add(stats, x, alpha);
+        if (score != null && Math.abs(score) >= threshold) {
+            anomalyDao.save(new ExpenseAnomaly(null, expense, userId, score, OffsetDateTime.now()));
+        }
+        return score;
+    }
+
+    /**
+     * An edited amount: takes the old value out of the statistics, drops the expense's record (it was
+     * scored for the old amount) and scores the new amount as if the expense had just been added.
+     */
+    public Double rescore(Expenses expense, Double previousAmount) {
+        if (expense.getUser() == null) return null;
+        remove(expense.getUser().getId(), categoryId(expense), previousAmount);
+        anomalyDao.deleteByExpenseId(expense.getId());
+        return scoreAndRecord(expense);
+    }
+
+    /** Takes a value back out of the long-run statistics (expense deleted). */
+    public void remove(Integer userId, Integer categoryId, Double amount) {
+        if (userId == null || amount == null || amount <= 0) return;
+        CategoryStats stats = lock(userId, categoryId != null ? categoryId : SpendingSketch.UNCATEGORISED);
+        removeValue(stats, Math.log(amount));
+    }
+
+    /** Adds a value without scoring it (materialized recurring occurrences). */
+    public void add(Integer userId, Integer categoryId, Double amount) {
+        if (userId == null || amount == null || amount <= 0) return;
+        CategoryStats stats = lock(userId, categoryId != null ? categoryId : SpendingSketch.UNCATEGORISED);
+        add(stats, Math.log(amount), alpha);
+    }
+
+    public List<ExpenseDto> recentAnomalies(Integer userId, int limit) {
+        if (limit < 1 || limit > 500) throw new IllegalArgumentException("limit must be between 1 and 500");
+        return anomalyDao.findRecentByUser(userId, PageRequest.of(0, limit)).stream()
+                .map(anomaly -> {
+                    ExpenseDto dto = ExpensesService.toDto(anomaly.getExpense());
+                    dto.setAnomalyScore(anomaly.getScore());
+                    return dto;
+                })
+                .toList();
+    }
+
+    private CategoryStats lock(Integer userId, Integer categoryId) {
+        statsDao.insertIfAbsent(userId, categoryId);
+        return statsDao.lockOne(userId, categoryId)
+                .orElseThrow(() -> new IllegalStateException("Category stats row missing after insert"));
+    }
+
+    /**
+     * z-score against the long-run (Welford) baseline, shrunk to the z-score against the recent
+     * (EWMA) baseline when that is smaller: a user whose spending has shifted isn't flagged forever.
+     */
+    private Double score(CategoryStats s, double x) {
+        if (s.getValueCount() < Math.max(2, minHistory)) return null;
+        double longRun = (x - s.getMean()) / Math.max(Math.sqrt(s.getM2() / (s.getValueCount() - 1)), MIN_STDDEV);
+        double recent = (x - s.getEwma()) / Math.max(Math.sqrt(s.getEwmVar()), MIN_STDDEV);
+        return Math.copySign(Math.min(Math.abs(longRun), Math.abs(recent)), longRun);
+    }
+
+    // Used by the backfill to replay history in date order
+    void fold(CategoryStats s, double amount) {
+        if (amount > 0) add(s, Math.log(amount), alpha);
+    }
+
+    static void add(CategoryStats s, double x, double alpha) {
+        long n = s.getValueCount() + 1;
+        double delta = x - s.getMean();
+        double mean = s.getMean() + delta / n;
+        s.setM2(s.getM2() + delta * (x - mean));
+        s.setMean(mean);
+        s.setValueCount(n);
+        if (n == 1) {
+            s.setEwma(x);
+            s.setEwmVar(0);
+        } else {
+            double diff = x - s.getEwma();
+            double increment = alpha * diff;
+            s.setEwma(s.getEwma() + increment);
+            s.setEwmVar((1 - alpha) * (s.getEwmVar() + diff * increment));
+        }
+    }
+
+    // Inverse Welford step; the EWMA can't be unwound and is left as is
+    static void removeValue(CategoryStats s, double x) {
+        long n = s.getValueCount();
+        if (n <= 1) {
+            s.setValueCount(0);
+            s.setMean(0);
+            s.setM2(0);
+            s.setEwma(0);
+            s.setEwmVar(0);
+            return;
+        }
+        double mean = (n * s.getMean() - x) / (n - 1);
+        s.setM2(Math.max(0, s.getM2() - (x - mean) * (x - s.getMean())));
+        s.setMean(mean);
+        s.setValueCount(n - 1);
+    }
+
+    static Integer categoryId(Expenses expense) {
+        return expense.getCategory() != null ? expense.getCategory().getId() : SpendingSketch.UNCATEGORISED;
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.spendsnap.service;
+
+
+import com.example.spendsnap.dao.BudgetAlertDao;
+import com.example.spendsnap.dao.BudgetDao;
+import com.example.spendsnap.dao.BudgetSpendDao;
+import com.example.spendsnap.dao.CategoryDao;
+import com.example.spendsnap.dto.BudgetAlertDto;
+import com.example.spendsnap.dto.BudgetDto;
+import com.example.spendsnap.event.BudgetThresholdCrossedEvent;
+import com.example.spendsnap.model.Budget;
+import com.example.spendsnap.model.BudgetAlert;
+import com.example.spendsnap.model.BudgetSpend;
+import com.example.spendsnap.model.Category;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.crossstore.ChangeSetPersister;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Monthly category budgets. Every expense write adds its amount to a (user, month, category) counter in
+ * the same transaction; the old and new counter values are compared against the budget's few thresholds,
+ * so a crossing is detected per write without reading any expenses. Each crossed threshold is recorded
+ * once per month and published as a BudgetThresholdCrossedEvent.
+ */
+@Service
+@RequiredArgsConstructor
+public class BudgetService {
+
+    public static final int MAX_THRESHOLDS = 5;
+    public static final int MAX_THRESHOLD_PERCENT = 1000;
+    public static final int MAX_ALERTS = 200;
+    // Keeps limit cents times MAX_THRESHOLD_PERCENT well inside a long
+    public static final double MAX_LIMIT = 1_000_000_000_000d;
+    private static final List<Integer> DEFAULT_THRESHOLDS = List.of(80, 100);
+
+    private final BudgetDao budgetDao;
+    private final BudgetSpendDao spendDao;
+    private final BudgetAlertDao alertDao;
+    private final CategoryDao categoryDao;
+    private final CategoryService categoryService;
+    private final ApplicationEventPublisher events;
+
+    /**
+     * Adds an expense amount (negative to take one back) to its month's counter and fires the thresholds
+     * it crosses upwards. Must run inside the caller's transaction: the counter row stays locked until it
+     * commits, so concurrent writers see each other's totals.
+     */
+    public void expense(Integer userId, Integer categoryId, LocalDate date, Double amount) {
+        if (userId == null || date == null || amount == null) return;
+        long delta = cents(amount);
+        if (delta == 0) return;
+        LocalDate month = date.withDayOfMonth(1);
+        spendDao.addDelta(userId, month, categoryId != null ? categoryId : BudgetSpend.UNCATEGORISED, delta);
+        if (delta < 0 || categoryId == null) return;
+
+        Budget budget = budgetDao.findByUserIdAndCategoryId(userId, categoryId).orElse(null);
+        if (budget == null) return;
+        long after = spendDao.spentCents(userId, month, categoryId);
+        long before = after - delta;
+        for (int percent : parseThresholds(budget.getThresholds())) {
+            long at = thresholdCents(budget.getLimitCents(), percent);
+            if (before < at && after >= at) alert(budget, month, percent, after);
+        }
+    }
+
+    /**
+     * Creates or replaces the budget of one category (created if the user hasn't used it yet).
+     * Thresholds the current month has already reached fire right away, so lowering a limit isn't silent.
+     */
+    @Transactional
+    public BudgetDto set(Integer userId, BudgetDto request) {
+        if (request.getLimit() == null || request.getLimit() <= 0 || !Double.isFinite(request.getLimit())) {
+            throw new IllegalArgumentException("Budget limit must be a positive amount");
+        }
+        if (request.getLimit() > MAX_LIMIT) {
+            throw new IllegalArgumentException("Budget limit must not exceed " + (long) MAX_LIMIT);
+        }
+        Integer categoryId = categoryService.resolveId(userId, request.getCategory());
+        if (categoryId == null) throw new IllegalArgumentException("Budget needs a category");
+        List<Integer> thresholds = normalizeThresholds(request.getThresholds());
+        long limitCents = cents(request.getLimit());
+        if (limitCents <= 0) throw new IllegalArgumentException("Budget limit must be a positive amount");
+
+        budgetDao.upsert(userId, categoryId, limitCents, formatThresholds(thresholds));
+        Budget budget = budgetDao.findByUserIdAndCategoryId(userId, categoryId)
+                .orElseThrow(() -> new IllegalStateException("Budget missing after upsert"));
+        LocalDate month = LocalDate.now().withDayOfMonth(1);
+        long spent = spendDao.findById(new BudgetSpend.Key(userId, month, categoryId))
+                .map(BudgetSpend::getSpentCents).orElse(0L);
+        for (int percent : thresholds) {
+            if (spent >= thresholdCents(limitCents, percent)) alert(budget, month, percent, spent);
+        }
+        return toDto(budget, categoryDao.getReferenceById(categoryId).getName(), spent);
+    }
+
+    @Transactional
+    public void delete(Integer userId, Integer id) throws ChangeSetPersister.NotFoundException {
+        Budget budget = budgetDao.findByIdAndUserId(id, userId).orElseThrow(ChangeSetPersister.NotFoundException::new);
+        budgetDao.delete(budget);
+    }
+
+    /** Every budget of the user with its utilization in the given month, read from the counters. */
+    @Transactional(readOnly = true)
+    public List<BudgetDto> list(Integer userId, YearMonth month) {
+        List<Budget> budgets = budgetDao.findByUserIdOrderById(userId);
+        if (budgets.isEmpty()) return List.of();
+        Map<Integer, Long> spent = new HashMap<>();
+        for (BudgetSpend row : spendDao.findByUserIdAndMonthStart(userId, month.atDay(1))) {
+            spent.put(row.getCategoryId(), row.getSpentCents());
+        }
+        Map<Integer, String> names = categoryNames(budgets.stream().map(Budget::getCategoryId).toList());
+        List<BudgetDto> out = new ArrayList<>(budgets.size());
+        for (Budget budget : budgets) {
+            out.add(toDto(budget, names.get(budget.getCategoryId()), spent.getOrDefault(budget.getCategoryId(), 0L)));
+        }
+        return out;
+    }
+
+    @Transactional(readOnly = true)
+    public List<BudgetAlertDto> alerts(Integer userId, int limit) {
+        if (limit < 1 || limit > MAX_ALERTS) throw new IllegalArgumentException("limit must be between 1 and " + MAX_ALERTS);
+        List<BudgetAlert> alerts = alertDao.findLatestByUser(userId, PageRequest.of(0, limit));
+        Map<Integer, String> names = categoryNames(alerts.stream().map(a -> a.getBudget().getCategoryId()).distinct().toList());
+        return alerts.stream().map(a -> new BudgetAlertDto(
+                a.getBudget().getId(),
+                names.get(a.getBudget().getCategoryId()),
+                a.getMonthStart(),
+                a.getThresholdPercent(),
+                amount(a.getSpentCents()),
+                amount(a.getLimitCents()),
+                a.getCreatedAt()
+        )).toList();
+    }
+
+    private void alert(Budget budget, LocalDate month, int percent, long spentCents) {
+        int inserted = alertDao.insertIfAbsent(budget.getId(), month, percent, spentCents, budget.getLimitCents(), OffsetDateTime.now());
+        if (inserted == 0) return;
+        events.publishEvent(new BudgetThresholdCrossedEvent(
+                budget.getUserId(), budget.getId(), budget.getCategoryId(), month, percent, spentCents, budget.getLimitCents()));
+    }
+
+    private Map<Integer, String> categoryNames(List<Integer> ids) {
+        return categoryDao.findAllById(ids).stream().collect(Collectors.toMap(Category::getId, Category::getName));
+    }
+
+    private static BudgetDto toDto(Budget budget, String category, long spentCents) {
+        long limit = budget.getLimitCents();
+        return new BudgetDto(
+                budget.getId(),
+                category,
+                amount(limit),
+                parseThresholds(budget.getThresholds()),
+                amount(spentCents),
+                amount(limit - spentCents),
+                (double) spentCents / limit
+        );
+    }
+
+    private static List<Integer> normalizeThresholds(List<Integer> thresholds) {
+        if (thresholds == null || thresholds.isEmpty()) return DEFAULT_THRESHOLDS;
+        TreeSet<Integer> sorted = new TreeSet<>();
+        for (Integer percent : thresholds) {
+            if (percent == null || percent < 1 || percent > MAX_THRESHOLD_PERCENT) {
+                throw new IllegalArgumentException("Thresholds must be percents between 1 and " + MAX_THRESHOLD_PERCENT);
+            }
+            sorted.add(percent);
+        }
+        if (sorted.size() > MAX_THRESHOLDS) throw new IllegalArgumentException("At most " + MAX_THRESHOLDS + " thresholds per budget");
+        return List.copyOf(sorted);
+    }
+
+    private static List<Integer> parseThresholds(String stored) {
+        return Arrays.stream(stored.split(",")).map(Integer::valueOf).toList();
+    }
+
+    private static String formatThresholds(List<Integer> thresholds) {
+        return thresholds.stream().map(String::valueOf).collect(Collectors.joining(","));
+    }
+
+    // Smallest spend (in cents) that reaches percent of the limit
+    private static long thresholdCents(long limitCents, int percent) {
+        return (limitCents * percent + 99) / 100;
+    }
+
+    private static long cents(double amount) {
+        return Math.round(amount * 100);
+    }
+
+    private static Double amount(long cents) {
+        return cents / 100.0;
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.spendsnap.service;
+
+
+import com.example.spendsnap.dao.CategoryDao;
+import com.example.spendsnap.model.Category;
+import com.example.spendsnap.model.UserModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Interns category names to ids of the per-user category table.
+ * The write path resolves names from memory; only the first use of a name hits the database.
+ */
+@Service
+public class CategoryService {
+
+    private final CategoryDao categoryDao;
+    private final TransactionTemplate requiresNew;
+    private final int maxCachedNames;
+    private final ReentrantLock lock = new ReentrantLock();
+    // Access-ordered: the least recently resolved name is evicted first
+    private final LinkedHashMap<Key, Integer> ids = new LinkedHashMap<>(16, 0.75f, true);
+
+    public CategoryService(CategoryDao categoryDao,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${spendsnap.categories.cache-size:100000}") int maxCachedNames) {
+        this.categoryDao = categoryDao;
+        // New categories are committed on their own so a rolled-back caller can't leave a cached id behind
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.maxCachedNames = maxCachedNames;
+    }
+
+    /**
+     * Returns a reference to the user's category with this name, creating it on first use.
+     * Names match case-insensitively (same as the uq_categories_user_name collation). Null/blank gives null.
+     */
+    public Category resolve(UserModel user, String name) {
+        Integer id = resolveId(user.getId(), name);
+        return id != null ? categoryDao.getReferenceById(id) : null;
+    }
+
+    public Integer resolveId(Integer userId, String name) {
+        String normalized = normalize(name);
+        if (normalized == null) return null;
+
+        Key key = new Key(userId, normalized.toLowerCase(Locale.ROOT));
+        Integer id = cached(key);
+        if (id != null) return id;
+
+        id = lookupOrCreate(userId, normalized);
+        remember(key, id);
+        return id;
+    }
+
+    /** Ids of the user's existing categories with these names (read-only, nothing is created). */
+    public List<Integer> findIds(Integer userId, Collection<String> names) {
+        List<String> normalized = names.stream().map(CategoryService::normalize).filter(n -> n != null).distinct().toList();
+        if (normalized.isEmpty()) return List.of();
+        return categoryDao.findByUser_IdAndNameIn(userId, normalized).stream().map(Category::getId).toList();
+    }
+
+    private Integer lookupOrCreate(Integer userId, String name) {
+        Integer existing = categoryDao.findByUser_IdAndName(userId, name).map(Category::getId).orElse(null);
+        if (existing != null) return existing;
+        // Insert and re-read in the new transaction: its snapshot starts after the insert, so a row another
+        // request/node committed first is visible here even when the caller's snapshot predates it
+        return requiresNew.execute(status -> {
+            categoryDao.insertIfAbsent(userId, name);
+            return categoryDao.findByUser_IdAndName(userId, name)
+                    .map(Category::getId)
+                    .orElseThrow(() -> new IllegalStateException("Category missing after insert"));
+        });
+    }
+
+    private Integer cached(Key key) {
+        lock.lock();
+        try {
+            return ids.get(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void remember(Key key, Integer id) {
+        lock.lock();
+        try {
+            ids.putIfAbsent(key, id);
+            while (ids.size() > maxCachedNames) ids.pollFirstEntry();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static String normalize(String name) {
+        if (name == null) return null;
+        String n = name.trim();
+        if (n.isEmpty()) return null;
+        if (n.length() > Category.MAX_NAME_LENGTH) {
+            throw new IllegalArgumentException("Category must be at most " + Category.MAX_NAME_LENGTH + " characters");
+        }
+        return n;
+    }
+
+    private record Key(Integer userId, String name) {}
+}
@@ -0,0 +1,106 @@
+package com.example.spendsnap.service;
+
+
+import com.example.spendsnap.dao.CategoryStatsDao;
+import com.example.spendsnap.dao.ExpensesDao;
+import com.example.spendsnap.dto.BackfillResultDto;
+import com.example.spendsnap.dto.LedgerRow;
+import com.example.spendsnap.model.CategoryStats;
+import com.example.spendsnap.model.SpendingSketch;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Rebuilds category_stats from the existing expenses, replaying each user's history in date order.
+ * Users are split into `parallelism` slices run on the applicationTaskExecutor; each user is one
+ * transaction that locks that user's stats rows, so concurrent inserts wait instead of being lost.
+ */
+@Slf4j
+@Service
+public class CategoryStatsBackfillService {
+
+    private final ExpensesDao expensesDao;
+    private final CategoryStatsDao statsDao;
+    private final AnomalyService anomalyService;
+    private final TransactionTemplate transactionTemplate;
+    private final AsyncTaskExecutor executor;
+    private final int parallelism;
+
+    public CategoryStatsBackfillService(ExpensesDao expensesDao,
+                                        CategoryStatsDao statsDao,
+                                        AnomalyService anomalyService,
+                                        PlatformTransactionManager transactionManager,
+                                        @Qualifier("applicationTaskExecutor") AsyncTaskExecutor executor,
+                                        // Keep well below the OLTP pool size: live traffic shares it
+                                        @Value("${spendsnap.anomalies.backfill-parallelism:4}") int parallelism) {
+        this.expensesDao = expensesDao;
+        this.statsDao = statsDao;
+        this.anomalyService = anomalyService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.executor = executor;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    public BackfillResultDto rebuildAll() {
+        long start = System.currentTimeMillis();
+        List<Integer> userIds = expensesDao.findUserIdsWithExpenses();
+        List<CompletableFuture<Integer>> slices = new ArrayList<>();
+        for (int slice = 0; slice < parallelism; slice++) {
+            List<Integer> mine = new ArrayList<>();
+            for (int i = slice; i < userIds.size(); i += parallelism) mine.add(userIds.get(i));
+            if (mine.isEmpty()) continue;
+            slices.add(CompletableFuture.supplyAsync(() -> {
+                int rows = 0;
+                for (Integer userId : mine) rows += rebuildUser(userId);
+                return rows;
+            }, executor));
+        }
+        int rows = slices.stream().mapToInt(CompletableFuture::join).sum();
+        long millis = System.currentTimeMillis() - start;
+        log.info("Rebuilt category stats for {} users ({} rows) in {} ms", userIds.size(), rows, millis);
+        return new BackfillResultDto(userIds.size(), rows, millis);
+    }
+
+    public int rebuildUser(Integer userId) {
+        Integer rows = transactionTemplate.execute(status -> {
+            Map<Integer, CategoryStats> existing = new HashMap<>();
+            for (CategoryStats s : statsDao.lockByUser(userId)) existing.put(s.getCategoryId(), s);
+
+            Map<Integer, CategoryStats> rebuilt = new HashMap<>();
+            for (LedgerRow row : expensesDao.findLedgerRowsByUser(userId)) {
+                Integer categoryId = row.getCategoryId() != null ? row.getCategoryId() : SpendingSketch.UNCATEGORISED;
+                CategoryStats stats = rebuilt.computeIfAbsent(categoryId, c -> {
+                    // Reuse the managed row so it is updated in place
+                    CategoryStats s = existing.remove(c);
+                    if (s == null) s = new CategoryStats(userId, c, 0, 0, 0, 0, 0);
+                    else reset(s);
+                    return s;
+                });
+                anomalyService.fold(stats, row.getAmount());
+            }
+            statsDao.saveAll(rebuilt.values());
+            statsDao.deleteAll(existing.values());
+            return rebuilt.size();
+        });
+        return rows != null ? rows : 0;
+    }
+
+    private static void reset(CategoryStats s) {
+        s.setValueCount(0);
+        s.setMean(0);
+        s.setM2(0);
+        s.setEwma(0);
+        s.setEwmVar(0);
+    }
+}
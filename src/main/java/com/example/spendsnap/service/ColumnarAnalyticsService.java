@@ -0,0 +1,220 @@
+package com.example.spendsnap.service;
+
+
+import com.example.spendsnap.config.Workload;
+import com.example.spendsnap.config.WorkloadClass;
+import com.example.spendsnap.dao.CategoryDao;
+import com.example.spendsnap.dao.ExpensesDao;
+import com.example.spendsnap.dao.IncomeDao;
+import com.example.spendsnap.dao.SyncSequenceDao;
+import com.example.spendsnap.dto.CategoryBreakdownDto;
+import com.example.spendsnap.dto.LedgerRow;
+import com.example.spendsnap.dto.RunningTotalDto;
+import com.example.spendsnap.model.Category;
+import com.example.spendsnap.model.LedgerType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ad-hoc aggregates (filtered sums, per-category group-bys, running totals) over a user's
+ * whole ledger, answered from {@link LedgerColumns} kept in memory instead of one SQL query each.
+ * Columns are loaded on first use, dropped by ExpensesService/IncomeService writes and evicted
+ * least-recently-used once spendsnap.analytics.columns.max-size is exceeded.
+ * Writes on other nodes don't reach this cache, so every read also checks the user's change
+ * sequence (one primary-key lookup) and reloads when it moved past the cached copy.
+ */
+@Service
+public class ColumnarAnalyticsService {
+
+    private final ExpensesDao expensesDao;
+    private final IncomeDao incomeDao;
+    private final CategoryDao categoryDao;
+    private final SyncSequenceDao sequenceDao;
+    private final long maxBytes;
+
+    // ReentrantLock rather than synchronized so waiting virtual threads don't pin their carrier
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<Key, Entry> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedBytes;
+    // Bumped on every invalidation; a load that raced with a write is not cached
+    private final Map<Key, Long> generations = new ConcurrentHashMap<>();
+
+    public ColumnarAnalyticsService(ExpensesDao expensesDao,
+                                    IncomeDao incomeDao,
+                                    CategoryDao categoryDao,
+                                    SyncSequenceDao sequenceDao,
+                                    @Value("${spendsnap.analytics.columns.max-size:64MB}") DataSize maxSize) {
+        this.expensesDao = expensesDao;
+        this.incomeDao = incomeDao;
+        this.categoryDao = categoryDao;
+        this.sequenceDao = sequenceDao;
+        this.maxBytes = maxSize.toBytes();
+    }
+
+    /** Sum over [from, to] (inclusive), optionally for one category. */
+    @Workload(WorkloadClass.REPORTING)
+    public double sum(Integer userId, LedgerType type, LocalDate from, LocalDate to, Integer categoryId) {
+        checkRange(from, to);
+        LedgerColumns columns = columns(userId, type);
+        int code = -1;
+        if (categoryId != null) {
+            code = columns.code(categoryId);
+            if (code < 0) return 0.0;
+        }
+        return columns.sum(day(from), day(to) + 1, code) / 100.0;
+    }
+
+    /** Per-category total/count/min/max/share over [from, to] (inclusive), largest first. */
+    @Workload(WorkloadClass.REPORTING)
+    public List<CategoryBreakdownDto.CategoryTotal> byCategory(Integer userId, LedgerType type, LocalDate from, LocalDate to) {
+        checkRange(from, to);
+        LedgerColumns columns = columns(userId, type);
+        LedgerColumns.Aggregates agg = columns.byCategory(day(from), day(to) + 1);
+
+        List<Integer> ids = new ArrayList<>();
+        long grand = 0;
+        for (int c = 0; c < agg.total.length; c++) {
+            if (agg.count[c] == 0) continue;
+            grand += agg.total[c];
+            if (columns.categoryId(c) != null) ids.add(columns.categoryId(c));
+        }
+        Map<Integer, String> names = new HashMap<>();
+        for (Category category : categoryDao.findAllById(ids)) names.put(category.getId(), category.getName());
+
+        List<CategoryBreakdownDto.CategoryTotal> out = new ArrayList<>();
+        for (int c = 0; c < agg.total.length; c++) {
+            if (agg.count[c] == 0) continue;
+            Integer id = columns.categoryId(c);
+            out.add(new CategoryBreakdownDto.CategoryTotal(
+                    id,
+                    id != null ? names.get(id) : null,
+                    agg.total[c] / 100.0,
+                    (long) agg.count[c],
+                    agg.min[c] / 100.0,
+                    agg.max[c] / 100.0,
+                    grand != 0 ? (double) agg.total[c] / grand : 0.0
+            ));
+        }
+        out.sort(Comparator.comparing(CategoryBreakdownDto.CategoryTotal::getTotal).reversed());
+        return out;
+    }
+
+    /** Cumulative total at the end of each day of [from, to] (inclusive). */
+    @Workload(WorkloadClass.REPORTING)
+    public RunningTotalDto runningTotal(Integer userId, LedgerType type, LocalDate from, LocalDate to) {
+        checkRange(from, to);
+        long[] cents = columns(userId, type).runningTotal(day(from), day(to) + 1);
+        double[] values = Arrays.stream(cents).mapToDouble(c -> c / 100.0).toArray();
+        return new RunningTotalDto(type, from, to, values);
+    }
+
+    /**
+     * Drops the user's cached columns. Called inside the writing transaction, so the entry is
+     * dropped again after completion: a reload in between could still have seen the old rows.
+     */
+    public void invalidate(Integer userId, LedgerType type) {
+        Key key = new Key(userId, type);
+        evict(key);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(key);
+                }
+            });
+        }
+    }
+
+    public LedgerColumns columns(Integer userId, LedgerType type) {
+        Key key = new Key(userId, type);
+        // Read before the rows: a write committed in between leaves the entry behind the sequence
+        long seq = lastSeq(userId);
+        lock.lock();
+        try {
+            Entry cached = cache.get(key);
+            if (cached != null && cached.seq() == seq) return cached.columns();
+        } finally {
+            lock.unlock();
+        }
+
+        long generation = generations.getOrDefault(key, 0L);
+        List<LedgerRow> rows = type == LedgerType.INCOME
+                ? incomeDao.findLedgerRowsByUser(userId)
+                : expensesDao.findLedgerRowsByUser(userId);
+        LedgerColumns loaded = LedgerColumns.of(rows);
+
+        lock.lock();
+        try {
+            if (Objects.equals(generations.getOrDefault(key, 0L), generation)) {
+                Entry previous = cache.put(key, new Entry(loaded, seq));
+                if (previous != null) cachedBytes -= previous.columns().estimatedBytes();
+                cachedBytes += loaded.estimatedBytes();
+                evictOverBudget(key);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return loaded;
+    }
+
+    private void evict(Key key) {
+        generations.merge(key, 1L, Long::sum);
+        lock.lock();
+        try {
+            Entry removed = cache.remove(key);
+            if (removed != null) cachedBytes -= removed.columns().estimatedBytes();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Caller holds the lock. Never evicts the entry just loaded, even if it alone is over budget.
+    private void evictOverBudget(Key keep) {
+        Iterator<Map.Entry<Key, Entry>> it = cache.entrySet().iterator();
+        while (cachedBytes > maxBytes && it.hasNext()) {
+            Map.Entry<Key, Entry> eldest = it.next();
+            if (eldest.getKey().equals(keep)) continue;
+            cachedBytes -= eldest.getValue().columns().estimatedBytes();
+            it.remove();
+        }
+    }
+
+    private long lastSeq(Integer userId) {
+        Long seq = sequenceDao.lastSeq(userId);
+        return seq != null ? seq : 0;
+    }
+
+    private static void checkRange(LocalDate from, LocalDate to) {
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new IllegalArgumentException("'from' must be on or before 'to'");
+        }
+        if (to.toEpochDay() - from.toEpochDay() > AnalyticsService.MAX_RANGE_DAYS) {
+            throw new IllegalArgumentException("Date range must not exceed " + AnalyticsService.MAX_RANGE_DAYS + " days");
+        }
+    }
+
+    private static int day(LocalDate date) {
+        return Math.toIntExact(date.toEpochDay());
+    }
+
+    private record Key(Integer userId, LedgerType type) {}
+
+    // The user's change sequence when the columns were read
+    private record Entry(LedgerColumns columns, long seq) {}
+}
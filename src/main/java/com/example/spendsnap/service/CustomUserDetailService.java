@@ -15,6 +15,10 @@ public class CustomUserDetailService implements UserDetails {
 
         private final UserModel user;
 
+    public Integer getId() {
+        return user.getId();
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return Collections.singleton(
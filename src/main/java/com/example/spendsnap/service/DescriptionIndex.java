@@ -0,0 +1,242 @@
+package com.example.spendsnap.service;
+
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index of one user's expense or income descriptions: token -> ids of the rows
+ * containing it. Tokens are kept sorted, so a prefix query is a range of the token map.
+ * Posting lists are ascending ids stored as varint gaps (ids are mostly appended in order, so a
+ * gap usually takes one or two bytes). Safe for concurrent queries and updates.
+ */
+public final class DescriptionIndex {
+
+    static final int MAX_TOKEN_LENGTH = 32;
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private final TreeMap<String, Postings> postings = new TreeMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private long bytes;
+
+    public void add(int id, String description) {
+        List<String> tokens = tokenize(description);
+        if (tokens.isEmpty()) return;
+        lock.writeLock().lock();
+        try {
+            for (String token : tokens) {
+                Postings p = postings.computeIfAbsent(token, t -> {
+                    bytes += 64L + 2L * t.length();
+                    return new Postings();
+                });
+                bytes += p.add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int id, String description) {
+        List<String> tokens = tokenize(description);
+        if (tokens.isEmpty()) return;
+        lock.writeLock().lock();
+        try {
+            for (String token : tokens) {
+                Postings p = postings.get(token);
+                if (p == null) continue;
+                bytes += p.remove(id);
+                if (p.count == 0) {
+                    postings.remove(token);
+                    bytes -= 64L + 2L * token.length();
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ids whose description has, for every query token, a token starting with it
+     * ("ub ri" matches "Uber ride"). Highest ids first, at most limit.
+     */
+    public int[] search(String query, int limit) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty()) return new int[0];
+        lock.readLock().lock();
+        try {
+            int[] result = null;
+            for (String token : tokens) {
+                int[] matches = prefixMatches(token);
+                result = result == null ? matches : intersect(result, matches);
+                if (result.length == 0) break;
+            }
+            int n = Math.min(limit, result.length);
+            int[] out = new int[n];
+            for (int i = 0; i < n; i++) out[i] = result[result.length - 1 - i];
+            return out;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int tokenCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Rough retained size, used for the memory budget
+    public long estimatedBytes() {
+        lock.readLock().lock();
+        try {
+            return 64L + bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Caller holds the read lock. Union of the postings of every token in [prefix, prefix + max char).
+    private int[] prefixMatches(String prefix) {
+        SortedMap<String, Postings> range = postings.subMap(prefix, prefix + Character.MAX_VALUE);
+        if (range.isEmpty()) return new int[0];
+        if (range.size() == 1) return range.values().iterator().next().decode();
+        int total = 0;
+        List<int[]> lists = new ArrayList<>(range.size());
+        for (Postings p : range.values()) {
+            int[] ids = p.decode();
+            lists.add(ids);
+            total += ids.length;
+        }
+        int[] all = new int[total];
+        int at = 0;
+        for (int[] ids : lists) {
+            System.arraycopy(ids, 0, all, at, ids.length);
+            at += ids.length;
+        }
+        Arrays.sort(all);
+        int distinct = 0;
+        for (int i = 0; i < all.length; i++) {
+            if (i == 0 || all[i] != all[i - 1]) all[distinct++] = all[i];
+        }
+        return Arrays.copyOf(all, distinct);
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) i++;
+            else if (a[i] > b[j]) j++;
+            else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    /** Lower-cased, accent-free, distinct alphanumeric tokens, each cut to MAX_TOKEN_LENGTH. */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) return List.of();
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFKD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARATORS.split(folded)) {
+            if (token.isEmpty()) continue;
+            if (token.length() > MAX_TOKEN_LENGTH) token = token.substring(0, MAX_TOKEN_LENGTH);
+            if (!tokens.contains(token)) tokens.add(token);
+        }
+        return tokens;
+    }
+
+    // Ascending ids as varint gaps; appends in id order are O(1), anything else re-encodes the list
+    private static final class Postings {
+        private byte[] data = new byte[4];
+        private int length;
+        private int count;
+        private int last = -1;
+
+        // Returns the change in allocated bytes
+        long add(int id) {
+            int before = data.length;
+            if (id > last) {
+                append(last < 0 ? id : id - last);
+                last = id;
+                count++;
+            } else {
+                int[] ids = decode();
+                int at = Arrays.binarySearch(ids, id);
+                if (at >= 0) return 0;
+                int[] next = new int[ids.length + 1];
+                int insert = -at - 1;
+                System.arraycopy(ids, 0, next, 0, insert);
+                next[insert] = id;
+                System.arraycopy(ids, insert, next, insert + 1, ids.length - insert);
+                encode(next);
+            }
+            return data.length - before;
+        }
+
+        long remove(int id) {
+            int before = data.length;
+            int[] ids = decode();
+            int at = Arrays.binarySearch(ids, id);
+            if (at < 0) return 0;
+            int[] next = new int[ids.length - 1];
+            System.arraycopy(ids, 0, next, 0, at);
+            System.arraycopy(ids, at + 1, next, at, ids.length - at - 1);
+            encode(next);
+            return data.length - before;
+        }
+
+        int[] decode() {
+            int[] ids = new int[count];
+            int value = 0, pos = 0;
+            for (int i = 0; i < count; i++) {
+                int gap = 0;
+                for (int shift = 0; ; shift += 7) {
+                    byte b = data[pos++];
+                    gap |= (b & 0x7F) << shift;
+                    if ((b & 0x80) == 0) break;
+                }
+                value += gap;
+                ids[i] = value;
+            }
+            return ids;
+        }
+
+        private void encode(int[] ids) {
+            data = new byte[Math.max(4, ids.length * 2)];
+            length = 0;
+            count = 0;
+            last = -1;
+            for (int id : ids) {
+                append(last < 0 ? id : id - last);
+                last = id;
+                count++;
+            }
+            data = Arrays.copyOf(data, Math.max(4, length));
+        }
+
+        private void append(int gap) {
+            if (length + 5 > data.length) data = Arrays.copyOf(data, Math.max(data.length * 2, length + 5));
+            while ((gap & ~0x7F) != 0) {
+                data[length++] = (byte) ((gap & 0x7F) | 0x80);
+                gap >>>= 7;
+            }
+            data[length++] = (byte) gap;
+        }
+    }
+}
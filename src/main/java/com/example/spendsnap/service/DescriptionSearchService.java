@@ -0,0 +1,189 @@
+package com.example.spendsnap.service;
+
+
+import com.example.spendsnap.dao.ExpensesDao;
+import com.example.spendsnap.dao.IncomeDao;
+import com.example.spendsnap.dao.SyncSequenceDao;
+import com.example.spendsnap.dto.DescriptionRow;
+import com.example.spendsnap.model.LedgerType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Word/prefix search over a user's expense or income descriptions, answered from a
+ * {@link DescriptionIndex} held in memory instead of a LIKE '%...%' scan.
+ * The index is built from the database on first use, updated in place by ExpensesService/IncomeService
+ * writes once they commit, and evicted least-recently-used beyond spendsnap.search.index.max-size.
+ * Each index remembers the user's change sequence it reflects; a search first compares it with the
+ * stored sequence and rebuilds if another node (or anything not patched in here) wrote since.
+ */
+@Service
+public class DescriptionSearchService {
+
+    public static final int MAX_LIMIT = 200;
+
+    private final ExpensesDao expensesDao;
+    private final IncomeDao incomeDao;
+    private final SyncSequenceDao sequenceDao;
+    private final long maxBytes;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<Key, Entry> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedBytes;
+    // Bumped on every committed write; a load that raced with one is not cached
+    private final Map<Key, Long> generations = new ConcurrentHashMap<>();
+
+    public DescriptionSearchService(ExpensesDao expensesDao,
+                                    IncomeDao incomeDao,
+                                    SyncSequenceDao sequenceDao,
+                                    @Value("${spendsnap.search.index.max-size:64MB}") DataSize maxSize) {
+        this.expensesDao = expensesDao;
+        this.incomeDao = incomeDao;
+        this.sequenceDao = sequenceDao;
+        this.maxBytes = maxSize.toBytes();
+    }
+
+    /** Ids of matching rows, newest (highest id) first. */
+    public int[] search(Integer userId, LedgerType type, String query, int limit) {
+        if (query == null || query.isBlank()) throw new IllegalArgumentException("'q' must not be blank");
+        if (limit < 1 || limit > MAX_LIMIT) throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+        return index(userId, type).search(query, limit);
+    }
+
+    // seq: the write's change number, which moves the cached index's sequence along with it
+    public void added(Integer userId, LedgerType type, Integer id, String description, long seq) {
+        afterCommit(userId, type, seq, index -> index.add(id, description));
+    }
+
+    public void changed(Integer userId, LedgerType type, Integer id, String previous, String current, long seq) {
+        afterCommit(userId, type, seq, index -> {
+            if (Objects.equals(previous, current)) return;
+            index.remove(id, previous);
+            index.add(id, current);
+        });
+    }
+
+    public void removed(Integer userId, LedgerType type, Integer id, String description, long seq) {
+        afterCommit(userId, type, seq, index -> index.remove(id, description));
+    }
+
+    /** Drops the user's indexes (all users if null); they are rebuilt from the database on next use. */
+    public void rebuild(Integer userId) {
+        lock.lock();
+        try {
+            Iterator<Map.Entry<Key, Entry>> it = cache.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Key, Entry> e = it.next();
+                if (userId != null && !e.getKey().userId().equals(userId)) continue;
+                generations.merge(e.getKey(), 1L, Long::sum);
+                cachedBytes -= e.getValue().bytes();
+                it.remove();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Only committed rows go into the index; the cached index (if any) is patched, not dropped
+    private void afterCommit(Integer userId, LedgerType type, long seq, Consumer<DescriptionIndex> change) {
+        Key key = new Key(userId, type);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(key, seq, change);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(key, seq, change);
+            }
+        });
+    }
+
+    private void apply(Key key, long seq, Consumer<DescriptionIndex> change) {
+        generations.merge(key, 1L, Long::sum);
+        Entry entry;
+        lock.lock();
+        try {
+            entry = cache.get(key);
+        } finally {
+            lock.unlock();
+        }
+        if (entry == null) return;
+        // add/remove are idempotent, so a load that already saw this row is fine
+        change.accept(entry.index());
+        lock.lock();
+        try {
+            // Only the next number in line is known to leave nothing unapplied; after a gap the
+            // index keeps its older sequence and the next search rebuilds it
+            if (cache.get(key) == entry && entry.seq() == seq - 1) {
+                cache.put(key, new Entry(entry.index(), entry.bytes(), seq));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private DescriptionIndex index(Integer userId, LedgerType type) {
+        Key key = new Key(userId, type);
+        // Read before the rows: a write committed in between leaves the entry behind the sequence
+        Long stored = sequenceDao.lastSeq(userId);
+        long seq = stored != null ? stored : 0;
+        lock.lock();
+        try {
+            Entry cached = cache.get(key);
+            if (cached != null && cached.seq() == seq) return cached.index();
+        } finally {
+            lock.unlock();
+        }
+
+        long generation = generations.getOrDefault(key, 0L);
+        List<DescriptionRow> rows = type == LedgerType.INCOME
+                ? incomeDao.findDescriptionRowsByUser(userId)
+                : expensesDao.findDescriptionRowsByUser(userId);
+        DescriptionIndex loaded = new DescriptionIndex();
+        for (DescriptionRow row : rows) loaded.add(row.getId(), row.getDescription());
+
+        lock.lock();
+        try {
+            if (Objects.equals(generations.getOrDefault(key, 0L), generation)) {
+                Entry entry = new Entry(loaded, loaded.estimatedBytes(), seq);
+                Entry previous = cache.put(key, entry);
+                if (previous != null) cachedBytes -= previous.bytes();
+                cachedBytes += entry.bytes();
+                evictOverBudget(key);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return loaded;
+    }
+
+    // Caller holds the lock. Never evicts the entry just loaded, even if it alone is over budget.
+    private void evictOverBudget(Key keep) {
+        Iterator<Map.Entry<Key, Entry>> it = cache.entrySet().iterator();
+        while (cachedBytes > maxBytes && it.hasNext()) {
+            Map.Entry<Key, Entry> eldest = it.next();
+            if (eldest.getKey().equals(keep)) continue;
+            cachedBytes -= eldest.getValue().bytes();
+            it.remove();
+        }
+    }
+
+    private record Key(Integer userId, LedgerType type) {}
+
+    // Size as of loading; in-place updates drift it a little, which the budget tolerates.
+    // seq: the user's change sequence the index reflects
+    private record Entry(DescriptionIndex index, long bytes, long seq) {}
+}
@@ -0,0 +1,164 @@
+package com.example.spendsnap.service;
+
+
+import com.example.spendsnap.event.BalanceChangedEvent;
+import com.example.spendsnap.event.BudgetThresholdCrossedEvent;
+import com.example.spendsnap.event.LedgerChangedEvent;
+import com.example.spendsnap.model.LedgerType;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Gets committed events to the user's /events streams on every node. A stream is open on one node while
+ * the user's writes can land on any other, so each event is also written to event_outbox inside the
+ * publishing transaction (the row exists only if the write committed). Every node polls the rows it hasn't
+ * seen and hands those from other nodes to its EventStreamService; its own go out directly after commit.
+ * <p>
+ * Auto-increment ids can commit out of order, so rows are re-read for spendsnap.events.relay.settle and
+ * de-duplicated by id before the read position moves past them. An event that commits later than that
+ * is missed; ledger and balance events carry the user's changeSeq, so the client sees the jump (as it
+ * does for writes that publish no event) and catches up with /sync.
+ */
+@Slf4j
+@Service
+public class EventRelay {
+
+    private static final int POLL_BATCH = 500;
+    private static final int CLEANUP_BATCH = 1000;
+
+    private final EventStreamService streams;
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbc;
+    private final boolean enabled;
+    private final Duration settle;
+    private final Duration retention;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final ReentrantLock pollLock = new ReentrantLock();
+    // Rows above floor already handled, with when they were first read; guarded by pollLock
+    private final TreeMap<Long, Instant> seen = new TreeMap<>();
+    private long floor = -1;
+
+    public EventRelay(EventStreamService streams,
+                      ObjectMapper objectMapper,
+                      JdbcTemplate jdbc,
+                      @Value("${spendsnap.events.relay.enabled:true}") boolean enabled,
+                      @Value("${spendsnap.events.relay.settle:5s}") Duration settle,
+                      @Value("${spendsnap.events.relay.retention:2m}") Duration retention) {
+        this.streams = streams;
+        this.objectMapper = objectMapper;
+        this.jdbc = jdbc;
+        this.enabled = enabled;
+        this.settle = settle;
+        this.retention = retention;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onBalanceChanged(BalanceChangedEvent event) {
+        relay(event.userId(), "balance", event);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onLedgerChanged(LedgerChangedEvent event) {
+        relay(event.userId(), event.type() == LedgerType.EXPENSES ? "expense" : "income", event);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onBudgetThresholdCrossed(BudgetThresholdCrossedEvent event) {
+        relay(event.userId(), "budget-alert", event);
+    }
+
+    @Scheduled(fixedDelayString = "${spendsnap.events.relay.poll-interval:PT0.25S}")
+    public void poll() {
+        if (!enabled) return;
+        pollLock.lock();
+        try {
+            if (floor < 0) {
+                // Starts at the current end: a node coming up has no streams waiting for older events
+                Long max = jdbc.queryForObject("SELECT MAX(id) FROM event_outbox", Long.class);
+                floor = max != null ? max : 0;
+            }
+            Instant now = Instant.now();
+            long after = floor;
+            List<Row> rows;
+            do {
+                rows = jdbc.query("SELECT id, node_id, user_id, name, data FROM event_outbox WHERE id > ? ORDER BY id LIMIT ?",
+                        (rs, i) -> new Row(rs.getLong(1), rs.getString(2), rs.getInt(3), rs.getString(4), rs.getString(5)),
+                        after, POLL_BATCH);
+                for (Row row : rows) {
+                    after = row.id();
+                    if (seen.putIfAbsent(row.id(), now) != null) continue;
+                    if (!row.nodeId().equals(nodeId)) streams.publish(row.userId(), row.name(), row.data());
+                }
+            } while (rows.size() == POLL_BATCH);
+
+            // Moves the read position over rows read before the settle window, in id order; an id
+            // still missing below them is taken as rolled back
+            Instant settled = now.minus(settle);
+            Iterator<Map.Entry<Long, Instant>> it = seen.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Long, Instant> e = it.next();
+                if (e.getValue().isAfter(settled)) break;
+                floor = e.getKey();
+                it.remove();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Polling event_outbox failed", e);
+        } finally {
+            pollLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${spendsnap.events.relay.cleanup-interval:PT1M}")
+    public void deleteExpired() {
+        if (!enabled) return;
+        Timestamp before = Timestamp.from(Instant.now().minus(retention));
+        int deleted;
+        do {
+            deleted = jdbc.update("DELETE FROM event_outbox WHERE created_at < ? LIMIT ?", before, CLEANUP_BATCH);
+        } while (deleted == CLEANUP_BATCH);
+    }
+
+    // Runs inside the publishing transaction, just before it commits
+    private void relay(Integer userId, String name, Object payload) {
+        String data;
+        try {
+            // Serialized once for the outbox and all of the user's local streams
+            data = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            log.warn("Could not serialize {} event", name, e);
+            return;
+        }
+        if (enabled) {
+            jdbc.update("INSERT INTO event_outbox (node_id, user_id, name, data, created_at) VALUES (?, ?, ?, ?, ?)",
+                    nodeId, userId, name, data, Timestamp.from(Instant.now()));
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                streams.publish(userId, name, data);
+            }
+        });
+    }
+
+    private record Row(long id, String nodeId, Integer userId, String name, String data) {}
+}
@@ -0,0 +1,220 @@
+package com.example.spendsnap.service;
+
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Per-user server-sent event streams (/events) carrying balance and ledger changes once their transaction
+ * commits, whichever node it ran on (EventRelay delivers them here). An open stream is only an SseEmitter
+ * and a small buffer, no thread: publishing appends the serialized event to each subscriber's bounded
+ * buffer (dropping the oldest when full) and schedules a drain on a small sender pool, so a slow client
+ * never holds up the committing request or the others.
+ * A client that lost events is sent "overflow" and should resync with /sync.
+ */
+@Service
+public class EventStreamService {
+
+    private static final Set<ResponseBodyEmitter.DataWithMediaType> HEARTBEAT = SseEmitter.event().comment("").build();
+
+    private final ExecutorService sender;
+    private final Duration timeout;
+    private final int bufferSize;
+    private final int maxSubscribers;
+    private final int maxPerUser;
+    private final Counter dropped;
+
+    private final Map<Integer, List<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger open = new AtomicInteger();
+
+    public EventStreamService(MeterRegistry meterRegistry,
+                              @Value("${spendsnap.events.timeout:30m}") Duration timeout,
+                              @Value("${spendsnap.events.buffer-size:32}") int bufferSize,
+                              @Value("${spendsnap.events.max-subscribers:50000}") int maxSubscribers,
+                              @Value("${spendsnap.events.max-per-user:5}") int maxPerUser,
+                              @Value("${spendsnap.events.sender-threads:8}") int senderThreads) {
+        this.timeout = timeout;
+        this.bufferSize = bufferSize;
+        this.maxSubscribers = maxSubscribers;
+        this.maxPerUser = maxPerUser;
+        // Platform threads: SseEmitter.send is synchronized and would pin a virtual thread while it writes
+        this.sender = Executors.newFixedThreadPool(senderThreads, Thread.ofPlatform().name("sse-sender-", 0).daemon(true).factory());
+        this.dropped = Counter.builder("spendsnap.events.dropped")
+                .description("Events dropped because a subscriber's buffer was full")
+                .register(meterRegistry);
+        Gauge.builder("spendsnap.events.subscribers", open, AtomicInteger::get)
+                .description("Open /events streams on this node")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Opens a stream for the user, or returns null when this node is at spendsnap.events.max-subscribers.
+     * Past max-per-user the user's oldest stream is closed (typically a tab that went away silently).
+     */
+    public SseEmitter subscribe(Integer userId) {
+        if (open.incrementAndGet() > maxSubscribers) {
+            open.decrementAndGet();
+            return null;
+        }
+        Subscriber subscriber = new Subscriber(userId, new SseEmitter(timeout.toMillis()));
+        subscriber.emitter.onCompletion(subscriber::remove);
+        subscriber.emitter.onTimeout(subscriber::remove);
+        subscriber.emitter.onError(e -> subscriber.remove());
+
+        List<Subscriber> userSubscribers = subscribers.compute(userId, (id, list) -> {
+            if (list == null) list = new CopyOnWriteArrayList<>();
+            list.add(subscriber);
+            return list;
+        });
+        if (userSubscribers.size() > maxPerUser) userSubscribers.getFirst().close();
+        // Flushes the response headers so the client sees the stream open right away
+        subscriber.offer(HEARTBEAT, false);
+        return subscriber.emitter;
+    }
+
+    // Keeps idle streams alive through proxies and finds connections that are gone
+    @Scheduled(fixedDelayString = "${spendsnap.events.heartbeat:PT15S}")
+    public void heartbeat() {
+        for (List<Subscriber> list : subscribers.values()) {
+            for (Subscriber subscriber : list) subscriber.offer(HEARTBEAT, true);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (List<Subscriber> list : subscribers.values()) {
+            for (Subscriber subscriber : list) subscriber.close();
+        }
+        sender.shutdownNow();
+    }
+
+    /** Queues a committed event (JSON data) on the user's streams open on this node. */
+    public void publish(Integer userId, String name, String data) {
+        List<Subscriber> list = subscribers.get(userId);
+        if (list == null || list.isEmpty()) return;
+        // Built once and shared by all of the user's streams
+        Set<ResponseBodyEmitter.DataWithMediaType> event = SseEmitter.event().name(name).data(data).build();
+        for (Subscriber subscriber : list) subscriber.offer(event, false);
+    }
+
+    private final class Subscriber implements Runnable {
+        private final Integer userId;
+        private final SseEmitter emitter;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final ArrayDeque<Set<ResponseBodyEmitter.DataWithMediaType>> buffer = new ArrayDeque<>();
+        private int lost;
+        private boolean scheduled;
+        private boolean closed;
+
+        private Subscriber(Integer userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        void offer(Set<ResponseBodyEmitter.DataWithMediaType> event, boolean heartbeat) {
+            lock.lock();
+            try {
+                if (closed) return;
+                // A heartbeat is only needed when nothing else is about to be written
+                if (heartbeat && (scheduled || !buffer.isEmpty())) return;
+                if (buffer.size() == bufferSize) {
+                    buffer.pollFirst();
+                    lost++;
+                    dropped.increment();
+                }
+                buffer.addLast(event);
+                if (scheduled) return;
+                scheduled = true;
+            } finally {
+                lock.unlock();
+            }
+            try {
+                sender.execute(this);
+            } catch (RejectedExecutionException e) {
+                remove();
+            }
+        }
+
+        // Drains the buffer; gives the sender thread back after one buffer's worth so busy streams take turns
+        @Override
+        public void run() {
+            for (int sent = 0; ; sent++) {
+                Set<ResponseBodyEmitter.DataWithMediaType> next;
+                lock.lock();
+                try {
+                    if (closed || (buffer.isEmpty() && lost == 0)) {
+                        scheduled = false;
+                        return;
+                    }
+                    if (sent == bufferSize) break;
+                    if (lost > 0) {
+                        next = overflow(lost);
+                        lost = 0;
+                    } else {
+                        next = buffer.pollFirst();
+                    }
+                } finally {
+                    lock.unlock();
+                }
+                try {
+                    emitter.send(next);
+                } catch (IOException | IllegalStateException e) {
+                    // Client went away; the container reports the error and completes the emitter
+                    remove();
+                    return;
+                }
+            }
+            try {
+                sender.execute(this);
+            } catch (RejectedExecutionException e) {
+                remove();
+            }
+        }
+
+        void close() {
+            remove();
+            emitter.complete();
+        }
+
+        void remove() {
+            lock.lock();
+            try {
+                if (closed) return;
+                closed = true;
+                buffer.clear();
+            } finally {
+                lock.unlock();
+            }
+            open.decrementAndGet();
+            subscribers.computeIfPresent(userId, (id, list) -> {
+                list.remove(this);
+                return list.isEmpty() ? null : list;
+            });
+        }
+    }
+
+    private static Set<ResponseBodyEmitter.DataWithMediaType> overflow(int lost) {
+        return SseEmitter.event().name("overflow").data("{\"dropped\":" + lost + "}").build();
+    }
+}
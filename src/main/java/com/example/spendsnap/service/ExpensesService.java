@@ -1,16 +1,34 @@
 package com.example.spendsnap.service;
 
 
+import com.example.spendsnap.config.Coalesced;
+import com.example.spendsnap.config.Workload;
+import com.example.spendsnap.config.WorkloadClass;
 import com.example.spendsnap.dao.ExpensesDao;
 import com.example.spendsnap.dao.UserDao;
+import com.example.spendsnap.dto.ByIdResultDto;
 import com.example.spendsnap.dto.ExpenseDto;
+import com.example.spendsnap.dto.KeysetPageDto;
+import com.example.spendsnap.dto.LedgerSearchRequest;
+import com.example.spendsnap.event.LedgerChangedEvent;
 import com.example.spendsnap.model.Expenses;
+import com.example.spendsnap.model.LedgerType;
+import com.example.spendsnap.model.SyncEntity;
 import com.example.spendsnap.model.UserModel;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -19,7 +37,28 @@ public class ExpensesService {
     private final ExpensesDao expensesDao;
     private final UserDao  userDao;
     private final UserService userService;
+    private final CategoryService categoryService;
+    private final ColumnarAnalyticsService columnarAnalytics;
+    private final SpendingSketchService spendingSketches;
+    private final AnomalyService anomalyService;
+    private final NetWorthService netWorthService;
+    private final DescriptionSearchService descriptionSearch;
+    private final TagService tagService;
+    private final BudgetService budgetService;
+    private final SyncService syncService;
+    private final ApplicationEventPublisher events;
+    private final SparseFieldsQuery sparseFields;
 
+    // ExpenseDto fields available to ?fields=
+    public static final List<SparseFieldsQuery.Field> FIELDS = List.of(
+            new SparseFieldsQuery.Field("id", "id"),
+            new SparseFieldsQuery.Field("amount", "amount"),
+            new SparseFieldsQuery.Field("description", "description"),
+            new SparseFieldsQuery.Field("date", "date"),
+            new SparseFieldsQuery.Field("category", "category.name"),
+            new SparseFieldsQuery.Field("userId", "user.id"));
+
+    @Transactional
     public ExpenseDto addExpenseFromDto(ExpenseDto expenseDto) {
         UserModel user = userService.findUserById(expenseDto.getUserId());
         Expenses expenses = new Expenses(
@@ -27,22 +66,59 @@ public class ExpensesService {
                 expenseDto.getAmount(),
                 expenseDto.getDescription(),
                 expenseDto.getDate(),
-                expenseDto.getCategory(),
-                user
+                categoryService.resolve(user, expenseDto.getCategory()),
+                user,
+                syncService.next(user.getId())
         );
         Expenses saved = expensesDao.save(expenses);
-        return toDto(saved);
+        columnarAnalytics.invalidate(user.getId(), LedgerType.EXPENSES);
+        spendingSketches.add(user.getId(), categoryId(saved), saved.getDate(), saved.getAmount());
+        netWorthService.expense(user.getId(), saved.getDate(), saved.getAmount());
+        budgetService.expense(user.getId(), categoryId(saved), saved.getDate(), saved.getAmount());
+        descriptionSearch.added(user.getId(), LedgerType.EXPENSES, saved.getId(), saved.getDescription(), saved.getChangeSeq());
+        events.publishEvent(new LedgerChangedEvent(user.getId(), LedgerType.EXPENSES, saved.getId(), LedgerChangedEvent.Action.CREATED, saved.getChangeSeq()));
+        ExpenseDto dto = toDto(saved);
+        dto.setAnomalyScore(anomalyService.scoreAndRecord(saved));
+        return dto;
     }
+    @Transactional
     public Expenses updateExpenses(Expenses expenses) {
-        Expenses oldExpenses = expensesDao.findById(expenses.getId()).orElse(new Expenses());
+        Expenses oldExpenses = expensesDao.lockById(expenses.getId()).orElse(new Expenses());
+        Double previousAmount = oldExpenses.getAmount();
+        String previousDescription = oldExpenses.getDescription();
         oldExpenses.setAmount(expenses.getAmount());
         oldExpenses.setDescription(expenses.getDescription());
+        if (oldExpenses.getUser() != null) {
+            Integer userId = oldExpenses.getUser().getId();
+            oldExpenses.setChangeSeq(syncService.next(userId));
+            columnarAnalytics.invalidate(userId, LedgerType.EXPENSES);
+            spendingSketches.remove(userId, categoryId(oldExpenses), oldExpenses.getDate(), previousAmount);
+            spendingSketches.add(userId, categoryId(oldExpenses), oldExpenses.getDate(), oldExpenses.getAmount());
+            if (!Objects.equals(previousAmount, oldExpenses.getAmount())) anomalyService.rescore(oldExpenses, previousAmount);
+            netWorthService.expenseChanged(userId, oldExpenses.getDate(), previousAmount, oldExpenses.getAmount());
+            budgetService.expense(userId, categoryId(oldExpenses), oldExpenses.getDate(), difference(oldExpenses.getAmount(), previousAmount));
+            descriptionSearch.changed(userId, LedgerType.EXPENSES, oldExpenses.getId(), previousDescription, oldExpenses.getDescription(), oldExpenses.getChangeSeq());
+            events.publishEvent(new LedgerChangedEvent(userId, LedgerType.EXPENSES, oldExpenses.getId(), LedgerChangedEvent.Action.UPDATED, oldExpenses.getChangeSeq()));
+        }
         return  expensesDao.save(oldExpenses);
     }
 
+    @Transactional
     public void deleteExpenses(Integer id) {
-        expensesDao.deleteById(id);
-
+        expensesDao.lockById(id).ifPresent(expenses -> {
+            long seq = syncService.deleted(expenses.getUser().getId(), SyncEntity.EXPENSE, expenses.getId());
+            events.publishEvent(new LedgerChangedEvent(expenses.getUser().getId(), LedgerType.EXPENSES, expenses.getId(), LedgerChangedEvent.Action.DELETED, seq));
+            expensesDao.delete(expenses);
+            columnarAnalytics.invalidate(expenses.getUser().getId(), LedgerType.EXPENSES);
+            spendingSketches.remove(expenses.getUser().getId(), categoryId(expenses), expenses.getDate(), expenses.getAmount());
+            anomalyService.remove(expenses.getUser().getId(), categoryId(expenses), expenses.getAmount());
+            descriptionSearch.removed(expenses.getUser().getId(), LedgerType.EXPENSES, expenses.getId(), expenses.getDescription(), seq);
+            tagService.removeRow(expenses.getUser().getId(), LedgerType.EXPENSES, expenses.getId());
+            if (expenses.getAmount() != null) {
+                netWorthService.expense(expenses.getUser().getId(), expenses.getDate(), -expenses.getAmount());
+                budgetService.expense(expenses.getUser().getId(), categoryId(expenses), expenses.getDate(), -expenses.getAmount());
+            }
+        });
     }
 
     public List<Expenses> getExpensesByUser(Integer userId) {
@@ -53,11 +129,19 @@ public class ExpensesService {
         return expensesDao.findByUser(user);
     }
 
+    /** Only the named ExpenseDto fields of the user's expenses, e.g. "date,amount,category"; see SparseFieldsQuery. */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getExpenseFieldsByUser(Integer userId, String fields) {
+        return sparseFields.list(Expenses.class, SparseFieldsQuery.select(FIELDS, fields), Map.of("user.id", userId), "id", false);
+    }
+
     public Expenses getExpensesById(Integer id) {
 
-        return expensesDao.findById(id).orElse(new Expenses());
+        return expensesDao.findWithCategoryById(id).orElse(new Expenses());
     }
 
+    @Coalesced
+    @Workload(WorkloadClass.REPORTING)
     public Double getTotalExpensesByUser(Integer userId) {
         UserModel user = userDao.findById(userId).orElse(null);
         if (user == null) {
@@ -66,12 +150,15 @@ public class ExpensesService {
         return expensesDao.getTotalExpensesByUser(userId);
     }
 
+    @Coalesced
+    @Workload(WorkloadClass.REPORTING)
     public Double getMonthlyExpensesSumByUser(Integer userId, int month, int year) {
         UserModel user = userDao.findById(userId).orElse(null);
         if (user == null) {
             return 0.0;
         }
-        return expensesDao.getMonthlyExpensesSumByUser(userId, month, year);
+        YearMonth ym = YearMonth.of(year, month);
+        return expensesDao.getMonthlyExpensesSumByUser(userId, ym.atDay(1), ym.plusMonths(1).atDay(1));
     }
 
     public List<Expenses> getMonthlyExpensesByUser(Integer userId, int month, int year) {
@@ -79,7 +166,53 @@ public class ExpensesService {
         if (user == null) {
             return Collections.emptyList();
         }
-        return expensesDao.getMonthlyExpensesByUser(userId, month, year);
+        YearMonth ym = YearMonth.of(year, month);
+        return expensesDao.getMonthlyExpensesByUser(userId, ym.atDay(1), ym.plusMonths(1).atDay(1));
+    }
+
+    /** Filtered, keyset-paginated search over the user's expenses (see LedgerSpecifications). */
+    @Transactional(readOnly = true)
+    public KeysetPageDto<ExpenseDto> search(Integer userId, LedgerSearchRequest request) {
+        return LedgerSearch.page(expensesDao, categoryService, userId, request, ExpensesService::toDto);
+    }
+
+    /** Expenses whose description contains words starting with every word of the query, newest first. */
+    public List<ExpenseDto> searchDescriptions(Integer userId, String query, int limit) {
+        return byIds(userId, descriptionSearch.search(userId, LedgerType.EXPENSES, query, limit));
+    }
+
+    /** Expenses matching a tag query such as "trip AND reimbursable NOT personal", newest first. */
+    public List<ExpenseDto> findTagged(Integer userId, String query, LocalDate from, LocalDate to, int limit) {
+        return byIds(userId, tagService.select(userId, LedgerType.EXPENSES, query, from, to, limit));
+    }
+
+    // Loads the user's rows with these ids in one query, keeping the order of ids
+    private List<ExpenseDto> byIds(Integer userId, int[] ids) {
+        if (ids.length == 0) return Collections.emptyList();
+        Map<Integer, Expenses> rows = expensesDao.findByUser_IdAndIdIn(userId, Arrays.stream(ids).boxed().toList()).stream()
+                .collect(Collectors.toMap(Expenses::getId, Function.identity()));
+        return Arrays.stream(ids).mapToObj(rows::get).filter(Objects::nonNull).map(ExpensesService::toDto).toList();
+    }
+
+    /** The user's expenses with these ids in one query, in request order, with a marker for each id that isn't theirs. */
+    @Transactional(readOnly = true)
+    public List<ByIdResultDto<ExpenseDto>> getExpensesByIds(Integer userId, List<Integer> ids) {
+        if (ids.isEmpty() || ids.size() > ByIdResultDto.MAX_IDS) {
+            throw new IllegalArgumentException("ids must list 1 to " + ByIdResultDto.MAX_IDS + " ids");
+        }
+        Map<Integer, Expenses> rows = expensesDao.findByUser_IdAndIdIn(userId, ids.stream().filter(Objects::nonNull).distinct().toList()).stream()
+                .collect(Collectors.toMap(Expenses::getId, Function.identity()));
+        return ids.stream().map(id -> rows.containsKey(id)
+                ? ByIdResultDto.found(id, toDto(rows.get(id)))
+                : ByIdResultDto.<ExpenseDto>notFound(id)).toList();
+    }
+
+    private static Double difference(Double current, Double previous) {
+        return (current != null ? current : 0d) - (previous != null ? previous : 0d);
+    }
+
+    private static Integer categoryId(Expenses expenses) {
+        return expenses.getCategory() != null ? expenses.getCategory().getId() : null;
     }
 
     public static  ExpenseDto toDto(Expenses expenses) {
@@ -88,7 +221,7 @@ public class ExpensesService {
         expenseDto.setAmount(expenses.getAmount());
         expenseDto.setDescription(expenses.getDescription());
         expenseDto.setDate(expenses.getDate());
-        expenseDto.setCategory(expenses.getCategory());
+        expenseDto.setCategory(expenses.getCategory() != null ? expenses.getCategory().getName() : null);
         expenseDto.setUserId(expenses.getUser().getId());
         return expenseDto;
     }
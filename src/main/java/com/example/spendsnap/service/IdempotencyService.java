@@ -0,0 +1,219 @@
+package com.example.spendsnap.service;
+
+
+import com.example.spendsnap.dao.IdempotencyKeyDao;
+import com.example.spendsnap.model.IdempotencyRecord;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Remembers the response of each (user, Idempotency-Key) so a retried POST is answered without running
+ * again. Completed responses live in a bounded in-memory LRU in front of the idempotency_keys table.
+ * Duplicates arriving while the first request still runs wait for it on this node; on another node the
+ * pending row makes them fail fast with "in progress" instead of executing twice.
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+
+    private static final int CLEANUP_BATCH = 1000;
+
+    private final IdempotencyKeyDao dao;
+    private final TransactionTemplate tx;
+    private final Duration ttl;
+    private final Duration lease;
+    private final Duration wait;
+    private final int maxCached;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<Key, StoredResponse> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Key, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyService(IdempotencyKeyDao dao,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${spendsnap.idempotency.ttl:24h}") Duration ttl,
+                              @Value("${spendsnap.idempotency.lease:60s}") Duration lease,
+                              @Value("${spendsnap.idempotency.wait:10s}") Duration wait,
+                              @Value("${spendsnap.idempotency.cache-size:10000}") int maxCached) {
+        this.dao = dao;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.ttl = ttl;
+        this.lease = lease;
+        this.wait = wait;
+        this.maxCached = maxCached;
+    }
+
+    public record StoredResponse(byte[] fingerprint, int status, String contentType, byte[] body, OffsetDateTime expiresAt) {}
+
+    /** Outcome of {@link #claim}: exactly one of the four kinds. */
+    public sealed interface Claim permits Replay, Owner, InProgress, Mismatch {}
+
+    /** The key was already used for this request; send the stored response. */
+    public record Replay(StoredResponse response) implements Claim {}
+
+    /** Some request with this key is running (here past the wait timeout, or on another node). */
+    public record InProgress() implements Claim {}
+
+    /** The key was used for a different request. */
+    public record Mismatch() implements Claim {}
+
+    /** The caller runs the request and must call exactly one of complete/fail afterwards. */
+    public final class Owner implements Claim {
+        private final Key key;
+        private final byte[] fingerprint;
+        private final CompletableFuture<StoredResponse> done;
+
+        private Owner(Key key, byte[] fingerprint, CompletableFuture<StoredResponse> done) {
+            this.key = key;
+            this.fingerprint = fingerprint;
+            this.done = done;
+        }
+
+        /** Stores the response; server errors are not stored, so a retry runs again. */
+        public void complete(int status, String contentType, byte[] body) {
+            if (status >= 500) {
+                fail();
+                return;
+            }
+            StoredResponse response = new StoredResponse(fingerprint, status, contentType, body, OffsetDateTime.now().plus(ttl));
+            try {
+                tx.executeWithoutResult(s -> dao.complete(key.userId(), key.idempotencyKey(), status, contentType, body, response.expiresAt()));
+                remember(key, response);
+                done.complete(response);
+            } catch (RuntimeException e) {
+                // The operation itself succeeded; waiters still get its response, a later retry may see "in progress"
+                log.warn("Could not store idempotent response for key {}", key.idempotencyKey(), e);
+                done.complete(response);
+            } finally {
+                inFlight.remove(key, done);
+            }
+        }
+
+        public void fail() {
+            try {
+                tx.executeWithoutResult(s -> dao.deletePending(key.userId(), key.idempotencyKey()));
+            } finally {
+                done.complete(null);
+                inFlight.remove(key, done);
+            }
+        }
+    }
+
+    /**
+     * Decides what to do with a request carrying an Idempotency-Key. May block up to
+     * spendsnap.idempotency.wait while an identical request is running on this node.
+     */
+    public Claim claim(Integer userId, String idempotencyKey, byte[] fingerprint) throws InterruptedException {
+        Key key = new Key(userId, idempotencyKey);
+        // A failed first attempt releases the key; the waiters then race for it once more
+        for (int attempt = 0; attempt < 2; attempt++) {
+            StoredResponse cached = cached(key);
+            if (cached != null) return replayOrMismatch(cached, fingerprint);
+
+            CompletableFuture<StoredResponse> mine = new CompletableFuture<>();
+            CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(key, mine);
+            if (running != null) {
+                StoredResponse response;
+                try {
+                    response = running.get(wait.toMillis(), TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    return new InProgress();
+                } catch (ExecutionException e) {
+                    response = null;
+                }
+                if (response != null) return replayOrMismatch(response, fingerprint);
+                continue;
+            }
+
+            Claim claim;
+            try {
+                claim = claimStored(key, fingerprint, mine);
+            } catch (RuntimeException e) {
+                mine.complete(null);
+                inFlight.remove(key, mine);
+                throw e;
+            }
+            if (!(claim instanceof Owner)) {
+                mine.complete(claim instanceof Replay replay ? replay.response() : null);
+                inFlight.remove(key, mine);
+            }
+            return claim;
+        }
+        return new InProgress();
+    }
+
+    // Checks the table for this node's in-flight owner: replay a stored response or take the key
+    private Claim claimStored(Key key, byte[] fingerprint, CompletableFuture<StoredResponse> mine) {
+        return tx.execute(s -> {
+            OffsetDateTime now = OffsetDateTime.now();
+            dao.deleteIfExpired(key.userId(), key.idempotencyKey(), now);
+            if (dao.insertPending(key.userId(), key.idempotencyKey(), fingerprint, now.plus(lease)) == 1) {
+                return new Owner(key, fingerprint, mine);
+            }
+            IdempotencyRecord stored = dao.findById(new IdempotencyRecord.Key(key.userId(), key.idempotencyKey())).orElse(null);
+            if (stored == null) return new InProgress();
+            if (stored.getStatusCode() == null) {
+                return Arrays.equals(stored.getFingerprint(), fingerprint) ? new InProgress() : new Mismatch();
+            }
+            StoredResponse response = new StoredResponse(stored.getFingerprint(), stored.getStatusCode(),
+                    stored.getContentType(), stored.getBody() != null ? stored.getBody() : new byte[0], stored.getExpiresAt());
+            remember(key, response);
+            return replayOrMismatch(response, fingerprint);
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${spendsnap.idempotency.cleanup-interval:PT10M}")
+    public void deleteExpired() {
+        OffsetDateTime now = OffsetDateTime.now();
+        int deleted;
+        do {
+            deleted = tx.execute(s -> dao.deleteExpired(now, CLEANUP_BATCH));
+        } while (deleted == CLEANUP_BATCH);
+    }
+
+    private static Claim replayOrMismatch(StoredResponse response, byte[] fingerprint) {
+        return Arrays.equals(response.fingerprint(), fingerprint) ? new Replay(response) : new Mismatch();
+    }
+
+    private StoredResponse cached(Key key) {
+        lock.lock();
+        try {
+            StoredResponse response = cache.get(key);
+            if (response != null && response.expiresAt().isBefore(OffsetDateTime.now())) {
+                cache.remove(key);
+                return null;
+            }
+            return response;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void remember(Key key, StoredResponse response) {
+        lock.lock();
+        try {
+            cache.put(key, response);
+            while (cache.size() > maxCached) cache.pollFirstEntry();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private record Key(Integer userId, String idempotencyKey) {}
+}
@@ -1,16 +1,34 @@
 package com.example.spendsnap.service;
 
 
+import com.example.spendsnap.config.Coalesced;
+import com.example.spendsnap.config.Workload;
+import com.example.spendsnap.config.WorkloadClass;
 import com.example.spendsnap.dao.IncomeDao;
 import com.example.spendsnap.dao.UserDao;
+import com.example.spendsnap.dto.ByIdResultDto;
 import com.example.spendsnap.dto.IncomeDto;
+import com.example.spendsnap.dto.KeysetPageDto;
+import com.example.spendsnap.dto.LedgerSearchRequest;
+import com.example.spendsnap.event.LedgerChangedEvent;
 import com.example.spendsnap.model.IncomeModel;
+import com.example.spendsnap.model.LedgerType;
+import com.example.spendsnap.model.SyncEntity;
 import com.example.spendsnap.model.UserModel;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -19,8 +37,26 @@ public class IncomeService {
     private final IncomeDao incomeDao;
     private final UserDao userDao;
     private final UserService userService;
+    private final CategoryService categoryService;
+    private final ColumnarAnalyticsService columnarAnalytics;
+    private final NetWorthService netWorthService;
+    private final DescriptionSearchService descriptionSearch;
+    private final TagService tagService;
+    private final SyncService syncService;
+    private final ApplicationEventPublisher events;
+    private final SparseFieldsQuery sparseFields;
 
+    // IncomeDto fields available to ?fields=
+    public static final List<SparseFieldsQuery.Field> FIELDS = List.of(
+            new SparseFieldsQuery.Field("id", "id"),
+            new SparseFieldsQuery.Field("amount", "amount"),
+            new SparseFieldsQuery.Field("description", "description"),
+            new SparseFieldsQuery.Field("date", "date"),
+            new SparseFieldsQuery.Field("category", "category.name"),
+            new SparseFieldsQuery.Field("userId", "user.id"));
 
+
+    @Transactional
     public IncomeDto addIncomeFromDto(IncomeDto incomeDto) {
         UserModel  usermodel = userService.findUserById(incomeDto.getUserId());
         IncomeModel incomeModel = new IncomeModel(
@@ -28,10 +64,15 @@ public class IncomeService {
                 incomeDto.getAmount(),
                 incomeDto.getDescription(),
                 incomeDto.getDate(),
-                incomeDto.getCategory(),
-                usermodel
+                categoryService.resolve(usermodel, incomeDto.getCategory()),
+                usermodel,
+                syncService.next(usermodel.getId())
         );
         IncomeModel saved = incomeDao.save(incomeModel);
+        columnarAnalytics.invalidate(usermodel.getId(), LedgerType.INCOME);
+        netWorthService.income(usermodel.getId(), saved.getDate(), saved.getAmount());
+        descriptionSearch.added(usermodel.getId(), LedgerType.INCOME, saved.getId(), saved.getDescription(), saved.getChangeSeq());
+        events.publishEvent(new LedgerChangedEvent(usermodel.getId(), LedgerType.INCOME, saved.getId(), LedgerChangedEvent.Action.CREATED, saved.getChangeSeq()));
         return toDo(saved);
     }
 
@@ -43,6 +84,14 @@ public class IncomeService {
         return  incomeDao.findByUser(userModel);
     }
 
+    /** Only the named IncomeDto fields of the user's income, e.g. "date,amount"; see SparseFieldsQuery. */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getIncomeFieldsByUser(Integer userId, String fields) {
+        return sparseFields.list(IncomeModel.class, SparseFieldsQuery.select(FIELDS, fields), Map.of("user.id", userId), "id", false);
+    }
+
+   @Coalesced
+   @Workload(WorkloadClass.REPORTING)
    public  Double getTotalIncomeByUser(Integer userId) {
         UserModel userModel = userDao.findById(userId).orElse(null);
         if (userModel == null) {
@@ -51,12 +100,15 @@ public class IncomeService {
         return incomeDao.getTotalIncomeByUser(userId);
     }
 
+  @Coalesced
+  @Workload(WorkloadClass.REPORTING)
   public  Double getMonthlyIncomeSumByUser(Integer userId, Integer month, Integer year) {
         UserModel userModel = userDao.findById(userId).orElse(null);
         if (userModel == null) {
             return 0.0;
         }
-        Double sum = incomeDao.getMonthlyIncomeSumByUser(userId, month, year);
+        YearMonth ym = YearMonth.of(year, month);
+        Double sum = incomeDao.getMonthlyIncomeSumByUser(userId, ym.atDay(1), ym.plusMonths(1).atDay(1));
         return sum != null ? sum : 0.0;
     }
 
@@ -65,19 +117,82 @@ public class IncomeService {
         if (userModel == null) {
             return Collections.emptyList();
         }
-        return incomeDao.getMonthlyIncomeByUser(userId, month,year);
+        YearMonth ym = YearMonth.of(year, month);
+        return incomeDao.getMonthlyIncomeByUser(userId, ym.atDay(1), ym.plusMonths(1).atDay(1));
     }
 
+    @Transactional
     public IncomeModel updateIncomeFromDto(IncomeModel incomeDto) {
-        IncomeModel incomeModel =  incomeDao.findById(incomeDto.getId()).orElse(new IncomeModel());
+        IncomeModel incomeModel =  incomeDao.lockById(incomeDto.getId()).orElse(new IncomeModel());
         //assert incomeModel != null;
+        Double previousAmount = incomeModel.getAmount();
+        String previousDescription = incomeModel.getDescription();
         incomeModel.setAmount(incomeDto.getAmount());
         incomeModel.setDescription(incomeDto.getDescription());
+        if (incomeModel.getUser() != null) {
+            incomeModel.setChangeSeq(syncService.next(incomeModel.getUser().getId()));
+            columnarAnalytics.invalidate(incomeModel.getUser().getId(), LedgerType.INCOME);
+            netWorthService.incomeChanged(incomeModel.getUser().getId(), incomeModel.getDate(), previousAmount, incomeModel.getAmount());
+            descriptionSearch.changed(incomeModel.getUser().getId(), LedgerType.INCOME, incomeModel.getId(), previousDescription, incomeModel.getDescription(), incomeModel.getChangeSeq());
+            events.publishEvent(new LedgerChangedEvent(incomeModel.getUser().getId(), LedgerType.INCOME, incomeModel.getId(), LedgerChangedEvent.Action.UPDATED, incomeModel.getChangeSeq()));
+        }
         return incomeDao.save(incomeModel);
     }
 
+    @Transactional
     public void deleteIncomeFromDto(Integer incomeId) {
-        incomeDao.deleteById(incomeId);
+        incomeDao.lockById(incomeId).ifPresent(income -> {
+            long seq = syncService.deleted(income.getUser().getId(), SyncEntity.INCOME, income.getId());
+            events.publishEvent(new LedgerChangedEvent(income.getUser().getId(), LedgerType.INCOME, income.getId(), LedgerChangedEvent.Action.DELETED, seq));
+            incomeDao.delete(income);
+            columnarAnalytics.invalidate(income.getUser().getId(), LedgerType.INCOME);
+            descriptionSearch.removed(income.getUser().getId(), LedgerType.INCOME, income.getId(), income.getDescription(), seq);
+            tagService.removeRow(income.getUser().getId(), LedgerType.INCOME, income.getId());
+            if (income.getAmount() != null) {
+                netWorthService.income(income.getUser().getId(), income.getDate(), -income.getAmount());
+            }
+        });
+    }
+
+    /** Filtered, keyset-paginated search over the user's income (see LedgerSpecifications). */
+    @Transactional(readOnly = true)
+    public KeysetPageDto<IncomeDto> search(Integer userId, LedgerSearchRequest request) {
+        return LedgerSearch.page(incomeDao, categoryService, userId, request, IncomeService::toDo);
+    }
+
+    /** Income whose description contains words starting with every word of the query, newest first. */
+    public List<IncomeDto> searchDescriptions(Integer userId, String query, int limit) {
+        return byIds(userId, descriptionSearch.search(userId, LedgerType.INCOME, query, limit));
+    }
+
+    /** Income matching a tag query such as "work NOT bonus", newest first. */
+    public List<IncomeDto> findTagged(Integer userId, String query, LocalDate from, LocalDate to, int limit) {
+        return byIds(userId, tagService.select(userId, LedgerType.INCOME, query, from, to, limit));
+    }
+
+    // Loads the user's rows with these ids in one query, keeping the order of ids
+    private List<IncomeDto> byIds(Integer userId, int[] ids) {
+        if (ids.length == 0) return Collections.emptyList();
+        Map<Integer, IncomeModel> rows = incomeDao.findByUser_IdAndIdIn(userId, Arrays.stream(ids).boxed().toList()).stream()
+                .collect(Collectors.toMap(IncomeModel::getId, Function.identity()));
+        return Arrays.stream(ids).mapToObj(rows::get).filter(Objects::nonNull).map(IncomeService::toDo).toList();
+    }
+
+    /** The user's income rows with these ids in one query, in request order, with a marker for each id that isn't theirs. */
+    @Transactional(readOnly = true)
+    public List<ByIdResultDto<IncomeDto>> getIncomeByIds(Integer userId, List<Integer> ids) {
+        if (ids.isEmpty() || ids.size() > ByIdResultDto.MAX_IDS) {
+            throw new IllegalArgumentException("ids must list 1 to " + ByIdResultDto.MAX_IDS + " ids");
+        }
+        Map<Integer, IncomeModel> rows = incomeDao.findByUser_IdAndIdIn(userId, ids.stream().filter(Objects::nonNull).distinct().toList()).stream()
+                .collect(Collectors.toMap(IncomeModel::getId, Function.identity()));
+        return ids.stream().map(id -> {
+            IncomeModel row = rows.get(id);
+            if (row == null) return ByIdResultDto.<IncomeDto>notFound(id);
+            IncomeDto dto = toDo(row);
+            dto.setId(row.getId());
+            return ByIdResultDto.found(id, dto);
+        }).toList();
     }
 
     public static IncomeDto toDo(IncomeModel incomeModel) {
@@ -86,6 +201,7 @@ public class IncomeService {
         incomeDtoToAdd.setDescription(incomeModel.getDescription());
         incomeDtoToAdd.setDate(incomeModel.getDate());
         incomeDtoToAdd.setDescription(incomeModel.getDescription());
+        if (incomeModel.getCategory() != null) incomeDtoToAdd.setCategory(incomeModel.getCategory().getName());
         if (incomeModel.getUser() != null) incomeDtoToAdd.setUserId(incomeModel.getUser().getId());
         return incomeDtoToAdd;
     }
@@ -0,0 +1,178 @@
+package com.example.spendsnap.service;
+
+
+import com.example.spendsnap.dto.LedgerRow;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * One user's expenses or income as parallel primitive arrays, sorted by date:
+ * epoch day (int), amount in cents (long) and a dense per-user category code (short).
+ * Immutable; a write to the ledger replaces the whole instance (see ColumnarAnalyticsService).
+ */
+public final class LedgerColumns {
+
+    // Below this many rows in range a plain loop beats the fork/join overhead
+    static final int PARALLEL_THRESHOLD = 1 << 16;
+    static final int MAX_CATEGORIES = 1 << 16;
+
+    private final int[] days;
+    private final long[] cents;
+    private final short[] codes;
+    // code -> category id; null for uncategorised rows
+    private final Integer[] categoryIds;
+    private final Map<Integer, Integer> codesByCategoryId;
+
+    private LedgerColumns(int[] days, long[] cents, short[] codes, Integer[] categoryIds) {
+        this.days = days;
+        this.cents = cents;
+        this.codes = codes;
+        this.categoryIds = categoryIds;
+        this.codesByCategoryId = new HashMap<>();
+        for (int c = 0; c < categoryIds.length; c++) {
+            if (categoryIds[c] != null) codesByCategoryId.put(categoryIds[c], c);
+        }
+    }
+
+    /** Rows must already be ordered by date. */
+    public static LedgerColumns of(List<LedgerRow> rows) {
+        int n = rows.size();
+        int[] days = new int[n];
+        long[] cents = new long[n];
+        short[] codes = new short[n];
+        Map<Integer, Integer> codeOf = new HashMap<>();
+        Integer[] ids = new Integer[16];
+        int next = 0;
+        for (int i = 0; i < n; i++) {
+            LedgerRow row = rows.get(i);
+            days[i] = Math.toIntExact(row.getDate().toEpochDay());
+            cents[i] = Math.round(row.getAmount() * 100);
+            Integer code = codeOf.get(row.getCategoryId());
+            if (code == null) {
+                if (next == MAX_CATEGORIES) {
+                    throw new IllegalStateException("More than " + MAX_CATEGORIES + " categories for one user");
+                }
+                code = next++;
+                codeOf.put(row.getCategoryId(), code);
+                if (code == ids.length) ids = Arrays.copyOf(ids, ids.length * 2);
+                ids[code] = row.getCategoryId();
+            }
+            codes[i] = (short) (int) code;
+        }
+        return new LedgerColumns(days, cents, codes, Arrays.copyOf(ids, next));
+    }
+
+    public int size() {
+        return days.length;
+    }
+
+    public int categoryCount() {
+        return categoryIds.length;
+    }
+
+    public Integer categoryId(int code) {
+        return categoryIds[code];
+    }
+
+    /** Code of a category id, or -1 if the user has no rows in it. */
+    public int code(Integer categoryId) {
+        return codesByCategoryId.getOrDefault(categoryId, -1);
+    }
+
+    // Rough retained size, used for the memory budget
+    public long estimatedBytes() {
+        return 64L + days.length * (4L + 8L + 2L) + categoryIds.length * 48L;
+    }
+
+    /** Sum in cents over [fromDay, toDay); code -1 means all categories. */
+    public long sum(int fromDay, int toDay, int code) {
+        int lo = lowerBound(fromDay);
+        int hi = lowerBound(toDay);
+        if (hi - lo >= PARALLEL_THRESHOLD) {
+            IntStream range = IntStream.range(lo, hi).parallel();
+            if (code >= 0) range = range.filter(i -> (codes[i] & 0xFFFF) == code);
+            return range.mapToLong(i -> cents[i]).sum();
+        }
+        long sum = 0;
+        if (code < 0) {
+            for (int i = lo; i < hi; i++) sum += cents[i];
+        } else {
+            for (int i = lo; i < hi; i++) {
+                if ((codes[i] & 0xFFFF) == code) sum += cents[i];
+            }
+        }
+        return sum;
+    }
+
+    /** Total, count, min and max in cents per category code over [fromDay, toDay). */
+    public Aggregates byCategory(int fromDay, int toDay) {
+        int lo = lowerBound(fromDay);
+        int hi = lowerBound(toDay);
+        int k = categoryIds.length;
+        if (hi - lo >= PARALLEL_THRESHOLD) {
+            return IntStream.range(lo, hi).parallel().collect(
+                    () -> new Aggregates(k),
+                    (acc, i) -> acc.add(codes[i] & 0xFFFF, cents[i]),
+                    Aggregates::merge);
+        }
+        Aggregates acc = new Aggregates(k);
+        for (int i = lo; i < hi; i++) acc.add(codes[i] & 0xFFFF, cents[i]);
+        return acc;
+    }
+
+    /** Cumulative cents at the end of each day of [fromDay, toDay), starting from zero at fromDay. */
+    public long[] runningTotal(int fromDay, int toDay) {
+        long[] out = new long[Math.max(0, toDay - fromDay)];
+        int hi = lowerBound(toDay);
+        for (int i = lowerBound(fromDay); i < hi; i++) out[days[i] - fromDay] += cents[i];
+        for (int d = 1; d < out.length; d++) out[d] += out[d - 1];
+        return out;
+    }
+
+    // First index whose day is >= day
+    private int lowerBound(int day) {
+        int lo = 0, hi = days.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (days[mid] < day) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    public static final class Aggregates {
+        public final long[] total;
+        public final int[] count;
+        public final long[] min;
+        public final long[] max;
+
+        Aggregates(int categories) {
+            total = new long[categories];
+            count = new int[categories];
+            min = new long[categories];
+            max = new long[categories];
+            Arrays.fill(min, Long.MAX_VALUE);
+            Arrays.fill(max, Long.MIN_VALUE);
+        }
+
+        void add(int code, long value) {
+            total[code] += value;
+            count[code]++;
+            if (value < min[code]) min[code] = value;
+            if (value > max[code]) max[code] = value;
+        }
+
+        void merge(Aggregates other) {
+            for (int c = 0; c < total.length; c++) {
+                total[c] += other.total[c];
+                count[c] += other.count[c];
+                min[c] = Math.min(min[c], other.min[c]);
+                max[c] = Math.max(max[c], other.max[c]);
+            }
+        }
+    }
+}
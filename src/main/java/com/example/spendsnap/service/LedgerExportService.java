@@ -0,0 +1,95 @@
+package com.example.spendsnap.service;
+
+
+import com.example.spendsnap.config.Workload;
+import com.example.spendsnap.config.WorkloadClass;
+import com.example.spendsnap.dao.ExpensesDao;
+import com.example.spendsnap.dao.IncomeDao;
+import com.example.spendsnap.dto.ExpenseDto;
+import com.example.spendsnap.dto.IncomeDto;
+import com.example.spendsnap.model.Expenses;
+import com.example.spendsnap.model.IncomeModel;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Full-ledger exports (/expenses/export, /income/export) written as a JSON or CBOR array while the rows
+ * are read: keyset batches over the (user_id, change_seq) index, each serialized and dropped from the
+ * persistence context before the next, so memory stays at one batch however long the ledger is.
+ * One read-only transaction keeps the batches on a single snapshot.
+ */
+@Service
+public class LedgerExportService {
+
+    static final int BATCH_SIZE = 1000;
+
+    private final ExpensesDao expensesDao;
+    private final IncomeDao incomeDao;
+    private final EntityManager entityManager;
+    private final ObjectMapper jsonMapper;
+    private final ObjectMapper cborMapper;
+
+    public LedgerExportService(ExpensesDao expensesDao,
+                               IncomeDao incomeDao,
+                               EntityManager entityManager,
+                               ObjectMapper jsonMapper,
+                               MappingJackson2CborHttpMessageConverter cborConverter) {
+        this.expensesDao = expensesDao;
+        this.incomeDao = incomeDao;
+        this.entityManager = entityManager;
+        this.jsonMapper = jsonMapper;
+        this.cborMapper = cborConverter.getObjectMapper();
+    }
+
+    @Workload(WorkloadClass.REPORTING)
+    @Transactional(readOnly = true)
+    public void exportExpenses(Integer userId, MediaType format, OutputStream out) throws IOException {
+        try (SequenceWriter writer = writer(format, ExpenseDto.class).writeValuesAsArray(out)) {
+            long after = -1;
+            List<Expenses> batch;
+            do {
+                batch = expensesDao.findByUser_IdAndChangeSeqBetweenOrderByChangeSeq(userId, after + 1, Long.MAX_VALUE, Limit.of(BATCH_SIZE));
+                for (Expenses e : batch) writer.write(ExpensesService.toDto(e));
+                if (!batch.isEmpty()) after = batch.getLast().getChangeSeq();
+                entityManager.clear();
+            } while (batch.size() == BATCH_SIZE);
+        }
+    }
+
+    @Workload(WorkloadClass.REPORTING)
+    @Transactional(readOnly = true)
+    public void exportIncome(Integer userId, MediaType format, OutputStream out) throws IOException {
+        try (SequenceWriter writer = writer(format, IncomeDto.class).writeValuesAsArray(out)) {
+            long after = -1;
+            List<IncomeModel> batch;
+            do {
+                batch = incomeDao.findByUser_IdAndChangeSeqBetweenOrderByChangeSeq(userId, after + 1, Long.MAX_VALUE, Limit.of(BATCH_SIZE));
+                for (IncomeModel i : batch) {
+                    IncomeDto dto = IncomeService.toDo(i);
+                    dto.setId(i.getId());
+                    writer.write(dto);
+                }
+                if (!batch.isEmpty()) after = batch.getLast().getChangeSeq();
+                entityManager.clear();
+            } while (batch.size() == BATCH_SIZE);
+        }
+    }
+
+    // Jackson flushes after every value by default; here the servlet buffer decides when bytes go out
+    private ObjectWriter writer(MediaType format, Class<?> type) {
+        ObjectMapper mapper = MediaType.APPLICATION_CBOR.isCompatibleWith(format) ? cborMapper : jsonMapper;
+        return mapper.writerFor(type).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.spendsnap.service;
+
+
+import com.example.spendsnap.dao.LedgerSpecifications;
+import com.example.spendsnap.dto.KeysetPageDto;
+import com.example.spendsnap.dto.LedgerSearchRequest;
+import com.example.spendsnap.model.LedgerEntry;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+
+import java.util.List;
+import java.util.function.Function;
+
+// Shared by ExpensesService.search and IncomeService.search
+final class LedgerSearch {
+
+    private LedgerSearch() {
+    }
+
+    static <T extends LedgerEntry, D> KeysetPageDto<D> page(JpaSpecificationExecutor<T> dao,
+                                                           CategoryService categoryService,
+                                                           Integer userId,
+                                                           LedgerSearchRequest request,
+                                                           Function<T, D> mapper) {
+        int limit = request.getLimit();
+        if (limit < 1 || limit > LedgerSearchRequest.MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + LedgerSearchRequest.MAX_LIMIT);
+        }
+        if (request.getFrom() != null && request.getTo() != null && request.getTo().isBefore(request.getFrom())) {
+            throw new IllegalArgumentException("'from' must be on or before 'to'");
+        }
+        if (request.getMinAmount() != null && request.getMaxAmount() != null && request.getMaxAmount() < request.getMinAmount()) {
+            throw new IllegalArgumentException("'minAmount' must not exceed 'maxAmount'");
+        }
+        List<Integer> categoryIds = null;
+        if (request.getCategory() != null && !request.getCategory().isEmpty()) {
+            categoryIds = categoryService.findIds(userId, request.getCategory());
+            // None of the named categories exist, so nothing can match
+            if (categoryIds.isEmpty()) return new KeysetPageDto<>(List.of(), null);
+        }
+
+        // One row past the limit tells whether there is a next page without a COUNT query
+        List<T> rows = dao.findBy(LedgerSpecifications.<T>matching(userId, request, categoryIds), q -> q
+                .project("category")
+                .sortBy(LedgerSpecifications.sort(request.getSort(), request.getDirection()))
+                .limit(limit + 1)
+                .all());
+        boolean more = rows.size() > limit;
+        if (more) rows = rows.subList(0, limit);
+        String next = more ? LedgerSpecifications.cursorAfter(rows.get(limit - 1), request.getSort()) : null;
+        return new KeysetPageDto<>(rows.stream().map(mapper).toList(), next);
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.spendsnap.service;
+
+
+import com.example.spendsnap.config.Workload;
+import com.example.spendsnap.config.WorkloadClass;
+import com.example.spendsnap.dao.NetWorthDao;
+import com.example.spendsnap.dto.NetWorthSeriesDto;
+import com.example.spendsnap.dto.NetWorthTotals;
+import com.example.spendsnap.model.NetWorthDay;
+import com.example.spendsnap.model.TimeBucket;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Maintains net_worth_daily as income, expenses and saving-account operations happen
+ * (one upsert each, in the caller's transaction) and serves cumulative series from it.
+ * Net worth = income - expenses (cash) + saving-account balances (savings).
+ */
+@Service
+@RequiredArgsConstructor
+public class NetWorthService {
+
+    private final NetWorthDao netWorthDao;
+
+    // One stored amount; a negative one undoes it (deletes)
+    public void income(Integer userId, LocalDate day, Double amount) {
+        if (amount != null) add(userId, day, cents(amount), 0);
+    }
+
+    public void expense(Integer userId, LocalDate day, Double amount) {
+        if (amount != null) add(userId, day, -cents(amount), 0);
+    }
+
+    // Several stored amounts on one day (a batch of recurring occurrences), each rounded on its own
+    public void income(Integer userId, LocalDate day, Collection<Double> amounts) {
+        add(userId, day, cents(amounts), 0);
+    }
+
+    public void expense(Integer userId, LocalDate day, Collection<Double> amounts) {
+        add(userId, day, -cents(amounts), 0);
+    }
+
+    /** An edited amount. Both amounts are rounded before subtracting, so the delta matches a rebuild. */
+    public void incomeChanged(Integer userId, LocalDate day, Double previous, Double current) {
+        add(userId, day, cents(current) - cents(previous), 0);
+    }
+
+    public void expenseChanged(Integer userId, LocalDate day, Double previous, Double current) {
+        add(userId, day, cents(previous) - cents(current), 0);
+    }
+
+    /**
+     * Change in saving-account balances today (opening balance, deposit, withdrawal, interest).
+     * Savings are counted at their balance, like the rebuild does; transfers between accounts don't count.
+     */
+    public void savings(Integer userId, BigDecimal amount) {
+        if (amount != null) add(userId, LocalDate.now(), 0, cents(amount));
+    }
+
+    private void add(Integer userId, LocalDate day, long cashCents, long savingsCents) {
+        if (userId == null || day == null || (cashCents == 0 && savingsCents == 0)) return;
+        netWorthDao.addDelta(userId, day, cashCents, savingsCents);
+    }
+
+    /** Recomputes the user's series from income, expenses and current saving balances. */
+    @Transactional
+    public void rebuild(Integer userId) {
+        netWorthDao.deleteByUser(userId);
+        netWorthDao.rebuildUser(userId);
+    }
+
+    /** Net worth (and its cash/savings parts) at the end of each bucket of [from, to]. */
+    @Workload(WorkloadClass.REPORTING)
+    public NetWorthSeriesDto series(Integer userId, LocalDate from, LocalDate to, TimeBucket granularity) {
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new IllegalArgumentException("'from' must be on or before 'to'");
+        }
+        if (ChronoUnit.DAYS.between(from, to) > AnalyticsService.MAX_RANGE_DAYS) {
+            throw new IllegalArgumentException("Date range must not exceed " + AnalyticsService.MAX_RANGE_DAYS + " days");
+        }
+        TimeBucket bucket = granularity != null ? granularity : TimeBucket.DAY;
+
+        NetWorthTotals opening = netWorthDao.sumBefore(userId, from);
+        long cash = opening.getCash();
+        long savings = opening.getSavings();
+        Iterator<NetWorthDay> deltas = netWorthDao.findByUserIdAndDayBetweenOrderByDay(userId, from, to).iterator();
+        NetWorthDay next = deltas.hasNext() ? deltas.next() : null;
+
+        List<LocalDate> dates = new ArrayList<>();
+        List<long[]> points = new ArrayList<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            while (next != null && next.getDay().equals(day)) {
+                cash += next.getCashDeltaCents();
+                savings += next.getSavingsDeltaCents();
+                next = deltas.hasNext() ? deltas.next() : null;
+            }
+            if (day.equals(to) || !bucketStart(day.plusDays(1), bucket, from).equals(bucketStart(day, bucket, from))) {
+                dates.add(day);
+                points.add(new long[]{cash, savings});
+            }
+        }
+
+        int n = points.size();
+        double[] net = new double[n];
+        double[] cashOut = new double[n];
+        double[] savingsOut = new double[n];
+        for (int i = 0; i < n; i++) {
+            long[] p = points.get(i);
+            cashOut[i] = p[0] / 100.0;
+            savingsOut[i] = p[1] / 100.0;
+            net[i] = (p[0] + p[1]) / 100.0;
+        }
+        return new NetWorthSeriesDto(from, to, bucket, dates.toArray(new LocalDate[0]), net, cashOut, savingsOut);
+    }
+
+    private static LocalDate bucketStart(LocalDate day, TimeBucket bucket, LocalDate from) {
+        return switch (bucket) {
+            case NONE -> from;
+            case DAY -> day;
+            case WEEK -> day.with(DayOfWeek.MONDAY);
+            case MONTH -> day.withDayOfMonth(1);
+            case QUARTER -> day.withDayOfMonth(1).withMonth((day.getMonthValue() - 1) / 3 * 3 + 1);
+        };
+    }
+
+    // Half away from zero, like MySQL's ROUND on the DECIMAL the rebuild casts to, so cents(-x) == -cents(x)
+    private static long cents(Double amount) {
+        return amount != null ? cents(BigDecimal.valueOf(amount)) : 0;
+    }
+
+    private static long cents(Collection<Double> amounts) {
+        long total = 0;
+        for (Double amount : amounts) total += cents(amount);
+        return total;
+    }
+
+    private static long cents(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.spendsnap.service;
+
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Mergeable quantile sketch with relative-error guarantees (DDSketch-style).
+ * Positive values fall into logarithmic buckets of ratio gamma = (1 + a) / (1 - a), so any quantile
+ * is returned within {@link #RELATIVE_ACCURACY} of the true value. Bucket counts are exact, which
+ * makes merging a plain sum and lets single values be removed again (edits, deletes).
+ */
+public final class QuantileSketch {
+
+    public static final double RELATIVE_ACCURACY = 0.01;
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    private static final byte FORMAT_VERSION = 1;
+
+    private final TreeMap<Integer, Long> buckets = new TreeMap<>();
+    // Values <= 0 can't be log-bucketed; kept as a separate count that sorts first
+    private long zeroCount;
+    private long count;
+
+    public long count() {
+        return count;
+    }
+
+    public void add(double value) {
+        if (value <= 0) {
+            zeroCount++;
+        } else {
+            buckets.merge(index(value), 1L, Long::sum);
+        }
+        count++;
+    }
+
+    /** Removes one occurrence of a value previously added; ignored if it isn't there. */
+    public void remove(double value) {
+        if (value <= 0) {
+            if (zeroCount == 0) return;
+            zeroCount--;
+        } else {
+            int index = index(value);
+            Long c = buckets.get(index);
+            if (c == null) return;
+            if (c == 1) buckets.remove(index);
+            else buckets.put(index, c - 1);
+        }
+        count--;
+    }
+
+    public void merge(QuantileSketch other) {
+        for (Map.Entry<Integer, Long> e : other.buckets.entrySet()) {
+            buckets.merge(e.getKey(), e.getValue(), Long::sum);
+        }
+        zeroCount += other.zeroCount;
+        count += other.count;
+    }
+
+    /** Value at quantile q (0..1), or null if the sketch is empty. */
+    public Double quantile(double q) {
+        if (q < 0 || q > 1) throw new IllegalArgumentException("Quantile must be between 0 and 1");
+        if (count == 0) return null;
+        long rank = (long) Math.floor(q * (count - 1));
+        if (rank < zeroCount) return 0.0;
+        long seen = zeroCount;
+        for (Map.Entry<Integer, Long> e : buckets.entrySet()) {
+            seen += e.getValue();
+            if (seen > rank) return value(e.getKey());
+        }
+        return value(buckets.lastKey());
+    }
+
+    // Layout: version, zeroCount, bucketCount, then per bucket zig-zag delta of the index and its count (all varints)
+    public byte[] toBytes() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8 + buckets.size() * 3);
+        out.write(FORMAT_VERSION);
+        writeVarLong(out, zeroCount);
+        writeVarLong(out, buckets.size());
+        int previous = 0;
+        for (Map.Entry<Integer, Long> e : buckets.entrySet()) {
+            int delta = e.getKey() - previous;
+            writeVarLong(out, ((delta << 1) ^ (delta >> 31)) & 0xFFFFFFFFL);
+            writeVarLong(out, e.getValue());
+            previous = e.getKey();
+        }
+        return out.toByteArray();
+    }
+
+    public static QuantileSketch fromBytes(byte[] bytes) {
+        QuantileSketch sketch = new QuantileSketch();
+        if (bytes == null || bytes.length == 0) return sketch;
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        byte version = in.get();
+        if (version != FORMAT_VERSION) {
+            throw new IllegalStateException("Unsupported sketch format " + version);
+        }
+        sketch.zeroCount = readVarLong(in);
+        sketch.count = sketch.zeroCount;
+        long n = readVarLong(in);
+        int index = 0;
+        for (long i = 0; i < n; i++) {
+            int zigzag = (int) readVarLong(in);
+            index += (zigzag >>> 1) ^ -(zigzag & 1);
+            long c = readVarLong(in);
+            sketch.buckets.put(index, c);
+            sketch.count += c;
+        }
+        return sketch;
+    }
+
+    private static int index(double value) {
+        return (int) Math.ceil(Math.log(value) / LOG_GAMMA);
+    }
+
+    // Midpoint of bucket (gamma^(i-1), gamma^i] in the relative-error sense
+    private static double value(int index) {
+        return 2 * Math.pow(GAMMA, index) / (GAMMA + 1);
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long v) {
+        while ((v & ~0x7FL) != 0) {
+            out.write((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.write((int) v);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long v = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+    }
+}
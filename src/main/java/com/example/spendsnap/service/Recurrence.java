@@ -0,0 +1,94 @@
+package com.example.spendsnap.service;
+
+
+import com.example.spendsnap.model.RecurrenceFrequency;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+
+/**
+ * Subset of iCalendar RRULE used by recurring rules: FREQ=DAILY|WEEKLY|MONTHLY|YEARLY with optional
+ * INTERVAL, COUNT and UNTIL, e.g. "FREQ=MONTHLY;INTERVAL=3;UNTIL=20261231".
+ * Occurrence k is always computed from the start date, so "monthly from the 31st" gives the last day
+ * of shorter months without drifting to the 28th afterwards.
+ */
+record Recurrence(RecurrenceFrequency frequency, int interval, Integer count, LocalDate until) {
+
+    static final int MAX_INTERVAL = 1000;
+
+    static Recurrence parse(String rrule) {
+        if (rrule == null || rrule.isBlank()) throw new IllegalArgumentException("Recurrence rule must not be blank");
+        String body = rrule.trim();
+        if (body.regionMatches(true, 0, "RRULE:", 0, 6)) body = body.substring(6);
+
+        RecurrenceFrequency frequency = null;
+        int interval = 1;
+        Integer count = null;
+        LocalDate until = null;
+        for (String part : body.split(";")) {
+            if (part.isBlank()) continue;
+            int eq = part.indexOf('=');
+            if (eq < 0) throw new IllegalArgumentException("Invalid recurrence rule part '" + part + "'");
+            String name = part.substring(0, eq).trim().toUpperCase(Locale.ROOT);
+            String value = part.substring(eq + 1).trim();
+            try {
+                switch (name) {
+                    case "FREQ" -> frequency = RecurrenceFrequency.valueOf(value.toUpperCase(Locale.ROOT));
+                    case "INTERVAL" -> interval = Integer.parseInt(value);
+                    case "COUNT" -> count = Integer.parseInt(value);
+                    case "UNTIL" -> until = parseDate(value);
+                    default -> throw new IllegalArgumentException("Unsupported recurrence rule part '" + name + "'");
+                }
+            } catch (NumberFormatException | DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid value for " + name + ": '" + value + "'");
+            }
+        }
+        if (frequency == null) throw new IllegalArgumentException("Recurrence rule needs FREQ");
+        if (interval < 1 || interval > MAX_INTERVAL) throw new IllegalArgumentException("INTERVAL must be between 1 and " + MAX_INTERVAL);
+        if (count != null && count < 1) throw new IllegalArgumentException("COUNT must be at least 1");
+        if (count != null && until != null) throw new IllegalArgumentException("Use either COUNT or UNTIL");
+        return new Recurrence(frequency, interval, count, until);
+    }
+
+    /** Last occurrence date (inclusive) for a rule starting at start, or null if it never ends. */
+    LocalDate endDate(LocalDate start) {
+        if (count != null) return occurrence(start, frequency, interval, count - 1L);
+        return until;
+    }
+
+    static String format(RecurrenceFrequency frequency, int interval) {
+        return "FREQ=" + frequency + ";INTERVAL=" + interval;
+    }
+
+    static LocalDate occurrence(LocalDate start, RecurrenceFrequency frequency, int interval, long k) {
+        long steps = k * interval;
+        return switch (frequency) {
+            case DAILY -> start.plusDays(steps);
+            case WEEKLY -> start.plusWeeks(steps);
+            case MONTHLY -> start.plusMonths(steps);
+            case YEARLY -> start.plusYears(steps);
+        };
+    }
+
+    /** Index of the first occurrence on or after date. */
+    static long indexOnOrAfter(LocalDate start, RecurrenceFrequency frequency, int interval, LocalDate date) {
+        if (!date.isAfter(start)) return 0;
+        ChronoUnit unit = switch (frequency) {
+            case DAILY -> ChronoUnit.DAYS;
+            case WEEKLY -> ChronoUnit.WEEKS;
+            case MONTHLY -> ChronoUnit.MONTHS;
+            case YEARLY -> ChronoUnit.YEARS;
+        };
+        long k = unit.between(start, date) / interval;
+        while (occurrence(start, frequency, interval, k).isBefore(date)) k++;
+        return k;
+    }
+
+    private static LocalDate parseDate(String value) {
+        String date = value.length() > 8 && value.charAt(8) == 'T' ? value.substring(0, 8) : value;
+        return date.contains("-") ? LocalDate.parse(date) : LocalDate.parse(date, DateTimeFormatter.BASIC_ISO_DATE);
+    }
+}
@@ -0,0 +1,325 @@
+package com.example.spendsnap.service;
+
+
+import com.example.spendsnap.config.Workload;
+import com.example.spendsnap.config.WorkloadClass;
+import com.example.spendsnap.dao.CategoryDao;
+import com.example.spendsnap.dao.RecurringRuleDao;
+import com.example.spendsnap.dto.RecurringRuleDto;
+import com.example.spendsnap.dto.RecurringRunDto;
+import com.example.spendsnap.event.LedgerChangedEvent;
+import com.example.spendsnap.model.Category;
+import com.example.spendsnap.model.LedgerType;
+import com.example.spendsnap.model.RecurringRule;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.crossstore.ChangeSetPersister;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Recurring expenses/income. A scheduled pass walks all due rules in (next_run, id) keyset order,
+ * batch-size rules per transaction: the due occurrences of the batch are written with multi-row
+ * INSERT IGNOREs (the (recurring_rule_id, occurrence_date) unique key makes re-runs harmless), the rules'
+ * next_run is advanced and the derived state the write paths normally maintain is updated once per batch.
+ */
+@Slf4j
+@Service
+public class RecurringRuleService {
+
+    // Occurrences written per rule and batch. A rule further behind is usually picked up again later in the
+    // same pass (its advanced next_run sorts after the keyset position); if not, the next pass continues it
+    static final int MAX_CATCH_UP = 366;
+    // Rows per INSERT / keyed SELECT statement; keeps the bind parameters well under MySQL's 65535
+    private static final int ROWS_PER_STATEMENT = 1000;
+    private static final LocalDate BEFORE_ALL = LocalDate.of(1, 1, 1);
+
+    private final RecurringRuleDao ruleDao;
+    private final CategoryDao categoryDao;
+    private final CategoryService categoryService;
+    private final UserService userService;
+    private final ColumnarAnalyticsService columnarAnalytics;
+    private final SpendingSketchService spendingSketches;
+    private final AnomalyService anomalyService;
+    private final NetWorthService netWorthService;
+    private final DescriptionSearchService descriptionSearch;
+    private final BudgetService budgetService;
+    private final SyncService syncService;
+    private final ApplicationEventPublisher events;
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public RecurringRuleService(RecurringRuleDao ruleDao,
+                                CategoryDao categoryDao,
+                                CategoryService categoryService,
+                                UserService userService,
+                                ColumnarAnalyticsService columnarAnalytics,
+                                SpendingSketchService spendingSketches,
+                                AnomalyService anomalyService,
+                                NetWorthService netWorthService,
+                                DescriptionSearchService descriptionSearch,
+                                BudgetService budgetService,
+                                SyncService syncService,
+                                ApplicationEventPublisher events,
+                                JdbcTemplate jdbc,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${spendsnap.recurring.batch-size:500}") int batchSize) {
+        this.ruleDao = ruleDao;
+        this.categoryDao = categoryDao;
+        this.categoryService = categoryService;
+        this.userService = userService;
+        this.columnarAnalytics = columnarAnalytics;
+        this.spendingSketches = spendingSketches;
+        this.anomalyService = anomalyService;
+        this.netWorthService = netWorthService;
+        this.descriptionSearch = descriptionSearch;
+        this.budgetService = budgetService;
+        this.syncService = syncService;
+        this.events = events;
+        this.jdbc = jdbc;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /** Creates a rule; occurrences up to today are written by the next pass. */
+    @Transactional
+    public RecurringRuleDto create(Integer userId, RecurringRuleDto dto) {
+        if (dto.getType() == null) throw new IllegalArgumentException("'type' is required");
+        if (dto.getAmount() == null || dto.getAmount() <= 0) throw new IllegalArgumentException("'amount' must be positive");
+        if (dto.getStartDate() == null) throw new IllegalArgumentException("'startDate' is required");
+        Recurrence recurrence = Recurrence.parse(dto.getRule());
+        LocalDate end = recurrence.endDate(dto.getStartDate());
+        if (end != null && end.isBefore(dto.getStartDate())) throw new IllegalArgumentException("Rule ends before it starts");
+
+        userService.findUserById(userId);
+        RecurringRule rule = new RecurringRule(
+                null,
+                userId,
+                dto.getType(),
+                dto.getAmount(),
+                dto.getDescription(),
+                categoryService.resolveId(userId, dto.getCategory()),
+                recurrence.frequency(),
+                recurrence.interval(),
+                dto.getStartDate(),
+                end,
+                dto.getStartDate()
+        );
+        return toDto(ruleDao.save(rule), dto.getCategory());
+    }
+
+    public List<RecurringRuleDto> list(Integer userId) {
+        List<RecurringRule> rules = ruleDao.findByUserIdOrderById(userId);
+        Set<Integer> categoryIds = new HashSet<>();
+        for (RecurringRule rule : rules) if (rule.getCategoryId() != null) categoryIds.add(rule.getCategoryId());
+        Map<Integer, String> names = new HashMap<>();
+        for (Category category : categoryDao.findAllById(categoryIds)) names.put(category.getId(), category.getName());
+        return rules.stream().map(rule -> toDto(rule, names.get(rule.getCategoryId()))).toList();
+    }
+
+    /** Deletes the rule; rows it already generated stay (their recurring_rule_id becomes null). */
+    @Transactional
+    public void delete(Integer userId, Long id) throws ChangeSetPersister.NotFoundException {
+        RecurringRule rule = ruleDao.findByIdAndUserId(id, userId).orElseThrow(ChangeSetPersister.NotFoundException::new);
+        ruleDao.delete(rule);
+    }
+
+    @Scheduled(cron = "${spendsnap.recurring.cron:0 5 0 * * *}")
+    @Workload(WorkloadClass.REPORTING)
+    public void scheduledRun() {
+        materializeDue(LocalDate.now());
+    }
+
+    /** Writes every occurrence due on or before today, for all users. */
+    @Workload(WorkloadClass.REPORTING)
+    public RecurringRunDto materializeDue(LocalDate today) {
+        long start = System.currentTimeMillis();
+        LocalDate lastRun = BEFORE_ALL;
+        long lastId = 0;
+        int rules = 0;
+        int inserted = 0;
+        while (true) {
+            LocalDate afterRun = lastRun;
+            long afterId = lastId;
+            BatchResult batch = transactionTemplate.execute(status -> runBatch(today, afterRun, afterId));
+            if (batch == null || batch.rules() == 0) break;
+            rules += batch.rules();
+            inserted += batch.inserted();
+            lastRun = batch.lastRun();
+            lastId = batch.lastId();
+        }
+        long millis = System.currentTimeMillis() - start;
+        log.info("Materialized {} recurring occurrences from {} rules in {} ms", inserted, rules, millis);
+        return new RecurringRunDto(rules, inserted, millis);
+    }
+
+    private BatchResult runBatch(LocalDate today, LocalDate lastRun, long lastId) {
+        List<RecurringRule> due = ruleDao.lockDueAfter(today, lastRun, lastId, PageRequest.of(0, batchSize));
+        if (due.isEmpty()) return new BatchResult(0, 0, lastRun, lastId);
+        // Keyset position is where the rule was, not where it moves to
+        RecurringRule last = due.get(due.size() - 1);
+        LocalDate batchLastRun = last.getNextRun();
+        long batchLastId = last.getId();
+
+        Map<LedgerType, List<Occurrence>> byType = new HashMap<>();
+        for (RecurringRule rule : due) {
+            long k = Recurrence.indexOnOrAfter(rule.getStartDate(), rule.getFrequency(), rule.getIntervalCount(), rule.getNextRun());
+            LocalDate date = Recurrence.occurrence(rule.getStartDate(), rule.getFrequency(), rule.getIntervalCount(), k);
+            int written = 0;
+            while (!date.isAfter(today) && (rule.getEndDate() == null || !date.isAfter(rule.getEndDate()))
+                    && written < MAX_CATCH_UP) {
+                byType.computeIfAbsent(rule.getLedgerType(), t -> new ArrayList<>()).add(new Occurrence(rule, date));
+                written++;
+                date = Recurrence.occurrence(rule.getStartDate(), rule.getFrequency(), rule.getIntervalCount(), ++k);
+            }
+            boolean ended = rule.getEndDate() != null && date.isAfter(rule.getEndDate());
+            rule.setNextRun(ended ? null : date);
+        }
+
+        // One block of change numbers per user, taken in user id order so concurrent batches can't deadlock
+        Map<Integer, Integer> perUser = new TreeMap<>();
+        for (List<Occurrence> list : byType.values()) {
+            for (Occurrence o : list) perUser.merge(o.rule().getUserId(), 1, Integer::sum);
+        }
+        Map<Integer, Long> nextSeq = new HashMap<>();
+        perUser.forEach((userId, count) -> nextSeq.put(userId, syncService.reserve(userId, count)));
+
+        int inserted = 0;
+        for (Map.Entry<LedgerType, List<Occurrence>> e : byType.entrySet()) {
+            inserted += insert(e.getKey(), e.getValue(), nextSeq);
+        }
+        return new BatchResult(due.size(), inserted, batchLastRun, batchLastId);
+    }
+
+    private int insert(LedgerType type, List<Occurrence> occurrences, Map<Integer, Long> nextSeq) {
+        String table = type == LedgerType.INCOME ? "income_model" : "expenses";
+        Map<Occurrence.Key, Long> assigned = new HashMap<>();
+        for (Occurrence o : occurrences) {
+            assigned.put(o.key(), nextSeq.merge(o.rule().getUserId(), 1L, Long::sum) - 1);
+        }
+        Map<Occurrence.Key, Inserted> fresh = new HashMap<>();
+        for (int from = 0; from < occurrences.size(); from += ROWS_PER_STATEMENT) {
+            List<Occurrence> chunk = occurrences.subList(from, Math.min(from + ROWS_PER_STATEMENT, occurrences.size()));
+            List<Object> args = new ArrayList<>(chunk.size() * 8);
+            for (Occurrence o : chunk) {
+                RecurringRule r = o.rule();
+                args.add(r.getAmount());
+                args.add(r.getDescription());
+                args.add(Date.valueOf(o.date()));
+                args.add(r.getCategoryId());
+                args.add(r.getUserId());
+                args.add(r.getId());
+                args.add(Date.valueOf(o.date()));
+                args.add(assigned.get(o.key()));
+            }
+            int written = jdbc.update("INSERT IGNORE INTO " + table +
+                    " (amount, description, date, category_id, user_id, recurring_rule_id, occurrence_date, change_seq) VALUES " +
+                    rows(chunk.size(), "(?, ?, ?, ?, ?, ?, ?, ?)"), args.toArray());
+            if (written > 0) findFresh(table, chunk, assigned, fresh);
+        }
+        // Rows that were already there came from an earlier or concurrent run; their derived state was applied then
+        List<Occurrence> applied = occurrences.stream().filter(o -> fresh.containsKey(o.key())).toList();
+        if (!applied.isEmpty()) applyDerived(type, applied, fresh);
+        return applied.size();
+    }
+
+    // Keyed read-back of the chunk: a row is this run's when it holds the change number assigned here
+    private void findFresh(String table, List<Occurrence> chunk, Map<Occurrence.Key, Long> assigned,
+                           Map<Occurrence.Key, Inserted> fresh) {
+        List<Object> args = new ArrayList<>(chunk.size() * 2);
+        for (Occurrence o : chunk) {
+            args.add(o.rule().getId());
+            args.add(Date.valueOf(o.date()));
+        }
+        jdbc.query("SELECT id, recurring_rule_id, occurrence_date, change_seq FROM " + table +
+                        " WHERE (recurring_rule_id, occurrence_date) IN (" + rows(chunk.size(), "(?, ?)") + ")",
+                rs -> {
+                    Occurrence.Key key = new Occurrence.Key(rs.getLong(2), rs.getDate(3).toLocalDate());
+                    if (rs.getLong(4) == assigned.get(key)) fresh.put(key, new Inserted(rs.getInt(1), rs.getLong(4)));
+                }, args.toArray());
+    }
+
+    private static String rows(int count, String row) {
+        return String.join(", ", Collections.nCopies(count, row));
+    }
+
+    // What ExpensesService/IncomeService do per row on add, aggregated per batch where possible
+    private void applyDerived(LedgerType type, List<Occurrence> fresh, Map<Occurrence.Key, Inserted> ids) {
+        Map<NetWorthKey, List<Double>> netWorth = new HashMap<>();
+        Map<SketchKey, List<Double>> sketches = new HashMap<>();
+        Set<Integer> users = new HashSet<>();
+        for (Occurrence o : fresh) {
+            RecurringRule r = o.rule();
+            users.add(r.getUserId());
+            netWorth.computeIfAbsent(new NetWorthKey(r.getUserId(), o.date()), key -> new ArrayList<>()).add(r.getAmount());
+            Inserted row = ids.get(o.key());
+            descriptionSearch.added(r.getUserId(), type, row.id(), r.getDescription(), row.seq());
+            // Published inside the batch transaction so EventRelay puts it in the outbox before commit
+            events.publishEvent(new LedgerChangedEvent(r.getUserId(), type, row.id(), LedgerChangedEvent.Action.CREATED, row.seq()));
+            if (type == LedgerType.EXPENSES) {
+                sketches.computeIfAbsent(new SketchKey(r.getUserId(), r.getCategoryId(), o.date().withDayOfMonth(1)),
+                        key -> new ArrayList<>()).add(r.getAmount());
+                // Folded into the statistics but not scored: a scheduled amount isn't an anomaly
+                anomalyService.add(r.getUserId(), r.getCategoryId(), r.getAmount());
+            }
+        }
+        for (Map.Entry<SketchKey, List<Double>> e : sketches.entrySet()) {
+            spendingSketches.addAll(e.getKey().userId(), e.getKey().categoryId(), e.getKey().month(), e.getValue());
+            budgetService.expense(e.getKey().userId(), e.getKey().categoryId(), e.getKey().month(),
+                    e.getValue().stream().mapToDouble(Double::doubleValue).sum());
+        }
+        for (Map.Entry<NetWorthKey, List<Double>> e : netWorth.entrySet()) {
+            if (type == LedgerType.INCOME) netWorthService.income(e.getKey().userId(), e.getKey().day(), e.getValue());
+            else netWorthService.expense(e.getKey().userId(), e.getKey().day(), e.getValue());
+        }
+        for (Integer userId : users) columnarAnalytics.invalidate(userId, type);
+    }
+
+    private static RecurringRuleDto toDto(RecurringRule rule, String category) {
+        return new RecurringRuleDto(
+                rule.getId(),
+                rule.getLedgerType(),
+                rule.getAmount(),
+                rule.getDescription(),
+                category,
+                Recurrence.format(rule.getFrequency(), rule.getIntervalCount()),
+                rule.getStartDate(),
+                rule.getEndDate(),
+                rule.getNextRun()
+        );
+    }
+
+    private record Occurrence(RecurringRule rule, LocalDate date) {
+        record Key(long ruleId, LocalDate date) {}
+
+        Key key() {
+            return new Key(rule.getId(), date);
+        }
+    }
+
+    private record Inserted(int id, long seq) {}
+
+    private record NetWorthKey(Integer userId, LocalDate day) {}
+
+    private record SketchKey(Integer userId, Integer categoryId, LocalDate month) {}
+
+    private record BatchResult(int rules, int inserted, LocalDate lastRun, long lastId) {}
+}
@@ -1,12 +1,17 @@
 package com.example.spendsnap.service;
 
+import com.example.spendsnap.config.ETags;
 import com.example.spendsnap.dao.SavingAccountDao;
 import com.example.spendsnap.dao.UserDao;
+import com.example.spendsnap.dto.ByIdResultDto;
 import com.example.spendsnap.dto.SavingAccountDto;
+import com.example.spendsnap.event.BalanceChangedEvent;
 import com.example.spendsnap.exceptions.ConflictException;
+import com.example.spendsnap.exceptions.PreconditionFailedException;
 import com.example.spendsnap.model.*;
 import lombok.RequiredArgsConstructor;
 import org.jetbrains.annotations.Nullable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.crossstore.ChangeSetPersister;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -16,7 +21,9 @@ import java.math.RoundingMode;
 import java.time.OffsetDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -25,6 +32,27 @@ public class SavingAccountService {
 
     private final UserDao userDao;
     private final SavingAccountDao savingAccountDao;
+    private final NetWorthService netWorthService;
+    private final SyncService syncService;
+    private final ApplicationEventPublisher events;
+    private final SparseFieldsQuery sparseFields;
+
+    // SavingAccountDto fields available to ?fields=
+    public static final List<SparseFieldsQuery.Field> FIELDS = List.of(
+            new SparseFieldsQuery.Field("id", "id"),
+            new SparseFieldsQuery.Field("userId", "user.id"),
+            new SparseFieldsQuery.Field("name", "name"),
+            new SparseFieldsQuery.Field("currency", "currency"),
+            new SparseFieldsQuery.Field("status", "status"),
+            new SparseFieldsQuery.Field("opening_balance", "opening_balance"),
+            new SparseFieldsQuery.Field("interestApr", "interestApr"),
+            new SparseFieldsQuery.Field("compounding", "compounding"),
+            new SparseFieldsQuery.Field("last_interest_posted_at", "last_interest_posted_at"),
+            new SparseFieldsQuery.Field("notes", "notes"),
+            new SparseFieldsQuery.Field("created_at", "created_at"),
+            new SparseFieldsQuery.Field("day_count_conversion", "day_count_conversion"),
+            new SparseFieldsQuery.Field("updated_at", "updated_at"),
+            new SparseFieldsQuery.Field("version", "version"));
 
     @Transactional
     public SavingAccountDto createSavingAccount(SavingAccountDto dto)
@@ -59,9 +87,11 @@ public class SavingAccountService {
         // 4) Server-managed timestamps
         e.setCreated_at(OffsetDateTime.now());
         e.setUpdated_at(OffsetDateTime.now());
+        e.setChangeSeq(syncService.next(userId));
 
         // 5) Persist & return DTO
         Saving_Account saved = savingAccountDao.save(e);
+        netWorthService.savings(userId, BigDecimal.valueOf(saved.getOpening_balance()));
         return toDto(saved);
     }
 
@@ -131,10 +161,15 @@ public class SavingAccountService {
         OffsetDateTime now = OffsetDateTime.now();
         from.setUpdated_at(now);
         to.setUpdated_at(now);
+        long seq = syncService.reserve(userId, 2);
+        from.setChangeSeq(seq);
+        to.setChangeSeq(seq + 1);
 
         // Persist both
         savingAccountDao.save(from);
         savingAccountDao.save(to);
+        balanceChanged(userId, from);
+        balanceChanged(userId, to);
 
         // Return the destination account (or build a custom TransferResult if you prefer)
         return toDto(to);
@@ -156,6 +191,7 @@ public class SavingAccountService {
 
         e.setStatus(Status.INACTIVE);
         e.setUpdated_at(OffsetDateTime.now());
+        e.setChangeSeq(syncService.next(userId));
 
         Saving_Account saved = savingAccountDao.save(e);
         return toDto(saved);
@@ -168,12 +204,16 @@ public class SavingAccountService {
     @Transactional
     public SavingAccountDto updateSavingAccount(Integer userId,
                                                 Integer accountId,
-                                                SavingAccountDto patch)
+                                                SavingAccountDto patch,
+                                                @Nullable String ifMatch)
             throws ChangeSetPersister.NotFoundException {
 
         // 1) Load with ownership
         Saving_Account e = savingAccountDao.findByIdAndUserId(accountId, userId)
                 .orElseThrow(ChangeSetPersister.NotFoundException::new);
+        if (ifMatch != null && !ETags.matches(ifMatch, ETags.account(e.getId(), e.getVersion()))) {
+            throw new PreconditionFailedException("Saving account was modified (If-Match).");
+        }
 
         // 2) Name (optional, unique per user, case-insensitive)
         if (patch.getName() != null) {
@@ -244,9 +284,10 @@ public class SavingAccountService {
 
         // 10) Server-managed timestamps
         e.setUpdated_at(OffsetDateTime.now());
+        e.setChangeSeq(syncService.next(userId));
 
-        // 11) Persist & return
-        Saving_Account saved = savingAccountDao.save(e);
+        // 11) Persist & return (flushed so the returned version, and so the ETag, is the new one)
+        Saving_Account saved = savingAccountDao.saveAndFlush(e);
         return toDto(saved);
     }
 
@@ -272,6 +313,9 @@ public class SavingAccountService {
 
         e.setOpening_balance(bal.doubleValue());
         e.setUpdated_at(OffsetDateTime.now());
+        e.setChangeSeq(syncService.next(userId));
+        netWorthService.savings(userId, amt);
+        balanceChanged(userId, e);
 
         return toDto(savingAccountDao.save(e));
     }
@@ -305,6 +349,9 @@ public class SavingAccountService {
 
         e.setOpening_balance(bal.doubleValue());
         e.setUpdated_at(OffsetDateTime.now());
+        e.setChangeSeq(syncService.next(userId));
+        netWorthService.savings(userId, amt.negate());
+        balanceChanged(userId, e);
 
         return toDto(savingAccountDao.save(e));
     }
@@ -365,7 +412,10 @@ public class SavingAccountService {
         if (totalInterest.signum() > 0) {
             e.setLast_interest_posted_at(cursor);
             e.setUpdated_at(OffsetDateTime.now());
+            e.setChangeSeq(syncService.next(userId));
             savingAccountDao.save(e);
+            netWorthService.savings(userId, totalInterest);
+            balanceChanged(userId, e);
         }
 
         return totalInterest.setScale(2, RoundingMode.HALF_UP);
@@ -406,6 +456,14 @@ public class SavingAccountService {
     }
 
 
+    @Transactional(readOnly = true)
+    public String accountETag(Integer userId, Integer accountId)
+            throws ChangeSetPersister.NotFoundException {
+        Integer version = savingAccountDao.findVersionByIdAndUserId(accountId, userId)
+                .orElseThrow(ChangeSetPersister.NotFoundException::new);
+        return ETags.account(accountId, version);
+    }
+
     @Transactional(readOnly = true)
     public SavingAccountDto getSnapshot(Integer userId, Integer accountId)
             throws ChangeSetPersister.NotFoundException {
@@ -415,6 +473,13 @@ public class SavingAccountService {
         return toDto(e);
     }
 
+    // Pushed to the user's /events streams once the transaction commits
+    private void balanceChanged(Integer userId, Saving_Account e) {
+        BigDecimal balance = BigDecimal.valueOf(e.getOpening_balance() != null ? e.getOpening_balance() : 0d)
+                .setScale(2, RoundingMode.HALF_UP);
+        events.publishEvent(new BalanceChangedEvent(userId, e.getId(), balance, e.getCurrency(), e.getChangeSeq()));
+    }
+
     private int dayCountDenominator(DayCountConversion dcc) {
         // Extend as you add more conventions
         return (dcc == DayCountConversion.ACT_365F) ? 365 : 365;
@@ -432,6 +497,7 @@ public class SavingAccountService {
             throw new ConflictException("Withdraw funds before deleting the account.");
         }
 
+        syncService.deleted(userId, SyncEntity.SAVING_ACCOUNT, e.getId());
         savingAccountDao.delete(e);
     }
 
@@ -440,9 +506,38 @@ public class SavingAccountService {
             List<Saving_Account> entites = (status == null)
                     ? savingAccountDao.findAllByUserIdOrderByUpdatedDesc(userId)
                     :  savingAccountDao.findAllByUserIdAndStatusOrderByUpdatedDesc(userId, status);
-            return  entites.stream().map(this::toDto).collect(Collectors.toList());
+            return  entites.stream().map(SavingAccountService::toDto).collect(Collectors.toList());
+    }
+
+
+    /** listSavingAccounts narrowed to the named SavingAccountDto fields, e.g. "id,name,currency,opening_balance". */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> listSavingAccountFields(Integer userId, Status status, String fields) {
+        Map<String, Object> where = status == null ? Map.of("user.id", userId) : Map.of("user.id", userId, "status", status);
+        return sparseFields.list(Saving_Account.class, SparseFieldsQuery.select(FIELDS, fields), where, "updated_at", true);
+    }
+
+    @Transactional(readOnly = true)
+    public Map<String, Object> getSavingAccountFields(Integer userId, Integer id, String fields)
+            throws ChangeSetPersister.NotFoundException {
+        List<Map<String, Object>> rows = sparseFields.list(Saving_Account.class, SparseFieldsQuery.select(FIELDS, fields),
+                Map.of("id", id, "user.id", userId), "id", false);
+        if (rows.isEmpty()) throw new ChangeSetPersister.NotFoundException();
+        return rows.getFirst();
     }
 
+    /** The user's accounts with these ids in one query, in request order, with a marker for each id that isn't theirs. */
+    @Transactional(readOnly = true)
+    public List<ByIdResultDto<SavingAccountDto>> getSavingAccountsByIds(Integer userId, List<Integer> ids) {
+        if (ids.isEmpty() || ids.size() > ByIdResultDto.MAX_IDS) {
+            throw new IllegalArgumentException("ids must list 1 to " + ByIdResultDto.MAX_IDS + " ids");
+        }
+        Map<Integer, Saving_Account> rows = savingAccountDao.findAllByUserIdAndIdIn(userId, ids.stream().filter(Objects::nonNull).distinct().toList()).stream()
+                .collect(Collectors.toMap(Saving_Account::getId, Function.identity()));
+        return ids.stream().map(id -> rows.containsKey(id)
+                ? ByIdResultDto.found(id, toDto(rows.get(id)))
+                : ByIdResultDto.<SavingAccountDto>notFound(id)).toList();
+    }
 
     @Transactional(readOnly = true)
     public SavingAccountDto getSavingAccount(Integer userId, Integer id)
@@ -454,7 +549,7 @@ public class SavingAccountService {
 
         return toDto(e);
     }
-    private SavingAccountDto toDto(Saving_Account e) {
+    static SavingAccountDto toDto(Saving_Account e) {
         SavingAccountDto dto = new SavingAccountDto();
         dto.setId(e.getId());
         dto.setUserId(e.getUser() != null ? e.getUser().getId() : null); // ✅ fixed
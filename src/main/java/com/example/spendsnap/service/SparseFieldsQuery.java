@@ -0,0 +1,106 @@
+package com.example.spendsnap.service;
+
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Sparse fieldsets (?fields=id,name,currency) for list and detail endpoints. Only the selected columns
+ * are fetched, with a tuple query instead of whole entities, so nothing is hydrated, put in the
+ * persistence context or dirty-checked; the rows are serialized as maps holding just those fields,
+ * under the DTO's names and in the DTO's order.
+ */
+@Component
+@RequiredArgsConstructor
+public class SparseFieldsQuery {
+
+    /** A DTO field and the entity attribute it is read from, e.g. userId from user.id or category from category.name. */
+    public record Field(String name, String path) {}
+
+    private final EntityManager entityManager;
+
+    /**
+     * The catalog fields named in a fields parameter, in catalog order; null when the parameter is absent.
+     * A present but blank parameter (?fields=) names nothing and is rejected like an unknown field.
+     */
+    public static List<Field> select(List<Field> catalog, String fields) {
+        if (fields == null) return null;
+        Set<String> names = new LinkedHashSet<>();
+        for (String name : fields.split(",")) {
+            if (!name.isBlank()) names.add(name.trim());
+        }
+        List<Field> selected = catalog.stream().filter(f -> names.contains(f.name())).toList();
+        if (selected.size() < names.size()) {
+            names.removeAll(selected.stream().map(Field::name).toList());
+            throw new IllegalArgumentException("Unknown fields " + names + "; available: "
+                    + catalog.stream().map(Field::name).toList());
+        }
+        if (selected.isEmpty()) throw new IllegalArgumentException("fields must name at least one field");
+        return selected;
+    }
+
+    /**
+     * The selected fields of the rows whose attributes equal the values in where (paths as in Field),
+     * ordered by orderBy.
+     */
+    public <T> List<Map<String, Object>> list(Class<T> entity, List<Field> fields, Map<String, Object> where,
+                                              String orderBy, boolean descending) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<T> root = query.from(entity);
+        Map<String, From<?, ?>> joins = new HashMap<>();
+
+        List<Selection<?>> selections = new ArrayList<>(fields.size());
+        for (Field field : fields) selections.add(path(root, joins, field.path()).alias(field.name()));
+        List<Predicate> predicates = new ArrayList<>(where.size());
+        where.forEach((attribute, value) -> predicates.add(cb.equal(path(root, joins, attribute), value)));
+        Path<?> order = path(root, joins, orderBy);
+        query.multiselect(selections)
+                .where(predicates.toArray(Predicate[]::new))
+                .orderBy(descending ? cb.desc(order) : cb.asc(order));
+
+        List<Tuple> tuples = entityManager.createQuery(query).getResultList();
+        List<Map<String, Object>> rows = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (int i = 0; i < fields.size(); i++) row.put(fields.get(i).name(), tuple.get(i));
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static Path<?> path(Root<?> root, Map<String, From<?, ?>> joins, String path) {
+        String[] parts = path.split("\\.");
+        if (parts.length == 1) return root.get(parts[0]);
+        // The id of a to-one association is the foreign key column, no join needed
+        if (parts.length == 2 && parts[1].equals("id")) return root.get(parts[0]).get("id");
+        From<?, ?> from = root;
+        for (int i = 0; i < parts.length - 1; i++) {
+            From<?, ?> parent = from;
+            String key = String.join(".", Arrays.copyOf(parts, i + 1));
+            String attribute = parts[i];
+            // Left join: a row without the association (e.g. no category) still comes back
+            from = joins.computeIfAbsent(key, k -> parent.join(attribute, JoinType.LEFT));
+        }
+        return from.get(parts[parts.length - 1]);
+    }
+}
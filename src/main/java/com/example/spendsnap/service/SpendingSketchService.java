@@ -0,0 +1,106 @@
+package com.example.spendsnap.service;
+
+
+import com.example.spendsnap.config.Workload;
+import com.example.spendsnap.config.WorkloadClass;
+import com.example.spendsnap.dao.CategoryDao;
+import com.example.spendsnap.dao.SpendingSketchDao;
+import com.example.spendsnap.dto.CategoryPercentilesDto;
+import com.example.spendsnap.model.Category;
+import com.example.spendsnap.model.SpendingSketch;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Keeps a quantile sketch of expense amounts per (user, month, category), updated in the same
+ * transaction as the expense, so percentiles never need the underlying rows.
+ */
+@Service
+@RequiredArgsConstructor
+public class SpendingSketchService {
+
+    private static final byte[] EMPTY = new QuantileSketch().toBytes();
+
+    private final SpendingSketchDao sketchDao;
+    private final CategoryDao categoryDao;
+
+    public void add(Integer userId, Integer categoryId, LocalDate date, Double amount) {
+        if (amount != null) update(userId, categoryId, date, sketch -> sketch.add(amount));
+    }
+
+    /** Several amounts of the same (user, category, month) under one row lock. */
+    public void addAll(Integer userId, Integer categoryId, LocalDate date, List<Double> amounts) {
+        if (!amounts.isEmpty()) update(userId, categoryId, date, sketch -> amounts.forEach(sketch::add));
+    }
+
+    public void remove(Integer userId, Integer categoryId, LocalDate date, Double amount) {
+        if (amount != null) update(userId, categoryId, date, sketch -> sketch.remove(amount));
+    }
+
+    // Must run inside the caller's transaction: the row stays locked until it commits
+    private void update(Integer userId, Integer categoryId, LocalDate date, Consumer<QuantileSketch> change) {
+        if (userId == null || date == null) return;
+        LocalDate month = date.withDayOfMonth(1);
+        int category = categoryId != null ? categoryId : SpendingSketch.UNCATEGORISED;
+        sketchDao.insertIfAbsent(userId, month, category, EMPTY);
+        SpendingSketch row = sketchDao.lockOne(userId, month, category)
+                .orElseThrow(() -> new IllegalStateException("Sketch row missing after insert"));
+        QuantileSketch sketch = QuantileSketch.fromBytes(row.getSketch());
+        change.accept(sketch);
+        row.setSketch(sketch.toBytes());
+        row.setValueCount(sketch.count());
+    }
+
+    /**
+     * Percentiles per category over the months [from, to], merging the monthly sketches.
+     * Uncategorised expenses are reported with a null categoryId.
+     */
+    @Workload(WorkloadClass.REPORTING)
+    public List<CategoryPercentilesDto> percentiles(Integer userId, YearMonth from, YearMonth to,
+                                                    Integer categoryId, List<Double> quantiles) {
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new IllegalArgumentException("'from' must be on or before 'to'");
+        }
+        for (Double q : quantiles) {
+            if (q == null || q < 0 || q > 1) throw new IllegalArgumentException("Quantiles must be between 0 and 1");
+        }
+
+        Map<Integer, QuantileSketch> merged = new TreeMap<>();
+        for (SpendingSketch row : sketchDao.findByUserIdAndMonthStartBetween(userId, from.atDay(1), to.atDay(1))) {
+            if (categoryId != null && !categoryId.equals(row.getCategoryId())) continue;
+            merged.computeIfAbsent(row.getCategoryId(), c -> new QuantileSketch())
+                    .merge(QuantileSketch.fromBytes(row.getSketch()));
+        }
+
+        Map<Integer, String> names = new HashMap<>();
+        for (Category category : categoryDao.findAllById(merged.keySet())) names.put(category.getId(), category.getName());
+
+        List<CategoryPercentilesDto> out = new ArrayList<>();
+        for (Map.Entry<Integer, QuantileSketch> e : merged.entrySet()) {
+            QuantileSketch sketch = e.getValue();
+            if (sketch.count() == 0) continue;
+            Integer id = e.getKey() == SpendingSketch.UNCATEGORISED ? null : e.getKey();
+            CategoryPercentilesDto dto = new CategoryPercentilesDto();
+            dto.setCategoryId(id);
+            dto.setCategory(id != null ? names.get(id) : null);
+            dto.setCount(sketch.count());
+            for (Double q : quantiles) dto.getPercentiles().put(label(q), sketch.quantile(q));
+            out.add(dto);
+        }
+        return out;
+    }
+
+    private static String label(double q) {
+        return "p" + BigDecimal.valueOf(q * 100).stripTrailingZeros().toPlainString();
+    }
+}
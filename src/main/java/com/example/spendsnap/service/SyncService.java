@@ -0,0 +1,138 @@
+package com.example.spendsnap.service;
+
+
+import com.example.spendsnap.config.ETags;
+import com.example.spendsnap.dao.ExpensesDao;
+import com.example.spendsnap.dao.IncomeDao;
+import com.example.spendsnap.dao.SavingAccountDao;
+import com.example.spendsnap.dao.SyncSequenceDao;
+import com.example.spendsnap.dao.SyncTombstoneDao;
+import com.example.spendsnap.dto.ExpenseDto;
+import com.example.spendsnap.dto.IncomeDto;
+import com.example.spendsnap.dto.SavingAccountDto;
+import com.example.spendsnap.dto.SyncDto;
+import com.example.spendsnap.dto.TombstoneDto;
+import com.example.spendsnap.model.Expenses;
+import com.example.spendsnap.model.IncomeModel;
+import com.example.spendsnap.model.Saving_Account;
+import com.example.spendsnap.model.SyncEntity;
+import com.example.spendsnap.model.SyncTombstone;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Delta sync for offline clients. Each user has a change sequence (sync_sequences); every write to one
+ * of their expenses, income rows or saving accounts stamps the row with the next number, and deletes
+ * leave a tombstone with one. A sync token is the last number the client has seen, so a sync reads
+ * the (user_id, change_seq) indexes from there, and a sync with nothing new is one primary key lookup.
+ */
+@Service
+@RequiredArgsConstructor
+public class SyncService {
+
+    public static final int MAX_LIMIT = 1000;
+
+    private final SyncSequenceDao sequenceDao;
+    private final SyncTombstoneDao tombstoneDao;
+    private final ExpensesDao expensesDao;
+    private final IncomeDao incomeDao;
+    private final SavingAccountDao savingAccountDao;
+
+    /**
+     * Next change number of the user. Must run inside the writing transaction: the sequence row stays
+     * locked until it commits, so numbers become visible in the order they were handed out.
+     */
+    public long next(Integer userId) {
+        return reserve(userId, 1);
+    }
+
+    /** Reserves count consecutive change numbers and returns the first. Same locking as next. */
+    public long reserve(Integer userId, int count) {
+        sequenceDao.advance(userId, count);
+        return sequenceDao.lastSeq(userId) - count + 1;
+    }
+
+    /** Records the deletion of one of the user's rows and returns its change number. Runs in the caller's transaction. */
+    public long deleted(Integer userId, SyncEntity type, Integer id) {
+        long seq = next(userId);
+        tombstoneDao.save(new SyncTombstone(userId, seq, type, id));
+        return seq;
+    }
+
+    /** Version token of all the user's expenses, income and saving accounts; see ETags. */
+    @Transactional(readOnly = true)
+    public String collectionETag(Integer userId) {
+        Long last = sequenceDao.lastSeq(userId);
+        return ETags.collection(userId, last != null ? last : 0);
+    }
+
+    /** Changes after the since token (everything if null), oldest first, at most limit rows. */
+    @Transactional(readOnly = true)
+    public SyncDto changes(Integer userId, String since, int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+        long from = parseToken(since);
+        Long stored = sequenceDao.lastSeq(userId);
+        long last = stored != null ? stored : 0;
+        boolean reset = from > last;
+        if (reset) from = -1;
+        if (from >= last) return new SyncDto(String.valueOf(last), false, false, List.of(), List.of(), List.of(), List.of());
+
+        // Numbers are unique per user, so the first limit changes overall are among the first limit of each source
+        Limit page = Limit.of(limit + 1);
+        List<Change> changes = new ArrayList<>();
+        for (Expenses e : expensesDao.findByUser_IdAndChangeSeqBetweenOrderByChangeSeq(userId, from + 1, last, page)) {
+            changes.add(new Change(e.getChangeSeq(), e));
+        }
+        for (IncomeModel i : incomeDao.findByUser_IdAndChangeSeqBetweenOrderByChangeSeq(userId, from + 1, last, page)) {
+            changes.add(new Change(i.getChangeSeq(), i));
+        }
+        for (Saving_Account s : savingAccountDao.findByUser_IdAndChangeSeqBetweenOrderByChangeSeq(userId, from + 1, last, page)) {
+            changes.add(new Change(s.getChangeSeq(), s));
+        }
+        for (SyncTombstone t : tombstoneDao.findByUserIdAndChangeSeqBetweenOrderByChangeSeq(userId, from + 1, last, page)) {
+            changes.add(new Change(t.getChangeSeq(), t));
+        }
+        changes.sort(Comparator.comparingLong(Change::seq));
+        boolean hasMore = changes.size() > limit;
+        if (hasMore) changes = changes.subList(0, limit);
+
+        List<ExpenseDto> expenses = new ArrayList<>();
+        List<IncomeDto> income = new ArrayList<>();
+        List<SavingAccountDto> accounts = new ArrayList<>();
+        List<TombstoneDto> deleted = new ArrayList<>();
+        for (Change c : changes) {
+            switch (c.row()) {
+                case Expenses e -> expenses.add(ExpensesService.toDto(e));
+                case IncomeModel i -> {
+                    IncomeDto dto = IncomeService.toDo(i);
+                    dto.setId(i.getId());
+                    income.add(dto);
+                }
+                case Saving_Account s -> accounts.add(SavingAccountService.toDto(s));
+                case SyncTombstone t -> deleted.add(new TombstoneDto(t.getEntityType(), t.getEntityId()));
+                default -> throw new IllegalStateException("Unexpected change " + c.row());
+            }
+        }
+        long token = hasMore ? changes.get(changes.size() - 1).seq() : last;
+        return new SyncDto(String.valueOf(token), hasMore, reset, expenses, income, accounts, deleted);
+    }
+
+    private static long parseToken(String since) {
+        if (since == null || since.isBlank()) return -1;
+        try {
+            long token = Long.parseLong(since.trim());
+            if (token < 0) throw new NumberFormatException();
+            return token;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid sync token");
+        }
+    }
+
+    private record Change(long seq, Object row) {}
+}
@@ -0,0 +1,143 @@
+package com.example.spendsnap.service;
+
+
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parsed tag filter such as "reimbursable AND trip NOT personal" or "(trip OR work) tax".
+ * OR binds loosest; adjacent tags are ANDed; NOT is "and not" and needs a left-hand side
+ * (there is no universe to complement against). Keywords are case-insensitive.
+ */
+final class TagQuery {
+
+    private static final Pattern TOKEN = Pattern.compile("\\s*(\\(|\\)|[^\\s()]+)");
+
+    private final Node root;
+    private final Set<String> tags;
+
+    private TagQuery(Node root, Set<String> tags) {
+        this.root = root;
+        this.tags = tags;
+    }
+
+    static TagQuery parse(String expression) {
+        if (expression == null || expression.isBlank()) throw new IllegalArgumentException("Tag query must not be blank");
+        List<String> tokens = new ArrayList<>();
+        Matcher m = TOKEN.matcher(expression);
+        while (m.find()) tokens.add(m.group(1));
+        Parser parser = new Parser(tokens);
+        Node root = parser.or();
+        if (parser.pos < tokens.size()) throw new IllegalArgumentException("Unexpected '" + tokens.get(parser.pos) + "' in tag query");
+        return new TagQuery(root, parser.tags);
+    }
+
+    /** Normalized names of every tag the query mentions. */
+    Set<String> tags() {
+        return tags;
+    }
+
+    /** Evaluates the query; bitmaps returned by the lookup are not modified. */
+    RoaringBitmap evaluate(Function<String, RoaringBitmap> bitmapOf) {
+        return root.evaluate(bitmapOf);
+    }
+
+    static String normalize(String tag) {
+        if (tag == null) return null;
+        String n = tag.trim().toLowerCase(Locale.ROOT);
+        return n.isEmpty() ? null : n;
+    }
+
+    private sealed interface Node permits TagNode, Op {
+        RoaringBitmap evaluate(Function<String, RoaringBitmap> bitmapOf);
+    }
+
+    private record TagNode(String name) implements Node {
+        @Override
+        public RoaringBitmap evaluate(Function<String, RoaringBitmap> bitmapOf) {
+            return bitmapOf.apply(name);
+        }
+    }
+
+    private record Op(String op, Node left, Node right) implements Node {
+        @Override
+        public RoaringBitmap evaluate(Function<String, RoaringBitmap> bitmapOf) {
+            RoaringBitmap l = left.evaluate(bitmapOf);
+            RoaringBitmap r = right.evaluate(bitmapOf);
+            return switch (op) {
+                case "AND" -> RoaringBitmap.and(l, r);
+                case "OR" -> RoaringBitmap.or(l, r);
+                default -> RoaringBitmap.andNot(l, r);
+            };
+        }
+    }
+
+    private static final class Parser {
+        private final List<String> tokens;
+        private final Set<String> tags = new LinkedHashSet<>();
+        private int pos;
+
+        Parser(List<String> tokens) {
+            this.tokens = tokens;
+        }
+
+        Node or() {
+            Node node = and();
+            while (accept("OR")) node = new Op("OR", node, and());
+            return node;
+        }
+
+        Node and() {
+            Node node = operand();
+            while (pos < tokens.size() && !peek(")") && !peek("OR")) {
+                if (accept("NOT")) {
+                    node = new Op("NOT", node, operand());
+                } else {
+                    accept("AND");
+                    if (accept("NOT")) node = new Op("NOT", node, operand());
+                    else node = new Op("AND", node, operand());
+                }
+            }
+            return node;
+        }
+
+        Node operand() {
+            if (pos >= tokens.size()) throw new IllegalArgumentException("Tag query ends unexpectedly");
+            if (accept("(")) {
+                Node node = or();
+                if (!accept(")")) throw new IllegalArgumentException("Missing ')' in tag query");
+                return node;
+            }
+            String token = tokens.get(pos);
+            if (isKeyword(token) || token.equals(")")) {
+                throw new IllegalArgumentException("Expected a tag before '" + token + "' (NOT means 'and not', e.g. 'trip NOT personal')");
+            }
+            pos++;
+            String name = normalize(token);
+            tags.add(name);
+            return new TagNode(name);
+        }
+
+        private boolean peek(String keyword) {
+            return pos < tokens.size() && tokens.get(pos).equalsIgnoreCase(keyword);
+        }
+
+        private boolean accept(String keyword) {
+            if (!peek(keyword)) return false;
+            pos++;
+            return true;
+        }
+
+        private static boolean isKeyword(String token) {
+            return token.equalsIgnoreCase("AND") || token.equalsIgnoreCase("OR") || token.equalsIgnoreCase("NOT");
+        }
+    }
+}
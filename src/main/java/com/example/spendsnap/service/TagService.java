@@ -0,0 +1,226 @@
+package com.example.spendsnap.service;
+
+
+import com.example.spendsnap.dao.ExpensesDao;
+import com.example.spendsnap.dao.IncomeDao;
+import com.example.spendsnap.dao.TagBitmapDao;
+import com.example.spendsnap.dao.TagDao;
+import com.example.spendsnap.dto.TagBitmapRow;
+import com.example.spendsnap.dto.TagDto;
+import com.example.spendsnap.model.LedgerType;
+import com.example.spendsnap.model.Tag;
+import com.example.spendsnap.model.TagBitmap;
+import lombok.RequiredArgsConstructor;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.data.crossstore.ChangeSetPersister;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+/**
+ * Multi-valued tags on expenses and income. For each (tag, ledger type) the ids of the tagged rows
+ * are stored as one compressed RoaringBitmap, so a tag filter is a handful of bitmap AND/OR/ANDNOT
+ * operations (see TagQuery) rather than joins. A change first locks the ledger row, which keeps the
+ * row's tag set stable, then row-locks only the bitmaps of the tags it had and will have, in tag id order.
+ */
+@Service
+@RequiredArgsConstructor
+public class TagService {
+
+    public static final int MAX_TAGS_PER_ROW = 20;
+    public static final int MAX_LIMIT = 500;
+    private static final Pattern VALID_NAME = Pattern.compile("[^\\s()]+");
+    private static final byte[] EMPTY = serialize(new RoaringBitmap());
+
+    private final TagDao tagDao;
+    private final TagBitmapDao bitmapDao;
+    private final ExpensesDao expensesDao;
+    private final IncomeDao incomeDao;
+
+    /** Replaces the tags of one of the user's rows; unknown names are created. Returns the new tags. */
+    @Transactional
+    public List<String> setTags(Integer userId, LedgerType type, Integer rowId, Collection<String> names)
+            throws ChangeSetPersister.NotFoundException {
+        lockOwned(userId, type, rowId);
+        Set<String> wanted = new LinkedHashSet<>();
+        for (String name : names) {
+            String n = TagQuery.normalize(name);
+            if (n == null) continue;
+            if (n.length() > Tag.MAX_NAME_LENGTH || !VALID_NAME.matcher(n).matches()
+                    || n.equals("and") || n.equals("or") || n.equals("not")) {
+                throw new IllegalArgumentException("Invalid tag '" + name + "'");
+            }
+            wanted.add(n);
+        }
+        if (wanted.size() > MAX_TAGS_PER_ROW) {
+            throw new IllegalArgumentException("At most " + MAX_TAGS_PER_ROW + " tags per row");
+        }
+
+        Map<Integer, String> wantedIds = new HashMap<>();
+        if (!wanted.isEmpty()) {
+            for (String n : wanted) tagDao.insertIfAbsent(userId, n);
+            for (Tag tag : tagDao.findByUserIdAndNameIn(userId, wanted)) {
+                wantedIds.put(tag.getId(), tag.getName());
+                bitmapDao.insertIfAbsent(tag.getId(), type.name(), EMPTY);
+            }
+        }
+        Set<Integer> touched = taggedWith(userId, type, rowId);
+        touched.addAll(wantedIds.keySet());
+        if (touched.isEmpty()) return List.copyOf(wanted);
+        for (TagBitmap stored : bitmapDao.lockAll(touched, type)) {
+            RoaringBitmap bitmap = deserialize(stored.getBitmap());
+            boolean changed = wantedIds.containsKey(stored.getTagId())
+                    ? bitmap.checkedAdd(rowId)
+                    : bitmap.checkedRemove(rowId);
+            if (changed) store(stored, bitmap);
+        }
+        return List.copyOf(wanted);
+    }
+
+    public List<String> tagsOf(Integer userId, LedgerType type, Integer rowId) throws ChangeSetPersister.NotFoundException {
+        checkOwned(userId, type, rowId);
+        Map<Integer, String> names = names(userId);
+        List<String> out = new ArrayList<>();
+        for (TagBitmap stored : bitmapDao.findByUser(userId, type)) {
+            if (deserialize(stored.getBitmap()).contains(rowId)) out.add(names.get(stored.getTagId()));
+        }
+        out.sort(null);
+        return out;
+    }
+
+    /** Takes a deleted row out of its tags' bitmaps. Runs in the caller's transaction, which holds the row lock. */
+    public void removeRow(Integer userId, LedgerType type, Integer rowId) {
+        Set<Integer> tagged = taggedWith(userId, type, rowId);
+        if (tagged.isEmpty()) return;
+        for (TagBitmap stored : bitmapDao.lockAll(tagged, type)) {
+            RoaringBitmap bitmap = deserialize(stored.getBitmap());
+            if (bitmap.checkedRemove(rowId)) store(stored, bitmap);
+        }
+    }
+
+    public List<TagDto> listTags(Integer userId) {
+        List<Tag> tags = tagDao.findByUserIdOrderByName(userId);
+        Map<Integer, TagDto> byId = new HashMap<>();
+        List<TagDto> out = new ArrayList<>();
+        for (Tag tag : tags) {
+            TagDto dto = new TagDto(tag.getName(), 0, 0);
+            byId.put(tag.getId(), dto);
+            out.add(dto);
+        }
+        if (tags.isEmpty()) return out;
+        for (LedgerType type : LedgerType.values()) {
+            for (TagBitmap stored : bitmapDao.findByTagIdInAndLedgerType(byId.keySet(), type)) {
+                TagDto dto = byId.get(stored.getTagId());
+                if (type == LedgerType.INCOME) dto.setIncome(stored.getRowCount());
+                else dto.setExpenses(stored.getRowCount());
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Ids of the user's rows matching the tag query, optionally within [from, to] (inclusive),
+     * highest (newest) first, at most limit.
+     */
+    @Transactional(readOnly = true)
+    public int[] select(Integer userId, LedgerType type, String expression, LocalDate from, LocalDate to, int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+        if (from != null && to != null && to.isBefore(from)) throw new IllegalArgumentException("'from' must be on or before 'to'");
+        TagQuery query = TagQuery.parse(expression);
+
+        Map<String, RoaringBitmap> bitmaps = new HashMap<>();
+        List<Tag> tags = tagDao.findByUserIdAndNameIn(userId, query.tags());
+        if (!tags.isEmpty()) {
+            Map<Integer, String> names = new HashMap<>();
+            for (Tag tag : tags) names.put(tag.getId(), tag.getName());
+            for (TagBitmap stored : bitmapDao.findByTagIdInAndLedgerType(names.keySet(), type)) {
+                bitmaps.put(names.get(stored.getTagId()), deserialize(stored.getBitmap()));
+            }
+        }
+        RoaringBitmap result = query.evaluate(name -> bitmaps.getOrDefault(name, new RoaringBitmap()));
+
+        if (!result.isEmpty() && (from != null || to != null)) {
+            LocalDate lo = from != null ? from : LocalDate.of(1, 1, 1);
+            LocalDate hi = to != null ? to.plusDays(1) : LocalDate.of(9999, 12, 31);
+            List<Integer> inRange = type == LedgerType.INCOME
+                    ? incomeDao.findIdsByUserAndDateRange(userId, lo, hi)
+                    : expensesDao.findIdsByUserAndDateRange(userId, lo, hi);
+            RoaringBitmap range = new RoaringBitmap();
+            for (Integer id : inRange) range.add(id.intValue());
+            result.and(range);
+        }
+
+        int n = (int) Math.min(limit, result.getLongCardinality());
+        int[] ids = new int[n];
+        IntIterator it = result.getReverseIntIterator();
+        for (int i = 0; i < n; i++) ids[i] = it.next();
+        return ids;
+    }
+
+    private void checkOwned(Integer userId, LedgerType type, Integer rowId) throws ChangeSetPersister.NotFoundException {
+        boolean owned = rowId != null && (type == LedgerType.INCOME
+                ? incomeDao.existsByIdAndUser_Id(rowId, userId)
+                : expensesDao.existsByIdAndUser_Id(rowId, userId));
+        if (!owned) throw new ChangeSetPersister.NotFoundException();
+    }
+
+    // Read without locks; stable because every tag change to the row holds its row lock
+    private Set<Integer> taggedWith(Integer userId, LedgerType type, Integer rowId) {
+        Set<Integer> tagIds = new TreeSet<>();
+        for (TagBitmapRow row : bitmapDao.findRowsByUser(userId, type)) {
+            if (deserialize(row.getBitmap()).contains(rowId)) tagIds.add(row.getTagId());
+        }
+        return tagIds;
+    }
+
+    // Locked before anything is read, so the reads that follow see every earlier tag change to the row
+    private void lockOwned(Integer userId, LedgerType type, Integer rowId) throws ChangeSetPersister.NotFoundException {
+        Integer owner = rowId == null ? null : type == LedgerType.INCOME
+                ? incomeDao.lockById(rowId).map(i -> i.getUser().getId()).orElse(null)
+                : expensesDao.lockById(rowId).map(e -> e.getUser().getId()).orElse(null);
+        if (!userId.equals(owner)) throw new ChangeSetPersister.NotFoundException();
+    }
+
+    private Map<Integer, String> names(Integer userId) {
+        Map<Integer, String> names = new HashMap<>();
+        for (Tag tag : tagDao.findByUserIdOrderByName(userId)) names.put(tag.getId(), tag.getName());
+        return names;
+    }
+
+    private void store(TagBitmap stored, RoaringBitmap bitmap) {
+        bitmap.runOptimize();
+        stored.setBitmap(serialize(bitmap));
+        stored.setRowCount(bitmap.getLongCardinality());
+        bitmapDao.save(stored);
+    }
+
+    private static byte[] serialize(RoaringBitmap bitmap) {
+        ByteBuffer out = ByteBuffer.allocate(bitmap.serializedSizeInBytes());
+        bitmap.serialize(out);
+        return out.array();
+    }
+
+    private static RoaringBitmap deserialize(byte[] bytes) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        try {
+            bitmap.deserialize(ByteBuffer.wrap(bytes));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Corrupt tag bitmap", e);
+        }
+        return bitmap;
+    }
+}
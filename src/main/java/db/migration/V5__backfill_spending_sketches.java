@@ -0,0 +1,121 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.io.ByteArrayOutputStream;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Builds spending_sketches from the existing expenses, one user at a time so that
+ * only that user's (month, category) sketches are held in memory.
+ * The sketch encoder is a frozen copy of format version 1 so that later changes to the
+ * application's QuantileSketch can't alter what this migration writes.
+ */
+public class V5__backfill_spending_sketches extends BaseJavaMigration {
+
+    private static final int UNCATEGORISED = 0;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        List<Integer> userIds = new ArrayList<>();
+        try (Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery("SELECT DISTINCT user_id FROM expenses WHERE user_id IS NOT NULL")) {
+            while (rs.next()) userIds.add(rs.getInt(1));
+        }
+
+        try (PreparedStatement read = connection.prepareStatement(
+                     "SELECT date, category_id, amount FROM expenses " +
+                     "WHERE user_id = ? AND date IS NOT NULL AND amount IS NOT NULL");
+             PreparedStatement write = connection.prepareStatement(
+                     "INSERT INTO spending_sketches (user_id, month_start, category_id, value_count, sketch) " +
+                     "VALUES (?, ?, ?, ?, ?)")) {
+            for (Integer userId : userIds) {
+                backfillUser(userId, read, write);
+            }
+        }
+    }
+
+    private static void backfillUser(Integer userId, PreparedStatement read, PreparedStatement write) throws SQLException {
+        Map<Key, Sketch> sketches = new HashMap<>();
+        read.setInt(1, userId);
+        try (ResultSet rs = read.executeQuery()) {
+            while (rs.next()) {
+                LocalDate month = rs.getDate(1).toLocalDate().withDayOfMonth(1);
+                int categoryId = rs.getInt(2);
+                if (rs.wasNull()) categoryId = UNCATEGORISED;
+                sketches.computeIfAbsent(new Key(month, categoryId), k -> new Sketch()).add(rs.getDouble(3));
+            }
+        }
+        for (Map.Entry<Key, Sketch> e : sketches.entrySet()) {
+            write.setInt(1, userId);
+            write.setDate(2, Date.valueOf(e.getKey().month()));
+            write.setInt(3, e.getKey().categoryId());
+            write.setLong(4, e.getValue().count());
+            write.setBytes(5, e.getValue().toBytes());
+            write.addBatch();
+        }
+        write.executeBatch();
+    }
+
+    private record Key(LocalDate month, int categoryId) {}
+
+    private static final class Sketch {
+        private static final double RELATIVE_ACCURACY = 0.01;
+        private static final double LOG_GAMMA = Math.log((1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY));
+        private static final byte FORMAT_VERSION = 1;
+
+        private final TreeMap<Integer, Long> buckets = new TreeMap<>();
+        private long zeroCount;
+        private long count;
+
+        long count() {
+            return count;
+        }
+
+        void add(double value) {
+            if (value <= 0) {
+                zeroCount++;
+            } else {
+                buckets.merge((int) Math.ceil(Math.log(value) / LOG_GAMMA), 1L, Long::sum);
+            }
+            count++;
+        }
+
+        // version, zeroCount, bucketCount, then per bucket zig-zag index delta and count (all varints)
+        byte[] toBytes() {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(8 + buckets.size() * 3);
+            out.write(FORMAT_VERSION);
+            writeVarLong(out, zeroCount);
+            writeVarLong(out, buckets.size());
+            int previous = 0;
+            for (Map.Entry<Integer, Long> e : buckets.entrySet()) {
+                int delta = e.getKey() - previous;
+                writeVarLong(out, ((delta << 1) ^ (delta >> 31)) & 0xFFFFFFFFL);
+                writeVarLong(out, e.getValue());
+                previous = e.getKey();
+            }
+            return out.toByteArray();
+        }
+
+        private static void writeVarLong(ByteArrayOutputStream out, long v) {
+            while ((v & ~0x7FL) != 0) {
+                out.write((int) ((v & 0x7F) | 0x80));
+                v >>>= 7;
+            }
+            out.write((int) v);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+-- Recurring expenses/income (subscriptions, salaries) materialized by RecurringRuleService.
+-- next_run is the next occurrence still to be written (null once the rule has ended); the
+-- scheduler walks due rules in (next_run, id) order.
+-- Generated rows carry (recurring_rule_id, occurrence_date); the unique key makes a repeated or
+-- concurrent run insert each occurrence at most once (INSERT IGNORE).
+
+create table recurring_rules (
+    id bigint not null auto_increment,
+    user_id integer not null,
+    ledger_type enum ('EXPENSES','INCOME') not null,
+    amount float(53) not null,
+    description varchar(255),
+    category_id integer,
+    frequency enum ('DAILY','WEEKLY','MONTHLY','YEARLY') not null,
+    interval_count integer not null,
+    start_date date not null,
+    end_date date,
+    next_run date,
+    primary key (id),
+    constraint fk_recurring_rules_user foreign key (user_id) references users (id),
+    constraint fk_recurring_rules_category foreign key (category_id) references categories (id)
+) engine=InnoDB;
+
+create index idx_recurring_rules_next_run on recurring_rules (next_run, id);
+create index idx_recurring_rules_user on recurring_rules (user_id);
+
+alter table expenses add column recurring_rule_id bigint;
+alter table expenses add column occurrence_date date;
+alter table expenses add constraint uq_expenses_occurrence unique (recurring_rule_id, occurrence_date);
+alter table expenses add constraint fk_expenses_recurring_rule
+    foreign key (recurring_rule_id) references recurring_rules (id) on delete set null;
+
+alter table income_model add column recurring_rule_id bigint;
+alter table income_model add column occurrence_date date;
+alter table income_model add constraint uq_income_model_occurrence unique (recurring_rule_id, occurrence_date);
+alter table income_model add constraint fk_income_model_recurring_rule
+    foreign key (recurring_rule_id) references recurring_rules (id) on delete set null;
@@ -0,0 +1,47 @@
+-- Monthly category budgets with alert thresholds (percent of the limit, e.g. "80,100").
+-- budget_spend is the running expense total per (user, month, category) in cents, changed in the same
+-- transaction as the expense, so utilization and threshold checks never scan expenses.
+-- category_id 0 holds uncategorised expenses, hence no foreign key to categories.
+-- budget_alerts records each crossed threshold once per budget and month.
+
+create table budgets (
+    id integer not null auto_increment,
+    user_id integer not null,
+    category_id integer not null,
+    limit_cents bigint not null,
+    thresholds varchar(64) not null,
+    primary key (id),
+    constraint uq_budgets_user_category unique (user_id, category_id),
+    constraint fk_budgets_user foreign key (user_id) references users (id),
+    constraint fk_budgets_category foreign key (category_id) references categories (id)
+) engine=InnoDB;
+
+create table budget_spend (
+    user_id integer not null,
+    month_start date not null,
+    category_id integer not null,
+    spent_cents bigint not null,
+    primary key (user_id, month_start, category_id),
+    constraint fk_budget_spend_user foreign key (user_id) references users (id)
+) engine=InnoDB;
+
+create table budget_alerts (
+    id bigint not null auto_increment,
+    budget_id integer not null,
+    month_start date not null,
+    threshold_percent integer not null,
+    spent_cents bigint not null,
+    limit_cents bigint not null,
+    created_at datetime(6) not null,
+    primary key (id),
+    constraint uq_budget_alerts_threshold unique (budget_id, month_start, threshold_percent),
+    constraint fk_budget_alerts_budget foreign key (budget_id) references budgets (id) on delete cascade
+) engine=InnoDB;
+
+insert into budget_spend (user_id, month_start, category_id, spent_cents)
+select t.user_id, t.month_start, t.category_id, sum(t.cents) from (
+    select e.user_id, cast(concat(year(e.date), '-', lpad(month(e.date), 2, '0'), '-01') as date) as month_start,
+           coalesce(e.category_id, 0) as category_id, round(e.amount * 100) as cents
+      from expenses e where e.user_id is not null and e.date is not null and e.amount is not null
+) t
+group by t.user_id, t.month_start, t.category_id;
@@ -0,0 +1,17 @@
+-- Responses of POSTs sent with an Idempotency-Key header, replayed when the client retries (IdempotencyFilter).
+-- status_code is null while the first request is still running; expires_at is then its lease, afterwards
+-- the retention deadline. Expired rows are deleted by IdempotencyService's cleanup.
+
+create table idempotency_keys (
+    user_id integer not null,
+    idempotency_key varchar(128) not null,
+    fingerprint varbinary(32) not null,
+    status_code integer,
+    content_type varchar(255),
+    body mediumblob,
+    expires_at datetime(6) not null,
+    primary key (user_id, idempotency_key),
+    constraint fk_idempotency_keys_user foreign key (user_id) references users (id)
+) engine=InnoDB;
+
+create index idx_idempotency_keys_expires on idempotency_keys (expires_at);
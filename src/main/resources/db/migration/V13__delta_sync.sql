@@ -0,0 +1,43 @@
+-- Per-user change sequence behind GET /sync (SyncService). Every write to a user's expenses, income or
+-- saving accounts takes the next number from sync_sequences and stores it in the row's change_seq;
+-- deletes leave a sync_tombstones row instead. The sequence row stays locked until the writing
+-- transaction commits, so a user's numbers become visible in order and a client token never skips one.
+
+create table sync_sequences (
+    user_id integer not null,
+    last_seq bigint not null,
+    primary key (user_id),
+    constraint fk_sync_sequences_user foreign key (user_id) references users (id)
+) engine=InnoDB;
+
+create table sync_tombstones (
+    user_id integer not null,
+    change_seq bigint not null,
+    entity_type enum ('EXPENSE','INCOME','SAVING_ACCOUNT') not null,
+    entity_id integer not null,
+    primary key (user_id, change_seq),
+    constraint fk_sync_tombstones_user foreign key (user_id) references users (id)
+) engine=InnoDB;
+
+alter table expenses add column change_seq bigint not null default 0;
+alter table income_model add column change_seq bigint not null default 0;
+alter table saving_accounts add column change_seq bigint not null default 0;
+
+-- Existing rows get distinct numbers (3 * id + table) so a first sync can page through them in order
+update expenses set change_seq = 3 * id;
+update income_model set change_seq = 3 * id + 1;
+update saving_accounts set change_seq = 3 * id + 2;
+
+create index idx_expenses_user_change_seq on expenses (user_id, change_seq);
+create index idx_income_model_user_change_seq on income_model (user_id, change_seq);
+create index idx_saving_accounts_user_change_seq on saving_accounts (user_id, change_seq);
+
+insert into sync_sequences (user_id, last_seq)
+select t.user_id, max(t.change_seq) from (
+    select user_id, change_seq from expenses where user_id is not null
+    union all
+    select user_id, change_seq from income_model where user_id is not null
+    union all
+    select user_id, change_seq from saving_accounts
+) t
+group by t.user_id;
@@ -0,0 +1,15 @@
+-- Committed /events payloads, relayed to streams open on other nodes (EventRelay). Each row is written in
+-- the transaction that produced the event; every node polls the ids it hasn't seen yet and skips its own
+-- (node_id). Rows are only needed for a short while and are deleted after spendsnap.events.relay.retention.
+
+create table event_outbox (
+    id bigint not null auto_increment,
+    node_id varchar(36) not null,
+    user_id integer not null,
+    name varchar(32) not null,
+    data text not null,
+    created_at datetime(6) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create index idx_event_outbox_created on event_outbox (created_at);
@@ -0,0 +1,56 @@
+-- Baseline: the schema Hibernate generated under ddl-auto=update.
+-- Databases created that way are baselined at version 1 (spring.flyway.baseline-on-migrate)
+-- and skip this script; fresh databases run it.
+
+create table users (
+    id integer not null auto_increment,
+    username varchar(50) not null,
+    password varchar(100) not null,
+    role enum ('ADMIN','USER') not null,
+    primary key (id),
+    constraint UKr43af9ap4edm43mmtq01oddj6 unique (username)
+) engine=InnoDB;
+
+create table expenses (
+    amount float(53),
+    date date,
+    id integer not null auto_increment,
+    user_id integer,
+    category varchar(255),
+    description varchar(255),
+    primary key (id),
+    constraint FKhpk0n2cbnfiuu5nrgl0ika3hq foreign key (user_id) references users (id)
+) engine=InnoDB;
+
+create table income_model (
+    amount float(53),
+    date date,
+    id integer not null auto_increment,
+    user_id integer,
+    category varchar(255),
+    description varchar(255),
+    primary key (id),
+    constraint FKssde2f01yjbsdby2gnqau7b27 foreign key (user_id) references users (id)
+) engine=InnoDB;
+
+create table saving_accounts (
+    id integer not null auto_increment,
+    interest_apr decimal(9,6) not null,
+    opening_balance float(53),
+    user_id integer not null,
+    version integer,
+    created_at datetime(6),
+    last_interest_posted_at datetime(6),
+    updated_at datetime(6),
+    currency varchar(255),
+    name varchar(255) not null,
+    notes varchar(255),
+    compounding enum ('DAILY','MONTHLY','NONE'),
+    day_count_conversion enum ('ACT_360','ACT_365F','E30_360'),
+    status enum ('ACTIVE','CLOSED','INACTIVE'),
+    primary key (id),
+    constraint uq_saving_accounts_user_name unique (user_id, name),
+    constraint fk_saving_accounts_user foreign key (user_id) references users (id)
+) engine=InnoDB;
+
+create index idx_saving_accounts_user on saving_accounts (user_id);
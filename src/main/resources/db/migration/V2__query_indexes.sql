@@ -0,0 +1,12 @@
+-- Indexes for the query shapes the DAOs actually run.
+
+-- Monthly sums/lists are range scans: user_id = ? and date >= ? and date < ?
+create index idx_expenses_user_date on expenses (user_id, date);
+create index idx_income_model_user_date on income_model (user_id, date);
+
+-- listSavingAccounts: user_id = ? [and status = ?] order by updated_at desc
+create index idx_saving_accounts_user_status_updated on saving_accounts (user_id, status, updated_at);
+create index idx_saving_accounts_user_updated on saving_accounts (user_id, updated_at);
+
+-- Superseded by the composites above (user_id is their leading column, which also covers the FK)
+drop index idx_saving_accounts_user on saving_accounts;
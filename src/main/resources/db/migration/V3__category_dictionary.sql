@@ -0,0 +1,39 @@
+-- Replace the free-form category varchar on expenses/income_model with a per-user dictionary.
+
+create table categories (
+    id integer not null auto_increment,
+    user_id integer not null,
+    name varchar(64) not null,
+    primary key (id),
+    constraint uq_categories_user_name unique (user_id, name),
+    constraint fk_categories_user foreign key (user_id) references users (id)
+) engine=InnoDB;
+
+-- UNION de-duplicates with the column collation, the same rule the unique key uses
+insert into categories (user_id, name)
+select user_id, left(trim(category), 64) from expenses
+ where user_id is not null and category is not null and trim(category) <> ''
+union
+select user_id, left(trim(category), 64) from income_model
+ where user_id is not null and category is not null and trim(category) <> '';
+
+alter table expenses add column category_id integer;
+alter table income_model add column category_id integer;
+
+update expenses e
+   set category_id = (select c.id from categories c
+                       where c.user_id = e.user_id and c.name = left(trim(e.category), 64))
+ where e.category is not null;
+
+update income_model i
+   set category_id = (select c.id from categories c
+                       where c.user_id = i.user_id and c.name = left(trim(i.category), 64))
+ where i.category is not null;
+
+alter table expenses drop column category;
+alter table income_model drop column category;
+
+alter table expenses
+    add constraint fk_expenses_category foreign key (category_id) references categories (id);
+alter table income_model
+    add constraint fk_income_model_category foreign key (category_id) references categories (id);
@@ -0,0 +1,13 @@
+-- Per (user, month, category) quantile sketch of expense amounts (QuantileSketch binary format).
+-- category_id 0 holds uncategorised expenses, hence no foreign key to categories.
+-- Existing expenses are folded in by the V5__backfill_spending_sketches Java migration.
+
+create table spending_sketches (
+    user_id integer not null,
+    month_start date not null,
+    category_id integer not null,
+    value_count bigint not null,
+    sketch varbinary(8192) not null,
+    primary key (user_id, month_start, category_id),
+    constraint fk_spending_sketches_user foreign key (user_id) references users (id)
+) engine=InnoDB;
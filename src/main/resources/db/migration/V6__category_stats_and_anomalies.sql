@@ -0,0 +1,29 @@
+-- Running statistics of log(amount) per (user, category) for anomaly scoring on insert.
+-- category_id 0 holds uncategorised expenses (same convention as spending_sketches).
+-- Filled for existing expenses by POST /admin/category-stats/rebuild.
+
+create table category_stats (
+    user_id integer not null,
+    category_id integer not null,
+    value_count bigint not null,
+    mean float(53) not null,
+    m2 float(53) not null,
+    ewma float(53) not null,
+    ewm_var float(53) not null,
+    primary key (user_id, category_id),
+    constraint fk_category_stats_user foreign key (user_id) references users (id)
+) engine=InnoDB;
+
+create table expense_anomalies (
+    id integer not null auto_increment,
+    expense_id integer not null,
+    user_id integer not null,
+    score float(53) not null,
+    created_at datetime(6) not null,
+    primary key (id),
+    constraint uq_expense_anomalies_expense unique (expense_id),
+    constraint fk_expense_anomalies_expense foreign key (expense_id) references expenses (id) on delete cascade,
+    constraint fk_expense_anomalies_user foreign key (user_id) references users (id)
+) engine=InnoDB;
+
+create index idx_expense_anomalies_user_created on expense_anomalies (user_id, created_at);
@@ -0,0 +1,28 @@
+-- Daily net-worth deltas per user, in cents. Net worth on day D = sum of both columns over days <= D.
+-- cash: income - expenses.
+-- savings: saving-account opening balances, deposits, withdrawals and interest.
+
+create table net_worth_daily (
+    user_id integer not null,
+    day date not null,
+    cash_delta_cents bigint not null,
+    savings_delta_cents bigint not null,
+    primary key (user_id, day),
+    constraint fk_net_worth_daily_user foreign key (user_id) references users (id)
+) engine=InnoDB;
+
+-- Seed from existing data; the per-user rebuild (NetWorthDao.rebuildUser) uses the same query.
+-- Past deposits/withdrawals/interest are not recorded anywhere, so each account's current balance
+-- is placed on its creation day: today's totals are exact, earlier savings points are approximate.
+insert into net_worth_daily (user_id, day, cash_delta_cents, savings_delta_cents)
+select t.user_id, t.day, sum(t.cash), sum(t.savings) from (
+    select i.user_id, i.date as day, round(i.amount * 100) as cash, 0 as savings
+      from income_model i where i.user_id is not null and i.date is not null and i.amount is not null
+    union all
+    select e.user_id, e.date, -round(e.amount * 100), 0
+      from expenses e where e.user_id is not null and e.date is not null and e.amount is not null
+    union all
+    select s.user_id, coalesce(cast(s.created_at as date), current_date), 0, round(s.opening_balance * 100)
+      from saving_accounts s where s.opening_balance is not null
+) t
+group by t.user_id, t.day;
@@ -0,0 +1,8 @@
+-- Search (LedgerSpecifications): amount range / sort and description prefix within one user.
+-- InnoDB appends the primary key, so (user_id, amount) also serves the keyset order (amount, id).
+
+create index idx_expenses_user_amount on expenses (user_id, amount);
+create index idx_income_model_user_amount on income_model (user_id, amount);
+
+create index idx_expenses_user_description on expenses (user_id, description);
+create index idx_income_model_user_description on income_model (user_id, description);
@@ -0,0 +1,21 @@
+-- Free-form per-user tags on expenses and income (many per row, unlike categories).
+-- Membership is kept per (tag, ledger type) as a serialized RoaringBitmap of row ids, so tag
+-- filters like "trip AND reimbursable NOT personal" are bitmap operations (TagService).
+
+create table tags (
+    id integer not null auto_increment,
+    user_id integer not null,
+    name varchar(64) not null,
+    primary key (id),
+    constraint uq_tags_user_name unique (user_id, name),
+    constraint fk_tags_user foreign key (user_id) references users (id)
+) engine=InnoDB;
+
+create table tag_bitmaps (
+    tag_id integer not null,
+    ledger_type enum ('EXPENSES','INCOME') not null,
+    row_count bigint not null,
+    bitmap mediumblob not null,
+    primary key (tag_id, ledger_type),
+    constraint fk_tag_bitmaps_tag foreign key (tag_id) references tags (id) on delete cascade
+) engine=InnoDB;
@@ -0,0 +1,56 @@
+package com.example.spendsnap.benchmark;
+
+import com.example.spendsnap.service.DescriptionIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Query latency of the in-memory description index for one user (no database needed).
+ * Run with: ./mvnw -Pbenchmark test-compile exec:exec -Djmh.args=DescriptionIndexBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DescriptionIndexBenchmark {
+
+    private static final String[] WORDS = {
+            "uber", "rent", "groceries", "coffee", "netflix", "spotify", "gym", "pharmacy", "fuel", "parking",
+            "restaurant", "amazon", "electricity", "water", "internet", "phone", "insurance", "cinema", "books", "taxi"
+    };
+
+    @Param({"10000", "100000"})
+    public int rows;
+
+    private DescriptionIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        index = new DescriptionIndex();
+        Random random = new Random(42);
+        for (int id = 1; id <= rows; id++) {
+            String description = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)]
+                    + " #" + random.nextInt(1000);
+            index.add(id, description);
+        }
+    }
+
+    @Benchmark
+    public int[] singleWord() {
+        return index.search("uber", 50);
+    }
+
+    @Benchmark
+    public int[] shortPrefix() {
+        return index.search("g", 50);
+    }
+
+    @Benchmark
+    public int[] twoWords() {
+        return index.search("rent intern", 50);
+    }
+}
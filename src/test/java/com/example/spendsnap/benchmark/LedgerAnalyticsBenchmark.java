@@ -0,0 +1,114 @@
+package com.example.spendsnap.benchmark;
+
+import com.example.spendsnap.SpendSnapApplication;
+import com.example.spendsnap.dao.ExpensesDao;
+import com.example.spendsnap.dto.CategoryBucketRow;
+import com.example.spendsnap.model.LedgerType;
+import com.example.spendsnap.service.ColumnarAnalyticsService;
+import com.example.spendsnap.service.LedgerColumns;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Columnar in-memory aggregates vs the SQL path, over one seeded user's expense history.
+ * Needs the MySQL database from application.yaml. Run with: ./mvnw -Pbenchmark test-compile exec:exec
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LedgerAnalyticsBenchmark {
+
+    private static final LocalDate FROM = LocalDate.of(2020, 1, 1);
+    private static final LocalDate TO = LocalDate.of(2024, 12, 31);
+
+    @Param({"1000", "100000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private JdbcTemplate jdbc;
+    private ExpensesDao expensesDao;
+    private ColumnarAnalyticsService columnar;
+    private Integer userId;
+    private Integer categoryId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = SpringApplication.run(SpendSnapApplication.class,
+                "--spring.main.web-application-type=none", "--spring.jpa.show-sql=false");
+        jdbc = context.getBean(JdbcTemplate.class);
+        expensesDao = context.getBean(ExpensesDao.class);
+        columnar = context.getBean(ColumnarAnalyticsService.class);
+
+        String username = "bench-" + System.nanoTime();
+        jdbc.update("INSERT INTO users (username, password, role) VALUES (?, 'x', 'USER')", username);
+        userId = jdbc.queryForObject("SELECT id FROM users WHERE username = ?", Integer.class, username);
+        List<Integer> categories = new ArrayList<>();
+        for (int c = 0; c < 20; c++) {
+            jdbc.update("INSERT INTO categories (user_id, name) VALUES (?, ?)", userId, "cat-" + c);
+            categories.add(jdbc.queryForObject("SELECT id FROM categories WHERE user_id = ? AND name = ?",
+                    Integer.class, userId, "cat-" + c));
+        }
+        categoryId = categories.get(0);
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int span = (int) (TO.toEpochDay() - FROM.toEpochDay());
+        List<Object[]> batch = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            batch.add(new Object[]{
+                    Math.round(random.nextDouble(1, 500) * 100) / 100.0,
+                    "bench " + i,
+                    FROM.plusDays(random.nextInt(span + 1)),
+                    categories.get(random.nextInt(categories.size())),
+                    userId
+            });
+        }
+        jdbc.batchUpdate("INSERT INTO expenses (amount, description, date, category_id, user_id) VALUES (?, ?, ?, ?, ?)", batch);
+        // Loads the columns once; the benchmarks measure the warm path
+        columnar.columns(userId, LedgerType.EXPENSES);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        jdbc.update("DELETE FROM expenses WHERE user_id = ?", userId);
+        jdbc.update("DELETE FROM categories WHERE user_id = ?", userId);
+        jdbc.update("DELETE FROM users WHERE id = ?", userId);
+        context.close();
+    }
+
+    @Benchmark
+    public List<CategoryBucketRow> sqlByCategory() {
+        return expensesDao.breakdownByCategory(userId, FROM, TO.plusDays(1), "NONE");
+    }
+
+    @Benchmark
+    public Object columnarByCategory() {
+        LedgerColumns columns = columnar.columns(userId, LedgerType.EXPENSES);
+        return columns.byCategory((int) FROM.toEpochDay(), (int) TO.toEpochDay() + 1);
+    }
+
+    @Benchmark
+    public Double sqlRangeSum() {
+        return expensesDao.getMonthlyExpensesSumByUser(userId, LocalDate.of(2022, 1, 1), LocalDate.of(2023, 1, 1));
+    }
+
+    @Benchmark
+    public double columnarRangeSum() {
+        return columnar.sum(userId, LedgerType.EXPENSES, LocalDate.of(2022, 1, 1), LocalDate.of(2022, 12, 31), null);
+    }
+
+    @Benchmark
+    public double columnarCategorySum() {
+        return columnar.sum(userId, LedgerType.EXPENSES, FROM, TO, categoryId);
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.spendsnap.benchmark;
+
+import com.example.spendsnap.SpendSnapApplication;
+import com.example.spendsnap.dao.ExpensesDao;
+import com.example.spendsnap.dao.LedgerSpecifications;
+import com.example.spendsnap.dto.ExpenseDto;
+import com.example.spendsnap.dto.KeysetPageDto;
+import com.example.spendsnap.dto.LedgerSearchRequest;
+import com.example.spendsnap.model.Expenses;
+import com.example.spendsnap.model.LedgerSortKey;
+import com.example.spendsnap.service.ExpensesService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * /expenses/search: keyset pages vs OFFSET pages deep into one seeded user's history, plus a
+ * multi-filter query. Needs the MySQL database from application.yaml.
+ * Run with: ./mvnw -Pbenchmark test-compile exec:exec -Djmh.args=LedgerSearchBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LedgerSearchBenchmark {
+
+    private static final LocalDate FROM = LocalDate.of(2020, 1, 1);
+    private static final LocalDate TO = LocalDate.of(2024, 12, 31);
+    private static final int PAGE_SIZE = 50;
+    private static final int DEEP_PAGE = 200;
+
+    @Param({"100000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private JdbcTemplate jdbc;
+    private ExpensesDao expensesDao;
+    private ExpensesService expensesService;
+    private Integer userId;
+    private String deepCursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = SpringApplication.run(SpendSnapApplication.class,
+                "--spring.main.web-application-type=none", "--spring.jpa.show-sql=false");
+        jdbc = context.getBean(JdbcTemplate.class);
+        expensesDao = context.getBean(ExpensesDao.class);
+        expensesService = context.getBean(ExpensesService.class);
+
+        String username = "bench-" + System.nanoTime();
+        jdbc.update("INSERT INTO users (username, password, role) VALUES (?, 'x', 'USER')", username);
+        userId = jdbc.queryForObject("SELECT id FROM users WHERE username = ?", Integer.class, username);
+        List<Integer> categories = new ArrayList<>();
+        for (int c = 0; c < 20; c++) {
+            jdbc.update("INSERT INTO categories (user_id, name) VALUES (?, ?)", userId, "cat-" + c);
+            categories.add(jdbc.queryForObject("SELECT id FROM categories WHERE user_id = ? AND name = ?",
+                    Integer.class, userId, "cat-" + c));
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int span = (int) (TO.toEpochDay() - FROM.toEpochDay());
+        List<Object[]> batch = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            batch.add(new Object[]{
+                    Math.round(random.nextDouble(1, 500) * 100) / 100.0,
+                    (random.nextBoolean() ? "coffee " : "groceries ") + i,
+                    FROM.plusDays(random.nextInt(span + 1)),
+                    categories.get(random.nextInt(categories.size())),
+                    userId
+            });
+        }
+        jdbc.batchUpdate("INSERT INTO expenses (amount, description, date, category_id, user_id) VALUES (?, ?, ?, ?, ?)", batch);
+
+        // Walk to the deep page once so the keyset benchmark starts from its cursor
+        LedgerSearchRequest request = new LedgerSearchRequest();
+        request.setLimit(PAGE_SIZE);
+        for (int page = 0; page < DEEP_PAGE; page++) {
+            request.setCursor(expensesService.search(userId, request).getNextCursor());
+        }
+        deepCursor = request.getCursor();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        jdbc.update("DELETE FROM expenses WHERE user_id = ?", userId);
+        jdbc.update("DELETE FROM categories WHERE user_id = ?", userId);
+        jdbc.update("DELETE FROM users WHERE id = ?", userId);
+        context.close();
+    }
+
+    @Benchmark
+    public KeysetPageDto<ExpenseDto> keysetFirstPage() {
+        LedgerSearchRequest request = new LedgerSearchRequest();
+        request.setLimit(PAGE_SIZE);
+        return expensesService.search(userId, request);
+    }
+
+    @Benchmark
+    public KeysetPageDto<ExpenseDto> keysetDeepPage() {
+        LedgerSearchRequest request = new LedgerSearchRequest();
+        request.setLimit(PAGE_SIZE);
+        request.setCursor(deepCursor);
+        return expensesService.search(userId, request);
+    }
+
+    @Benchmark
+    public List<Expenses> offsetDeepPage() {
+        LedgerSearchRequest request = new LedgerSearchRequest();
+        return expensesDao.findAll(LedgerSpecifications.<Expenses>matching(userId, request, null),
+                PageRequest.of(DEEP_PAGE, PAGE_SIZE, LedgerSpecifications.sort(LedgerSortKey.DATE, Sort.Direction.DESC)))
+                .getContent();
+    }
+
+    @Benchmark
+    public KeysetPageDto<ExpenseDto> filteredByAmount() {
+        LedgerSearchRequest request = new LedgerSearchRequest();
+        request.setFrom(LocalDate.of(2022, 1, 1));
+        request.setTo(LocalDate.of(2022, 12, 31));
+        request.setMinAmount(100.0);
+        request.setMaxAmount(200.0);
+        request.setCategory(List.of("cat-1", "cat-2", "cat-3"));
+        request.setDescriptionPrefix("coffee");
+        request.setSort(LedgerSortKey.AMOUNT);
+        request.setLimit(PAGE_SIZE);
+        return expensesService.search(userId, request);
+    }
+}
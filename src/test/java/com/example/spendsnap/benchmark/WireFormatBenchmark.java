@@ -0,0 +1,154 @@
+package com.example.spendsnap.benchmark;
+
+import com.example.spendsnap.dto.ExpenseDto;
+import com.example.spendsnap.dto.IncomeDto;
+import com.example.spendsnap.dto.SavingAccountDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization CPU of JSON vs CBOR for the bulk list payloads, and of the streamed export writer vs
+ * serializing the whole list. Bytes on the wire per list are printed once per trial.
+ * Run with: ./mvnw -Pbenchmark test-compile exec:exec -Djmh.args=WireFormatBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WireFormatBenchmark {
+
+    private static final String[] CATEGORIES = {"Food", "Transport", "Rent", "Utilities", "Entertainment", "Health"};
+
+    @Param({"1000", "10000"})
+    public int rows;
+
+    private ObjectMapper json;
+    private ObjectMapper cbor;
+    private List<ExpenseDto> expenses;
+    private List<IncomeDto> income;
+    private List<SavingAccountDto> accounts;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        // Same builder Spring Boot configures the HTTP converters from
+        json = Jackson2ObjectMapperBuilder.json().build();
+        cbor = Jackson2ObjectMapperBuilder.json().factory(new CBORFactory()).build();
+
+        Random random = new Random(42);
+        LocalDate start = LocalDate.of(2024, 1, 1);
+        expenses = new ArrayList<>(rows);
+        income = new ArrayList<>(rows);
+        accounts = new ArrayList<>(rows / 10);
+        for (int i = 1; i <= rows; i++) {
+            String category = CATEGORIES[random.nextInt(CATEGORIES.length)];
+            LocalDate date = start.plusDays(random.nextInt(365));
+            expenses.add(new ExpenseDto(i, Math.round(random.nextDouble() * 50000) / 100.0,
+                    category + " purchase #" + random.nextInt(1000), date, category, 7, null));
+            income.add(new IncomeDto(i, Math.round(random.nextDouble() * 500000) / 100.0,
+                    "Salary " + date.getMonth(), date, "Salary", 7));
+        }
+        OffsetDateTime now = OffsetDateTime.of(2024, 6, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+        for (int i = 1; i <= rows / 10; i++) {
+            SavingAccountDto account = new SavingAccountDto();
+            account.setId(i);
+            account.setUserId(7);
+            account.setName("Savings " + i);
+            account.setCurrency("USD");
+            account.setOpening_balance(Math.round(random.nextDouble() * 1000000) / 100.0);
+            account.setInterestApr(new BigDecimal("0.0425"));
+            account.setLast_interest_posted_at(now);
+            account.setCreated_at(now);
+            account.setUpdated_at(now);
+            account.setVersion(3);
+            accounts.add(account);
+        }
+
+        System.out.printf("%n%d rows: expenses json=%d cbor=%d bytes, income json=%d cbor=%d bytes, %d accounts json=%d cbor=%d bytes%n",
+                rows,
+                json.writeValueAsBytes(expenses).length, cbor.writeValueAsBytes(expenses).length,
+                json.writeValueAsBytes(income).length, cbor.writeValueAsBytes(income).length,
+                accounts.size(), json.writeValueAsBytes(accounts).length, cbor.writeValueAsBytes(accounts).length);
+    }
+
+    @Benchmark
+    public byte[] expensesJson() throws IOException {
+        return json.writeValueAsBytes(expenses);
+    }
+
+    @Benchmark
+    public byte[] expensesCbor() throws IOException {
+        return cbor.writeValueAsBytes(expenses);
+    }
+
+    @Benchmark
+    public byte[] incomeJson() throws IOException {
+        return json.writeValueAsBytes(income);
+    }
+
+    @Benchmark
+    public byte[] incomeCbor() throws IOException {
+        return cbor.writeValueAsBytes(income);
+    }
+
+    @Benchmark
+    public byte[] accountsJson() throws IOException {
+        return json.writeValueAsBytes(accounts);
+    }
+
+    @Benchmark
+    public byte[] accountsCbor() throws IOException {
+        return cbor.writeValueAsBytes(accounts);
+    }
+
+    // The export path: one value at a time into the response stream, no whole-list buffer
+    @Benchmark
+    public long expensesJsonStreamed() throws IOException {
+        return stream(json);
+    }
+
+    @Benchmark
+    public long expensesCborStreamed() throws IOException {
+        return stream(cbor);
+    }
+
+    private long stream(ObjectMapper mapper) throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        ObjectWriter writer = mapper.writerFor(ExpenseDto.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (SequenceWriter sequence = writer.writeValuesAsArray(out)) {
+            for (ExpenseDto dto : expenses) sequence.write(dto);
+        }
+        return out.count;
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
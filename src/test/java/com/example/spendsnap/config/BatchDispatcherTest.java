@@ -0,0 +1,185 @@
+package com.example.spendsnap.config;
+
+import com.example.spendsnap.dto.BatchItemRequest;
+import com.example.spendsnap.dto.BatchItemResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.web.access.WebInvocationPrivilegeEvaluator;
+import org.springframework.web.servlet.DispatcherServlet;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BatchDispatcherTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final DispatcherServlet dispatcherServlet = mock(DispatcherServlet.class);
+    private final IdempotencyFilter idempotencyFilter = mock(IdempotencyFilter.class);
+    private final WebInvocationPrivilegeEvaluator privileges = mock(WebInvocationPrivilegeEvaluator.class);
+    private final BatchDispatcher dispatcher = new BatchDispatcher(dispatcherServlet, idempotencyFilter, privileges,
+            objectMapper, new SimpleAsyncTaskExecutor(), 20, 4);
+
+    private final List<String> log = Collections.synchronizedList(new ArrayList<>());
+    private final CountDownLatch readsInFlight = new CountDownLatch(2);
+    private final MockHttpServletRequest outer = new MockHttpServletRequest("POST", "/batch");
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(privileges.isAllowed(anyString(), anyString(), anyString(), any())).thenReturn(true);
+        when(privileges.isAllowed(anyString(), eq("/admin"), anyString(), any())).thenReturn(false);
+        doAnswer(inv -> {
+            inv.<FilterChain>getArgument(2).doFilter(inv.getArgument(0), inv.getArgument(1));
+            return null;
+        }).when(idempotencyFilter).doFilter(any(), any(), any());
+        doAnswer(inv -> {
+            handle(inv.getArgument(0), inv.getArgument(1));
+            return null;
+        }).when(dispatcherServlet).service(any(), any());
+        outer.addHeader("Authorization", "Bearer t");
+        outer.addHeader("If-None-Match", "\"batch\"");
+        outer.setContentType("application/json");
+    }
+
+    // Stand-in controllers, keyed by path
+    private void handle(HttpServletRequest request, HttpServletResponse response) throws Exception {
+        String name = request.getMethod() + " " + request.getServletPath();
+        log.add("start " + name);
+        switch (request.getServletPath()) {
+            case "/slow" -> readsInFlight.countDown();
+            case "/parallel" -> {
+                readsInFlight.countDown();
+                // Only returns early if the other read is running at the same time
+                log.add("overlapped " + readsInFlight.await(2, TimeUnit.SECONDS));
+            }
+            case "/missing" -> response.sendError(404);
+            case "/text" -> {
+                response.setContentType("application/json");
+                response.getWriter().write("not json");
+            }
+            case "/boom" -> throw new IllegalStateException("boom");
+            default -> {
+                response.setStatus("POST".equals(request.getMethod()) ? 201 : 200);
+                response.setHeader("ETag", "\"e1\"");
+                response.setContentType("application/json");
+                Map<String, String> echo = new HashMap<>();
+                echo.put("path", request.getServletPath());
+                echo.put("q", request.getParameter("q"));
+                echo.put("auth", request.getHeader("Authorization"));
+                echo.put("inm", request.getHeader("If-None-Match"));
+                objectMapper.writeValue(response.getWriter(), echo);
+            }
+        }
+        log.add("end " + name);
+    }
+
+    private static BatchItemRequest item(String id, String method, String path) {
+        return new BatchItemRequest(id, method, path, null, null);
+    }
+
+    private List<BatchItemResponse> dispatch(BatchItemRequest... items) {
+        return dispatcher.dispatch(List.of(items), outer, new MockHttpServletResponse());
+    }
+
+    @Test
+    void responsesComeBackInRequestOrderWithTheirIds() {
+        List<BatchItemResponse> responses = dispatch(
+                item("a", "GET", "/one?q=x%20y"),
+                item(null, "post", "/two"),
+                item("c", "GET", "/three"));
+
+        assertThat(responses).extracting(BatchItemResponse::getId).containsExactly("a", "1", "c");
+        assertThat(responses).extracting(BatchItemResponse::getStatus).containsExactly(200, 201, 200);
+        assertThat(responses.get(0).getBody().get("path").asText()).isEqualTo("/one");
+        assertThat(responses.get(0).getBody().get("q").asText()).isEqualTo("x y");
+        assertThat(responses.get(0).getHeaders()).containsEntry("ETag", "\"e1\"");
+    }
+
+    @Test
+    void writesWaitForEarlierItemsAndBlockLaterOnes() {
+        dispatch(
+                item("r1", "GET", "/slow"),
+                item("r2", "GET", "/a"),
+                item("w", "POST", "/write"),
+                item("r3", "GET", "/b"));
+
+        assertThat(log.indexOf("start POST /write")).isGreaterThan(log.indexOf("end GET /slow"));
+        assertThat(log.indexOf("start POST /write")).isGreaterThan(log.indexOf("end GET /a"));
+        assertThat(log.indexOf("start GET /b")).isGreaterThan(log.indexOf("end POST /write"));
+    }
+
+    @Test
+    void consecutiveReadsRunConcurrently() {
+        dispatch(item("r1", "GET", "/parallel"), item("r2", "GET", "/parallel"));
+
+        assertThat(log).contains("overlapped true").doesNotContain("overlapped false");
+    }
+
+    @Test
+    void errorsAreMappedToItemStatusesAndBodies() {
+        List<BatchItemResponse> responses = dispatch(
+                item("missing", "GET", "/missing"),
+                item("text", "GET", "/text"),
+                item("boom", "GET", "/boom"));
+
+        assertThat(responses.get(0).getStatus()).isEqualTo(404);
+        assertThat(responses.get(0).getBody().get("message").asText()).isEqualTo("Not Found");
+        assertThat(responses.get(1).getStatus()).isEqualTo(200);
+        assertThat(responses.get(1).getBody().asText()).isEqualTo("not json");
+        assertThat(responses.get(2).getStatus()).isEqualTo(500);
+        assertThat(responses.get(2).getBody().get("message").asText()).isEqualTo("Internal error");
+    }
+
+    @Test
+    void invalidItemsAreRejectedWithoutDispatching() {
+        List<BatchItemResponse> responses = dispatch(
+                item("m", "TRACE", "/one"),
+                item("p", "GET", "one"),
+                item("n", "POST", "/batch"),
+                item("d", "GET", "/admin"));
+
+        assertThat(responses).extracting(BatchItemResponse::getStatus).containsExactly(400, 400, 400, 403);
+        assertThat(log).isEmpty();
+    }
+
+    @Test
+    void itemsGetTheCallersCredentialsButNotTheBatchsConditionalHeaders() {
+        BatchItemRequest conditional = item("c", "GET", "/one");
+        conditional.setHeaders(Map.of("If-None-Match", "\"item\""));
+
+        List<BatchItemResponse> responses = dispatch(item("plain", "GET", "/one"), conditional);
+
+        assertThat(responses.get(0).getBody().get("auth").asText()).isEqualTo("Bearer t");
+        assertThat(responses.get(0).getBody().get("inm").isNull()).isTrue();
+        assertThat(responses.get(1).getBody().get("inm").asText()).isEqualTo("\"item\"");
+    }
+
+    @Test
+    void batchSizeIsLimited() {
+        assertThatThrownBy(() -> dispatcher.dispatch(List.of(), outer, new MockHttpServletResponse()))
+                .isInstanceOf(IllegalArgumentException.class);
+        List<BatchItemRequest> tooMany = Collections.nCopies(21, item(null, "GET", "/one"));
+        assertThatThrownBy(() -> dispatcher.dispatch(tooMany, outer, new MockHttpServletResponse()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.spendsnap.service;
+
+import com.example.spendsnap.dao.CategoryStatsDao;
+import com.example.spendsnap.dao.ExpenseAnomalyDao;
+import com.example.spendsnap.model.CategoryStats;
+import com.example.spendsnap.model.ExpenseAnomaly;
+import com.example.spendsnap.model.Expenses;
+import com.example.spendsnap.model.SpendingSketch;
+import com.example.spendsnap.model.UserModel;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AnomalyServiceTest {
+
+    private static final double ALPHA = 0.1;
+    private static final List<Double> HISTORY = List.of(12.0, 9.5, 14.0, 11.0, 10.5, 13.0, 12.5);
+
+    private final CategoryStatsDao statsDao = mock(CategoryStatsDao.class);
+    private final ExpenseAnomalyDao anomalyDao = mock(ExpenseAnomalyDao.class);
+    private final AnomalyService service = new AnomalyService(statsDao, anomalyDao, 3.0, 5, ALPHA);
+
+    private static CategoryStats statsOf(List<Double> amounts) {
+        CategoryStats stats = new CategoryStats(1, SpendingSketch.UNCATEGORISED, 0, 0, 0, 0, 0);
+        for (double amount : amounts) AnomalyService.add(stats, Math.log(amount), ALPHA);
+        return stats;
+    }
+
+    private static void assertSameWelford(CategoryStats actual, CategoryStats expected) {
+        assertThat(actual.getValueCount()).isEqualTo(expected.getValueCount());
+        assertThat(actual.getMean()).isCloseTo(expected.getMean(), within(1e-12));
+        assertThat(actual.getM2()).isCloseTo(expected.getM2(), within(1e-12));
+    }
+
+    @Test
+    void removingAnAddedValueRestoresTheLongRunStatistics() {
+        CategoryStats stats = statsOf(HISTORY);
+        CategoryStats before = statsOf(HISTORY);
+
+        AnomalyService.add(stats, Math.log(250.0), ALPHA);
+        AnomalyService.removeValue(stats, Math.log(250.0));
+
+        assertSameWelford(stats, before);
+    }
+
+    @Test
+    void removingAnEarlierValueMatchesNeverHavingAddedIt() {
+        CategoryStats stats = statsOf(HISTORY);
+        AnomalyService.removeValue(stats, Math.log(14.0));
+
+        assertSameWelford(stats, statsOf(List.of(12.0, 9.5, 11.0, 10.5, 13.0, 12.5)));
+    }
+
+    @Test
+    void removingTheLastValueResetsTheStatistics() {
+        CategoryStats stats = statsOf(List.of(42.0));
+        AnomalyService.removeValue(stats, Math.log(42.0));
+
+        assertThat(stats.getValueCount()).isZero();
+        assertThat(stats.getMean()).isZero();
+        assertThat(stats.getM2()).isZero();
+    }
+
+    @Test
+    void rescoreSwapsTheAmountAndReplacesTheRecord() {
+        CategoryStats stats = statsOf(HISTORY);
+        when(statsDao.lockOne(1, SpendingSketch.UNCATEGORISED)).thenReturn(Optional.of(stats));
+        UserModel user = new UserModel();
+        user.setId(1);
+        Expenses expense = new Expenses();
+        expense.setId(40);
+        expense.setUser(user);
+        expense.setAmount(400.0);
+
+        Double score = service.rescore(expense, 12.0);
+
+        assertThat(score).isGreaterThanOrEqualTo(3.0);
+        assertThat(stats.getValueCount()).isEqualTo(HISTORY.size());
+        InOrder order = inOrder(anomalyDao);
+        order.verify(anomalyDao).deleteByExpenseId(40);
+        ArgumentCaptor<ExpenseAnomaly> saved = ArgumentCaptor.forClass(ExpenseAnomaly.class);
+        order.verify(anomalyDao).save(saved.capture());
+        assertThat(saved.getValue().getExpense()).isSameAs(expense);
+        assertThat(saved.getValue().getScore()).isEqualTo(score);
+    }
+
+    @Test
+    void rescoreBackToNormalOnlyDropsTheRecord() {
+        // The mistyped 400.00 was folded in when it was added
+        List<Double> withTypo = new ArrayList<>(HISTORY);
+        withTypo.add(400.0);
+        when(statsDao.lockOne(1, SpendingSketch.UNCATEGORISED)).thenReturn(Optional.of(statsOf(withTypo)));
+        UserModel user = new UserModel();
+        user.setId(1);
+        Expenses expense = new Expenses();
+        expense.setId(41);
+        expense.setUser(user);
+        expense.setAmount(11.5);
+
+        assertThat(service.rescore(expense, 400.0)).isBetween(-3.0, 3.0);
+        verify(anomalyDao).deleteByExpenseId(41);
+        verify(anomalyDao, never()).save(any());
+    }
+}
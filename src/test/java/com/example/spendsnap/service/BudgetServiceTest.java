@@ -0,0 +1,139 @@
+package com.example.spendsnap.service;
+
+import com.example.spendsnap.dao.BudgetAlertDao;
+import com.example.spendsnap.dao.BudgetDao;
+import com.example.spendsnap.dao.BudgetSpendDao;
+import com.example.spendsnap.dao.CategoryDao;
+import com.example.spendsnap.dto.BudgetDto;
+import com.example.spendsnap.event.BudgetThresholdCrossedEvent;
+import com.example.spendsnap.model.Budget;
+import com.example.spendsnap.model.BudgetSpend;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BudgetServiceTest {
+
+    private static final int USER = 1;
+    private static final int FOOD = 7;
+    private static final LocalDate JUNE = LocalDate.of(2025, 6, 1);
+
+    private final BudgetDao budgetDao = mock(BudgetDao.class);
+    private final BudgetSpendDao spendDao = mock(BudgetSpendDao.class);
+    private final BudgetAlertDao alertDao = mock(BudgetAlertDao.class);
+    private final CategoryService categoryService = mock(CategoryService.class);
+    private final ApplicationEventPublisher events = mock(ApplicationEventPublisher.class);
+    private final BudgetService service = new BudgetService(budgetDao, spendDao, alertDao, mock(CategoryDao.class),
+            categoryService, events);
+
+    // In-memory stand-ins for the budget_spend counter and the budget_alerts unique key
+    private long spent;
+    private final Set<String> fired = new HashSet<>();
+
+    @BeforeEach
+    void setUp() {
+        when(spendDao.addDelta(eq(USER), any(), anyInt(), anyLong())).thenAnswer(inv -> {
+            spent += inv.<Long>getArgument(3);
+            return 1;
+        });
+        when(spendDao.spentCents(eq(USER), any(), eq(FOOD))).thenAnswer(inv -> spent);
+        when(alertDao.insertIfAbsent(anyInt(), any(), anyInt(), anyLong(), anyLong(), any()))
+                .thenAnswer(inv -> fired.add(inv.getArgument(1) + "/" + inv.getArgument(2)) ? 1 : 0);
+        // 100.00 with alerts at 80% and 100%
+        when(budgetDao.findByUserIdAndCategoryId(USER, FOOD)).thenReturn(Optional.of(new Budget(3, USER, FOOD, 10_000, "80,100")));
+    }
+
+    private List<Integer> crossed() {
+        ArgumentCaptor<BudgetThresholdCrossedEvent> captor = ArgumentCaptor.forClass(BudgetThresholdCrossedEvent.class);
+        verify(events, atLeast(0)).publishEvent(captor.capture());
+        return captor.getAllValues().stream().map(BudgetThresholdCrossedEvent::thresholdPercent).toList();
+    }
+
+    @Test
+    void firesEachThresholdWhenSpendReachesIt() {
+        service.expense(USER, FOOD, JUNE.plusDays(2), 79.99);
+        assertThat(crossed()).isEmpty();
+
+        service.expense(USER, FOOD, JUNE.plusDays(3), 0.01);
+        assertThat(crossed()).containsExactly(80);
+
+        service.expense(USER, FOOD, JUNE.plusDays(4), 20.0);
+        assertThat(crossed()).containsExactly(80, 100);
+    }
+
+    @Test
+    void oneExpenseCanCrossSeveralThresholds() {
+        service.expense(USER, FOOD, JUNE, 150.0);
+
+        assertThat(crossed()).containsExactly(80, 100);
+        BudgetThresholdCrossedEvent last = new BudgetThresholdCrossedEvent(USER, 3, FOOD, JUNE, 100, 15_000, 10_000);
+        verify(events).publishEvent(last);
+    }
+
+    @Test
+    void stayingAboveAThresholdDoesNotFireAgain() {
+        service.expense(USER, FOOD, JUNE, 85.0);
+        service.expense(USER, FOOD, JUNE, 5.0);
+
+        assertThat(crossed()).containsExactly(80);
+    }
+
+    @Test
+    void refundsNeverFireAndAThresholdFiresOncePerMonth() {
+        service.expense(USER, FOOD, JUNE, 90.0);
+        service.expense(USER, FOOD, JUNE, -20.0);
+        service.expense(USER, FOOD, JUNE, 20.0);
+
+        assertThat(spent).isEqualTo(9_000);
+        assertThat(crossed()).containsExactly(80);
+    }
+
+    @Test
+    void uncategorisedSpendIsCountedButNotBudgeted() {
+        service.expense(USER, null, JUNE, 500.0);
+
+        verify(spendDao).addDelta(USER, JUNE, BudgetSpend.UNCATEGORISED, 50_000L);
+        verify(budgetDao, never()).findByUserIdAndCategoryId(any(), any());
+        assertThat(crossed()).isEmpty();
+    }
+
+    @Test
+    void counterIsKeyedByMonth() {
+        service.expense(USER, FOOD, LocalDate.of(2025, 6, 30), 12.34);
+
+        verify(spendDao).addDelta(USER, JUNE, FOOD, 1_234L);
+    }
+
+    @Test
+    void setRejectsOutOfRangeLimitsAndThresholds() {
+        assertThatThrownBy(() -> service.set(USER, new BudgetDto(null, "food", 0.0, null, null, null, null)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.set(USER, new BudgetDto(null, "food", BudgetService.MAX_LIMIT * 2, null, null, null, null)))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        when(categoryService.resolveId(USER, "food")).thenReturn(FOOD);
+        assertThatThrownBy(() -> service.set(USER, new BudgetDto(null, "food", 10.0, List.of(0), null, null, null)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.set(USER, new BudgetDto(null, "food", 10.0, List.of(10, 20, 30, 40, 50, 60), null, null, null)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.spendsnap.service;
+
+import com.example.spendsnap.dao.IdempotencyKeyDao;
+import com.example.spendsnap.model.IdempotencyRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IdempotencyServiceTest {
+
+    private static final byte[] REQUEST = "POST /expenses body-1".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] OTHER_REQUEST = "POST /expenses body-2".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] BODY = "{\"id\":5}".getBytes(StandardCharsets.UTF_8);
+
+    private final IdempotencyKeyDao dao = mock(IdempotencyKeyDao.class);
+    // The idempotency_keys table, shared by every service instance (node) in a test
+    private final Map<IdempotencyRecord.Key, IdempotencyRecord> table = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        when(dao.insertPending(anyInt(), anyString(), any(), any())).thenAnswer(inv -> {
+            IdempotencyRecord.Key key = new IdempotencyRecord.Key(inv.getArgument(0), inv.getArgument(1));
+            if (table.containsKey(key)) return 0;
+            table.put(key, new IdempotencyRecord(key.getUserId(), key.getIdempotencyKey(), inv.getArgument(2), null, null, null, inv.getArgument(3)));
+            return 1;
+        });
+        when(dao.complete(anyInt(), anyString(), anyInt(), any(), any(), any())).thenAnswer(inv -> {
+            IdempotencyRecord row = table.get(new IdempotencyRecord.Key(inv.getArgument(0), inv.getArgument(1)));
+            if (row == null || row.getStatusCode() != null) return 0;
+            row.setStatusCode(inv.getArgument(2));
+            row.setContentType(inv.getArgument(3));
+            row.setBody(inv.getArgument(4));
+            row.setExpiresAt(inv.getArgument(5));
+            return 1;
+        });
+        when(dao.deletePending(anyInt(), anyString())).thenAnswer(inv -> {
+            IdempotencyRecord.Key key = new IdempotencyRecord.Key(inv.getArgument(0), inv.getArgument(1));
+            IdempotencyRecord row = table.get(key);
+            return row != null && row.getStatusCode() == null && table.remove(key) != null ? 1 : 0;
+        });
+        when(dao.deleteIfExpired(anyInt(), anyString(), any())).thenAnswer(inv -> {
+            IdempotencyRecord.Key key = new IdempotencyRecord.Key(inv.getArgument(0), inv.getArgument(1));
+            IdempotencyRecord row = table.get(key);
+            OffsetDateTime now = inv.getArgument(2);
+            return row != null && row.getExpiresAt().isBefore(now) && table.remove(key) != null ? 1 : 0;
+        });
+        when(dao.findById(any())).thenAnswer(inv -> Optional.ofNullable(table.get(inv.<IdempotencyRecord.Key>getArgument(0))));
+    }
+
+    private IdempotencyService node(Duration wait) {
+        return new IdempotencyService(dao, mock(PlatformTransactionManager.class),
+                Duration.ofHours(24), Duration.ofSeconds(60), wait, 100);
+    }
+
+    private IdempotencyService node() {
+        return node(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void firstRequestOwnsTheKeyAndARetryReplaysItsResponse() throws Exception {
+        IdempotencyService service = node();
+
+        IdempotencyService.Claim first = service.claim(1, "k1", REQUEST);
+        assertThat(first).isInstanceOf(IdempotencyService.Owner.class);
+        ((IdempotencyService.Owner) first).complete(201, "application/json", BODY);
+
+        IdempotencyService.Claim retry = service.claim(1, "k1", REQUEST);
+        assertThat(retry).isInstanceOfSatisfying(IdempotencyService.Replay.class, replay -> {
+            assertThat(replay.response().status()).isEqualTo(201);
+            assertThat(replay.response().contentType()).isEqualTo("application/json");
+            assertThat(replay.response().body()).isEqualTo(BODY);
+        });
+    }
+
+    @Test
+    void reusingAKeyForADifferentRequestIsAMismatch() throws Exception {
+        IdempotencyService service = node();
+        ((IdempotencyService.Owner) service.claim(1, "k1", REQUEST)).complete(201, "application/json", BODY);
+
+        assertThat(service.claim(1, "k1", OTHER_REQUEST)).isInstanceOf(IdempotencyService.Mismatch.class);
+        // Keys are per user
+        assertThat(service.claim(2, "k1", OTHER_REQUEST)).isInstanceOf(IdempotencyService.Owner.class);
+    }
+
+    @Test
+    void anotherNodesCompletedResponseIsReplayedAndThenCached() throws Exception {
+        ((IdempotencyService.Owner) node().claim(1, "k1", REQUEST)).complete(200, "application/json", BODY);
+        IdempotencyService other = node();
+
+        assertThat(other.claim(1, "k1", REQUEST)).isInstanceOf(IdempotencyService.Replay.class);
+        assertThat(other.claim(1, "k1", REQUEST)).isInstanceOf(IdempotencyService.Replay.class);
+        verify(dao, times(1)).findById(any());
+    }
+
+    @Test
+    void requestRunningOnAnotherNodeIsInProgressOrMismatch() throws Exception {
+        assertThat(node().claim(1, "k1", REQUEST)).isInstanceOf(IdempotencyService.Owner.class);
+        IdempotencyService other = node();
+
+        assertThat(other.claim(1, "k1", REQUEST)).isInstanceOf(IdempotencyService.InProgress.class);
+        assertThat(other.claim(1, "k1", OTHER_REQUEST)).isInstanceOf(IdempotencyService.Mismatch.class);
+    }
+
+    @Test
+    void duplicateOnThisNodeWaitsForTheOwnerAndReplays() throws Exception {
+        IdempotencyService service = node();
+        IdempotencyService.Owner owner = (IdempotencyService.Owner) service.claim(1, "k1", REQUEST);
+
+        CompletableFuture<IdempotencyService.Claim> duplicate = CompletableFuture.supplyAsync(() -> {
+            try {
+                return service.claim(1, "k1", REQUEST);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        owner.complete(201, "application/json", BODY);
+
+        assertThat(duplicate.get(5, TimeUnit.SECONDS)).isInstanceOf(IdempotencyService.Replay.class);
+    }
+
+    @Test
+    void duplicateGivesUpAfterTheWaitTimeout() throws Exception {
+        IdempotencyService service = node(Duration.ofMillis(50));
+        assertThat(service.claim(1, "k1", REQUEST)).isInstanceOf(IdempotencyService.Owner.class);
+
+        assertThat(service.claim(1, "k1", REQUEST)).isInstanceOf(IdempotencyService.InProgress.class);
+    }
+
+    @Test
+    void failedOrServerErrorResponsesReleaseTheKey() throws Exception {
+        IdempotencyService service = node();
+
+        ((IdempotencyService.Owner) service.claim(1, "k1", REQUEST)).fail();
+        IdempotencyService.Claim second = service.claim(1, "k1", REQUEST);
+        assertThat(second).isInstanceOf(IdempotencyService.Owner.class);
+
+        ((IdempotencyService.Owner) second).complete(503, "text/plain", new byte[0]);
+        assertThat(table).isEmpty();
+        assertThat(service.claim(1, "k1", REQUEST)).isInstanceOf(IdempotencyService.Owner.class);
+    }
+
+    @Test
+    void expiredKeyCanBeClaimedAgain() throws Exception {
+        ((IdempotencyService.Owner) node().claim(1, "k1", REQUEST)).complete(201, "application/json", BODY);
+        table.values().forEach(row -> row.setExpiresAt(OffsetDateTime.now().minusSeconds(1)));
+
+        assertThat(node().claim(1, "k1", OTHER_REQUEST)).isInstanceOf(IdempotencyService.Owner.class);
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.spendsnap.service;
+
+import com.example.spendsnap.dao.LedgerSpecifications;
+import com.example.spendsnap.dto.KeysetPageDto;
+import com.example.spendsnap.dto.LedgerSearchRequest;
+import com.example.spendsnap.model.Expenses;
+import com.example.spendsnap.model.LedgerSortKey;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class LedgerSearchTest {
+
+    @SuppressWarnings("unchecked")
+    private final JpaSpecificationExecutor<Expenses> dao = mock(JpaSpecificationExecutor.class);
+    private final CategoryService categoryService = mock(CategoryService.class);
+    @SuppressWarnings("unchecked")
+    private final JpaSpecificationExecutor.SpecificationFluentQuery<Expenses> query =
+            mock(JpaSpecificationExecutor.SpecificationFluentQuery.class, RETURNS_SELF);
+
+    // Rows the "database" holds, already in the requested order; the query returns up to its limit of them
+    @SuppressWarnings("unchecked")
+    private KeysetPageDto<Integer> page(LedgerSearchRequest request, List<Expenses> stored) {
+        int[] limit = {Integer.MAX_VALUE};
+        when(query.limit(anyInt())).thenAnswer(inv -> {
+            limit[0] = inv.getArgument(0);
+            return query;
+        });
+        when(query.all()).thenAnswer(inv -> new ArrayList<>(stored.subList(0, Math.min(limit[0], stored.size()))));
+        when(dao.findBy(any(Specification.class), any())).thenAnswer(inv ->
+                ((Function<JpaSpecificationExecutor.SpecificationFluentQuery<Expenses>, Object>) inv.getArgument(1)).apply(query));
+        return LedgerSearch.page(dao, categoryService, 1, request, Expenses::getId);
+    }
+
+    private static List<Expenses> rows(int count) {
+        List<Expenses> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Expenses e = new Expenses();
+            e.setId(100 - i);
+            e.setAmount(10.0 + i);
+            e.setDate(LocalDate.of(2025, 6, 30).minusDays(i));
+            rows.add(e);
+        }
+        return rows;
+    }
+
+    private static LedgerSearchRequest request(int limit) {
+        LedgerSearchRequest request = new LedgerSearchRequest();
+        request.setLimit(limit);
+        return request;
+    }
+
+    private static String decode(String cursor) {
+        return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void fullPageWithMoreRowsHasCursorOfItsLastRow() {
+        KeysetPageDto<Integer> page = page(request(3), rows(5));
+
+        verify(query).limit(4);
+        assertThat(page.getItems()).containsExactly(100, 99, 98);
+        assertThat(decode(page.getNextCursor())).isEqualTo("2025-06-28|98");
+    }
+
+    @Test
+    void pageThatExactlyFitsTheRemainingRowsIsTheLast() {
+        KeysetPageDto<Integer> page = page(request(3), rows(3));
+
+        assertThat(page.getItems()).containsExactly(100, 99, 98);
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void shortAndEmptyPagesHaveNoCursor() {
+        assertThat(page(request(3), rows(2)).getNextCursor()).isNull();
+        KeysetPageDto<Integer> empty = page(request(3), rows(0));
+        assertThat(empty.getItems()).isEmpty();
+        assertThat(empty.getNextCursor()).isNull();
+    }
+
+    @Test
+    void cursorEncodesSortValueAndId() {
+        Expenses row = rows(1).get(0);
+
+        String byDate = LedgerSpecifications.cursorAfter(row, LedgerSortKey.DATE);
+        String byAmount = LedgerSpecifications.cursorAfter(row, LedgerSortKey.AMOUNT);
+
+        assertThat(decode(byDate)).isEqualTo("2025-06-30|100");
+        assertThat(decode(byAmount)).isEqualTo("10.0|100");
+        assertThat(byDate).doesNotContain("=", "+", "/");
+    }
+
+    @Test
+    void cursorFromAPageIsAcceptedForTheNextOne() {
+        Expenses row = rows(1).get(0);
+        for (LedgerSortKey key : LedgerSortKey.values()) {
+            LedgerSearchRequest request = request(10);
+            request.setSort(key);
+            request.setCursor(LedgerSpecifications.cursorAfter(row, key));
+
+            assertThat(LedgerSpecifications.matching(1, request, null)).isNotNull();
+        }
+    }
+
+    @Test
+    void malformedCursorsAreRejected() {
+        String notBase64 = "***";
+        String noSeparator = encode("2025-06-30");
+        String badId = encode("2025-06-30|x");
+        String amountForDateSort = encode("10.5|7");
+        for (String cursor : List.of(notBase64, noSeparator, badId, amountForDateSort)) {
+            LedgerSearchRequest request = request(10);
+            request.setCursor(cursor);
+
+            assertThatThrownBy(() -> LedgerSpecifications.matching(1, request, null))
+                    .as(cursor).isInstanceOf(IllegalArgumentException.class).hasMessage("Invalid cursor");
+        }
+    }
+
+    @Test
+    void limitAndRangesAreValidated() {
+        assertThatThrownBy(() -> page(request(0), rows(1))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> page(request(LedgerSearchRequest.MAX_LIMIT + 1), rows(1))).isInstanceOf(IllegalArgumentException.class);
+
+        LedgerSearchRequest dates = request(10);
+        dates.setFrom(LocalDate.of(2025, 2, 1));
+        dates.setTo(LocalDate.of(2025, 1, 31));
+        assertThatThrownBy(() -> page(dates, rows(1))).isInstanceOf(IllegalArgumentException.class);
+
+        LedgerSearchRequest amounts = request(10);
+        amounts.setMinAmount(5.0);
+        amounts.setMaxAmount(4.0);
+        assertThatThrownBy(() -> page(amounts, rows(1))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void unknownCategoriesGiveAnEmptyPageWithoutQuerying() {
+        LedgerSearchRequest request = request(10);
+        request.setCategory(List.of("nope"));
+        when(categoryService.findIds(1, List.of("nope"))).thenReturn(List.of());
+
+        KeysetPageDto<Integer> page = LedgerSearch.page(dao, categoryService, 1, request, Expenses::getId);
+
+        assertThat(page.getItems()).isEmpty();
+        assertThat(page.getNextCursor()).isNull();
+        verifyNoInteractions(dao);
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
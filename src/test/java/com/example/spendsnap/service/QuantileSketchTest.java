@@ -0,0 +1,86 @@
+package com.example.spendsnap.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class QuantileSketchTest {
+
+    @Test
+    void mergeMatchesOneSketchOfAllValues() {
+        QuantileSketch all = new QuantileSketch();
+        QuantileSketch low = new QuantileSketch();
+        QuantileSketch high = new QuantileSketch();
+        for (int i = 1; i <= 1000; i++) {
+            all.add(i);
+            (i <= 500 ? low : high).add(i);
+        }
+        low.add(0);
+        all.add(0);
+
+        low.merge(high);
+
+        assertThat(low.count()).isEqualTo(1001);
+        assertThat(low.toBytes()).isEqualTo(all.toBytes());
+        assertThat(low.quantile(0.5)).isCloseTo(500.0, within(500 * QuantileSketch.RELATIVE_ACCURACY));
+        assertThat(low.quantile(0.99)).isCloseTo(990.0, within(990 * QuantileSketch.RELATIVE_ACCURACY));
+        assertThat(low.quantile(0)).isEqualTo(0.0);
+    }
+
+    @Test
+    void mergeOfEmptySketchChangesNothing() {
+        QuantileSketch sketch = new QuantileSketch();
+        sketch.add(12.5);
+        byte[] before = sketch.toBytes();
+
+        sketch.merge(new QuantileSketch());
+
+        assertThat(sketch.toBytes()).isEqualTo(before);
+        assertThat(sketch.count()).isEqualTo(1);
+    }
+
+    @Test
+    void bytesRoundTrip() {
+        QuantileSketch sketch = new QuantileSketch();
+        for (double v : new double[]{-3, 0, 0.01, 0.5, 7.25, 7.25, 80, 1_000_000}) sketch.add(v);
+
+        QuantileSketch copy = QuantileSketch.fromBytes(sketch.toBytes());
+
+        assertThat(copy.count()).isEqualTo(sketch.count());
+        assertThat(copy.toBytes()).isEqualTo(sketch.toBytes());
+        for (double q : new double[]{0, 0.25, 0.5, 0.75, 1}) {
+            assertThat(copy.quantile(q)).isEqualTo(sketch.quantile(q));
+        }
+    }
+
+    @Test
+    void roundTripKeepsRemoveWorking() {
+        QuantileSketch sketch = new QuantileSketch();
+        sketch.add(10);
+        sketch.add(20);
+
+        QuantileSketch copy = QuantileSketch.fromBytes(sketch.toBytes());
+        copy.remove(20);
+        copy.remove(99);
+
+        assertThat(copy.count()).isEqualTo(1);
+        assertThat(copy.quantile(1)).isCloseTo(10.0, within(10 * QuantileSketch.RELATIVE_ACCURACY));
+    }
+
+    @Test
+    void emptyOrMissingBytesAreAnEmptySketch() {
+        assertThat(QuantileSketch.fromBytes(null).count()).isZero();
+        assertThat(QuantileSketch.fromBytes(new byte[0]).quantile(0.5)).isNull();
+        assertThat(QuantileSketch.fromBytes(new QuantileSketch().toBytes()).count()).isZero();
+    }
+
+    @Test
+    void unknownFormatVersionIsRejected() {
+        byte[] bytes = new QuantileSketch().toBytes();
+        bytes[0] = 99;
+
+        assertThatThrownBy(() -> QuantileSketch.fromBytes(bytes)).isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.spendsnap.service;
+
+import com.example.spendsnap.model.RecurrenceFrequency;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RecurrenceTest {
+
+    @Test
+    void monthlyFromThe31stUsesEachMonthsLastDayWithoutDrifting() {
+        LocalDate start = LocalDate.of(2025, 1, 31);
+
+        assertThat(Recurrence.occurrence(start, RecurrenceFrequency.MONTHLY, 1, 1)).isEqualTo(LocalDate.of(2025, 2, 28));
+        assertThat(Recurrence.occurrence(start, RecurrenceFrequency.MONTHLY, 1, 2)).isEqualTo(LocalDate.of(2025, 3, 31));
+        assertThat(Recurrence.occurrence(start, RecurrenceFrequency.MONTHLY, 1, 3)).isEqualTo(LocalDate.of(2025, 4, 30));
+        assertThat(Recurrence.occurrence(start, RecurrenceFrequency.MONTHLY, 1, 13)).isEqualTo(LocalDate.of(2026, 2, 28));
+        assertThat(Recurrence.occurrence(start, RecurrenceFrequency.MONTHLY, 1, 37)).isEqualTo(LocalDate.of(2028, 2, 29));
+    }
+
+    @Test
+    void yearlyFromLeapDayFallsBackToFebruary28th() {
+        LocalDate start = LocalDate.of(2024, 2, 29);
+
+        assertThat(Recurrence.occurrence(start, RecurrenceFrequency.YEARLY, 1, 1)).isEqualTo(LocalDate.of(2025, 2, 28));
+        assertThat(Recurrence.occurrence(start, RecurrenceFrequency.YEARLY, 1, 4)).isEqualTo(LocalDate.of(2028, 2, 29));
+    }
+
+    @Test
+    void indexOnOrAfterFindsTheFirstOccurrenceNotBeforeTheDate() {
+        LocalDate start = LocalDate.of(2025, 1, 31);
+
+        assertThat(Recurrence.indexOnOrAfter(start, RecurrenceFrequency.MONTHLY, 1, LocalDate.of(2025, 1, 1))).isZero();
+        assertThat(Recurrence.indexOnOrAfter(start, RecurrenceFrequency.MONTHLY, 1, LocalDate.of(2025, 2, 28))).isEqualTo(1);
+        // Past February's occurrence (the 28th) the next one is March 31st
+        assertThat(Recurrence.indexOnOrAfter(start, RecurrenceFrequency.MONTHLY, 1, LocalDate.of(2025, 3, 1))).isEqualTo(2);
+        assertThat(Recurrence.indexOnOrAfter(start, RecurrenceFrequency.MONTHLY, 3, LocalDate.of(2025, 5, 1))).isEqualTo(2);
+        assertThat(Recurrence.indexOnOrAfter(LocalDate.of(2024, 2, 29), RecurrenceFrequency.YEARLY, 1,
+                LocalDate.of(2025, 3, 1))).isEqualTo(2);
+    }
+
+    @Test
+    void countEndsOnTheLastOccurrence() {
+        Recurrence rule = Recurrence.parse("FREQ=MONTHLY;COUNT=3");
+
+        assertThat(rule.endDate(LocalDate.of(2025, 12, 31))).isEqualTo(LocalDate.of(2026, 2, 28));
+    }
+
+    @Test
+    void parsesRruleSubset() {
+        Recurrence rule = Recurrence.parse("RRULE:freq=weekly;INTERVAL=2;UNTIL=20261231T000000Z");
+
+        assertThat(rule.frequency()).isEqualTo(RecurrenceFrequency.WEEKLY);
+        assertThat(rule.interval()).isEqualTo(2);
+        assertThat(rule.until()).isEqualTo(LocalDate.of(2026, 12, 31));
+        assertThat(Recurrence.parse("FREQ=DAILY").endDate(LocalDate.of(2025, 1, 1))).isNull();
+    }
+
+    @Test
+    void invalidRulesAreRejected() {
+        for (String bad : new String[]{"", "INTERVAL=2", "FREQ=HOURLY", "FREQ=DAILY;INTERVAL=0",
+                "FREQ=DAILY;COUNT=0", "FREQ=DAILY;COUNT=2;UNTIL=20260101", "FREQ=DAILY;BYDAY=MO", "FREQ"}) {
+            assertThatThrownBy(() -> Recurrence.parse(bad)).as(bad).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.spendsnap.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SparseFieldsQueryTest {
+
+    private static final List<SparseFieldsQuery.Field> CATALOG = List.of(
+            new SparseFieldsQuery.Field("id", "id"),
+            new SparseFieldsQuery.Field("amount", "amount"),
+            new SparseFieldsQuery.Field("category", "category.name"),
+            new SparseFieldsQuery.Field("userId", "user.id"));
+
+    private static List<String> names(String fields) {
+        return SparseFieldsQuery.select(CATALOG, fields).stream().map(SparseFieldsQuery.Field::name).toList();
+    }
+
+    @Test
+    void absentParameterSelectsNothing() {
+        assertThat(SparseFieldsQuery.select(CATALOG, null)).isNull();
+    }
+
+    @Test
+    void selectedFieldsFollowCatalogOrder() {
+        assertThat(names("userId,id,category")).containsExactly("id", "category", "userId");
+    }
+
+    @Test
+    void whitespaceEmptyEntriesAndDuplicatesAreIgnored() {
+        assertThat(names(" amount , ,id,amount,")).containsExactly("id", "amount");
+    }
+
+    @Test
+    void blankParameterIsRejected() {
+        for (String blank : new String[]{"", "  ", ",", " , "}) {
+            assertThatThrownBy(() -> SparseFieldsQuery.select(CATALOG, blank))
+                    .as("'%s'", blank).isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("at least one field");
+        }
+    }
+
+    @Test
+    void unknownFieldsAreNamedInTheError() {
+        assertThatThrownBy(() -> SparseFieldsQuery.select(CATALOG, "id,secret,Amount"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("[secret, Amount]")
+                .hasMessageContaining("available: [id, amount, category, userId]");
+    }
+}
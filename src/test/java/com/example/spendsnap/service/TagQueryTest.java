@@ -0,0 +1,71 @@
+package com.example.spendsnap.service;
+
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TagQueryTest {
+
+    private static final Map<String, RoaringBitmap> BITMAPS = Map.of(
+            "trip", RoaringBitmap.bitmapOf(1, 2, 3, 4),
+            "work", RoaringBitmap.bitmapOf(3, 4, 5),
+            "personal", RoaringBitmap.bitmapOf(2, 4),
+            "tax", RoaringBitmap.bitmapOf(4, 5, 6));
+
+    private static int[] eval(String expression) {
+        return TagQuery.parse(expression).evaluate(name -> BITMAPS.getOrDefault(name, new RoaringBitmap())).toArray();
+    }
+
+    @Test
+    void adjacentTagsAreAnded() {
+        assertThat(eval("trip work")).containsExactly(3, 4);
+        assertThat(eval("trip AND work")).containsExactly(3, 4);
+    }
+
+    @Test
+    void orBindsLooserThanAnd() {
+        assertThat(eval("personal work OR tax")).containsExactly(4, 5, 6);
+        assertThat(eval("personal (work OR tax)")).containsExactly(4);
+    }
+
+    @Test
+    void notIsAndNot() {
+        assertThat(eval("trip NOT personal")).containsExactly(1, 3);
+        assertThat(eval("trip AND NOT personal")).containsExactly(1, 3);
+        assertThat(eval("(trip OR tax) NOT work")).containsExactly(1, 2, 6);
+    }
+
+    @Test
+    void keywordsAndTagsAreCaseInsensitive() {
+        TagQuery query = TagQuery.parse("Trip and not PERSONAL or Tax");
+
+        assertThat(query.tags()).containsExactly("trip", "personal", "tax");
+        assertThat(eval("Trip and not PERSONAL or Tax")).containsExactly(1, 3, 4, 5, 6);
+    }
+
+    @Test
+    void unknownTagMatchesNothing() {
+        assertThat(eval("trip nosuchtag")).isEmpty();
+        assertThat(eval("trip OR nosuchtag")).containsExactly(1, 2, 3, 4);
+    }
+
+    @Test
+    void evaluateLeavesLookedUpBitmapsUnchanged() {
+        eval("trip work NOT personal OR tax");
+
+        assertThat(BITMAPS.get("trip").toArray()).containsExactly(1, 2, 3, 4);
+        assertThat(BITMAPS.get("work").toArray()).containsExactly(3, 4, 5);
+    }
+
+    @Test
+    void malformedQueriesAreRejected() {
+        for (String bad : new String[]{" ", "NOT trip", "trip AND", "(trip", "trip)", "trip OR OR work", "()"}) {
+            assertThatThrownBy(() -> TagQuery.parse(bad)).as(bad).isInstanceOf(IllegalArgumentException.class);
+        }
+        assertThatThrownBy(() -> TagQuery.parse(null)).isInstanceOf(IllegalArgumentException.class);
+    }
+}